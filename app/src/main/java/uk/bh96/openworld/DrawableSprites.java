@@ -0,0 +1,36 @@
+package uk.bh96.openworld;
+
+/**
+ * Maps each of the simulation's sprites (see Sprite) to the drawable resource it is drawn with.
+ */
+public class DrawableSprites implements Sprite.Resolver {
+    public int resolve(Sprite sprite) {
+        switch (sprite) {
+            case BEDROCK: return R.drawable.bedrock;
+            case COAL: return R.drawable.coal;
+            case DIAMOND: return R.drawable.diamond;
+            case DIRT: return R.drawable.dirt;
+            case GOLD: return R.drawable.gold;
+            case GRASS: return R.drawable.grass;
+            case IRON: return R.drawable.iron;
+            case LAVA: return R.drawable.lava;
+            case STONE: return R.drawable.stone;
+            case DESTROY: return R.drawable.destroy;
+            case PLAYER_LEFT1: return R.drawable.player_left1;
+            case PLAYER_LEFT2: return R.drawable.player_left2;
+            case PLAYER_LEFT3: return R.drawable.player_left3;
+            case PLAYER_LEFT4: return R.drawable.player_left4;
+            case PLAYER_RIGHT1: return R.drawable.player_right1;
+            case PLAYER_RIGHT2: return R.drawable.player_right2;
+            case PLAYER_RIGHT3: return R.drawable.player_right3;
+            case PLAYER_RIGHT4: return R.drawable.player_right4;
+            case ZOMBIE_LEFT1: return R.drawable.zombie_left1;
+            case ZOMBIE_LEFT2: return R.drawable.zombie_left2;
+            case ZOMBIE_LEFT3: return R.drawable.zombie_left3;
+            case ZOMBIE_RIGHT1: return R.drawable.zombie_right1;
+            case ZOMBIE_RIGHT2: return R.drawable.zombie_right2;
+            case ZOMBIE_RIGHT3: return R.drawable.zombie_right3;
+        }
+        throw new IllegalArgumentException("No drawable for " + sprite);
+    }
+}
@@ -0,0 +1,139 @@
+package uk.bh96.openworld;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed size, lock-free histogram of durations, in the style of HdrHistogram: buckets are linear up to 32 units and
+ * then logarithmic, with 16 buckets per power of two, so every duration from a microsecond to over ten seconds is
+ * recorded to within about 6%. Recording is a couple of atomic increments and never allocates, so it's safe to do from
+ * any thread, every frame, without disturbing what is being measured.
+ */
+public class FrameHistogram {
+    /**
+     * The number of nanoseconds in the smallest unit the histogram records, as a shift (1024ns - about 1 microsecond).
+     */
+    private static final int UNIT_SHIFT = 10;
+    /**
+     * The number of sub-buckets per power of two, as a shift.
+     */
+    private static final int SUB_BUCKET_BITS = 4;
+    /**
+     * The number of sub-buckets per power of two.
+     */
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    /**
+     * Values (in units) below this are recorded exactly.
+     */
+    private static final int LINEAR_BUCKETS = SUB_BUCKETS * 2;
+    /**
+     * The largest power of two (as a shift, in units) the histogram covers - anything larger is recorded as the largest
+     * value the histogram can hold.
+     */
+    private static final int MAX_SHIFT = 24;
+    /**
+     * The total number of buckets.
+     */
+    private static final int BUCKETS = LINEAR_BUCKETS + MAX_SHIFT * SUB_BUCKETS;
+
+    /**
+     * The number of values recorded in each bucket.
+     */
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    /**
+     * The largest value recorded (in nanoseconds).
+     */
+    private final AtomicLong max = new AtomicLong();
+    /**
+     * The number of values recorded.
+     */
+    private final AtomicLong total = new AtomicLong();
+
+    /**
+     * @return the number of values recorded.
+     */
+    public long getCount() { return total.get(); }
+
+    /**
+     * @return the largest value recorded (in nanoseconds).
+     */
+    public long getMax() { return max.get(); }
+
+    /**
+     * @param percentile the percentile (0-100) to find.
+     * @return the value (in nanoseconds) which the given percentage of recorded values are less than or equal to,
+     * rounded up to the top of its bucket. 0 if nothing has been recorded.
+     */
+    public long getValueAtPercentile(double percentile) {
+        long count = total.get();
+        if (count == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(count * Math.min(100, percentile) / 100));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= target) {
+                return Math.min(max.get(), highestValueIn(i));
+            }
+        }
+        return max.get(); // values were recorded while we were counting
+    }
+
+    /**
+     * @param bucket a bucket.
+     * @return the largest value (in nanoseconds) which is recorded in the bucket.
+     */
+    private static long highestValueIn(int bucket) {
+        long units;
+        if (bucket < LINEAR_BUCKETS) {
+            units = bucket;
+        } else {
+            int shift = (bucket - LINEAR_BUCKETS) / SUB_BUCKETS + 1;
+            long subBucket = (bucket - LINEAR_BUCKETS) % SUB_BUCKETS + SUB_BUCKETS;
+            units = ((subBucket + 1) << shift) - 1;
+        }
+        return ((units + 1) << UNIT_SHIFT) - 1;
+    }
+
+    /**
+     * @param nanos a value.
+     * @return the bucket which the value is recorded in.
+     */
+    private static int indexOf(long nanos) {
+        long units = nanos >> UNIT_SHIFT;
+        if (units < LINEAR_BUCKETS) {
+            return (int) Math.max(0, units);
+        }
+        // keep the top SUB_BUCKET_BITS + 1 bits of the value (the highest of which is always set)
+        int shift = 63 - Long.numberOfLeadingZeros(units) - SUB_BUCKET_BITS;
+        if (shift > MAX_SHIFT) {
+            return BUCKETS - 1;
+        }
+        return LINEAR_BUCKETS + (shift - 1) * SUB_BUCKETS + (int) (units >> shift) - SUB_BUCKETS;
+    }
+
+    /**
+     * Records a value.
+     * @param nanos the value to record (in nanoseconds).
+     */
+    public void record(long nanos) {
+        counts.incrementAndGet(indexOf(nanos));
+        total.incrementAndGet();
+        long currentMax = max.get();
+        while (nanos > currentMax && !max.compareAndSet(currentMax, nanos)) {
+            currentMax = max.get();
+        }
+    }
+
+    /**
+     * Forgets everything recorded so far.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        total.set(0);
+        max.set(0);
+    }
+}
@@ -0,0 +1,139 @@
+package uk.bh96.openworld;
+
+import android.graphics.Canvas;
+import android.graphics.Paint;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Times every frame (from the start of one frame to the start of the next), every draw and every simulation tick, and
+ * counts the frames which were dropped because a frame took longer than the display's refresh interval. The timings
+ * can be read (from any thread) through the getters, or drawn on screen with drawOverlay(). Nothing here allocates
+ * once created.
+ */
+public class FrameStats {
+    /**
+     * The time (in nanoseconds) available to draw each frame, assuming a 60Hz display.
+     */
+    public static final long FRAME_BUDGET_NANOS = 1000000000L / 60;
+    /**
+     * The percentiles shown in the overlay.
+     */
+    private static final int[] OVERLAY_PERCENTILES = new int[]{50, 95, 99};
+
+    /**
+     * The number of frames dropped (i.e. refresh intervals missed) since the stats were last reset.
+     */
+    private final AtomicLong droppedFrames = new AtomicLong();
+    /**
+     * The time taken to draw each frame.
+     */
+    private final FrameHistogram drawTimes = new FrameHistogram();
+    /**
+     * The time from the start of each frame to the start of the next.
+     */
+    private final FrameHistogram frameTimes = new FrameHistogram();
+    /**
+     * When (see Clock) the last frame started, or 0 if no frame has started yet.
+     */
+    private long lastFrameStart = 0;
+    /**
+     * The line of text being built for the overlay, reused every frame.
+     */
+    private final char[] line = new char[64];
+    /**
+     * The time taken by each simulation tick.
+     */
+    private final FrameHistogram updateTimes = new FrameHistogram();
+
+    /**
+     * Draws the frame, draw and update percentiles, and the number of dropped frames, as four lines of text.
+     * @param canvas the canvas to draw onto.
+     * @param left the position on screen of the left edge of the text.
+     * @param top the position on screen of the baseline of the first line.
+     * @param paint the paint to draw the text with.
+     */
+    public void drawOverlay(Canvas canvas, float left, float top, Paint paint) {
+        float lineHeight = paint.descent() - paint.ascent();
+        drawOverlayLine(canvas, "frame", frameTimes, left, top, paint);
+        drawOverlayLine(canvas, "draw", drawTimes, left, top + lineHeight, paint);
+        drawOverlayLine(canvas, "update", updateTimes, left, top + lineHeight * 2, paint);
+        int position = TextFormat.appendText(line, 0, "dropped ");
+        position = TextFormat.appendLong(line, position, droppedFrames.get());
+        canvas.drawText(line, 0, position, left, top + lineHeight * 3, paint);
+    }
+
+    /**
+     * Draws the percentiles of one histogram as a line of text (e.g. "frame 16.7 17.0 33.4 ms").
+     * @param canvas the canvas to draw onto.
+     * @param label the name of the histogram.
+     * @param histogram the histogram.
+     * @param left the position on screen of the left edge of the text.
+     * @param baseline the position on screen of the baseline of the text.
+     * @param paint the paint to draw the text with.
+     */
+    private void drawOverlayLine(Canvas canvas, String label, FrameHistogram histogram, float left, float baseline, Paint paint) {
+        int position = TextFormat.appendText(line, 0, label);
+        for (int percentile : OVERLAY_PERCENTILES) {
+            line[position++] = ' ';
+            position = TextFormat.appendFixed(line, position, (histogram.getValueAtPercentile(percentile) + 50000) / 100000, 1);
+        }
+        position = TextFormat.appendText(line, position, " ms");
+        canvas.drawText(line, 0, position, left, baseline, paint);
+    }
+
+    /**
+     * Records the start of a frame (which is also the end of the previous one). Must only be called by the render
+     * thread.
+     * @param now the time the frame started (see Clock).
+     */
+    void frameStarted(long now) {
+        if (lastFrameStart != 0) {
+            long frameTime = now - lastFrameStart;
+            frameTimes.record(frameTime);
+            if (frameTime > FRAME_BUDGET_NANOS) {
+                droppedFrames.addAndGet((frameTime - 1) / FRAME_BUDGET_NANOS);
+            }
+        }
+        lastFrameStart = now;
+    }
+
+    /**
+     * @return the number of frames dropped (i.e. refresh intervals missed) since the stats were last reset.
+     */
+    public long getDroppedFrames() { return droppedFrames.get(); }
+    /**
+     * @return the time taken to draw each frame.
+     */
+    public FrameHistogram getDrawTimes() { return drawTimes; }
+    /**
+     * @return the time from the start of each frame to the start of the next.
+     */
+    public FrameHistogram getFrameTimes() { return frameTimes; }
+    /**
+     * @return the time taken by each simulation tick.
+     */
+    public FrameHistogram getUpdateTimes() { return updateTimes; }
+
+    /**
+     * Records how long a frame took to draw.
+     * @param nanos the time taken (in nanoseconds).
+     */
+    void recordDraw(long nanos) { drawTimes.record(nanos); }
+
+    /**
+     * Records how long a simulation tick took.
+     * @param nanos the time taken (in nanoseconds).
+     */
+    void recordUpdate(long nanos) { updateTimes.record(nanos); }
+
+    /**
+     * Forgets all timings so far (e.g. at the start of a new game).
+     */
+    public void reset() {
+        droppedFrames.set(0);
+        drawTimes.reset();
+        frameTimes.reset();
+        updateTimes.reset();
+    }
+}
@@ -5,15 +5,21 @@ import android.content.res.Resources;
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
 import android.graphics.Canvas;
+import android.graphics.Paint;
 import android.os.Bundle;
 import android.os.Handler;
 import android.os.Message;
-import android.util.Log;
 import android.view.MotionEvent;
 import android.view.SurfaceHolder;
 import android.view.View;
 
-import java.text.DecimalFormat;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public abstract class GameThread extends Thread {
 	//Different mMode states
@@ -23,10 +29,11 @@ public abstract class GameThread extends Thread {
 	static final int STATE_RUNNING = 4;
 
 	//Control variable for the mode of the game (e.g. STATE_WIN)
-	private int mMode = 1;
+	//Volatile, as it's read by the UI, simulation and render threads
+	private volatile int mMode = 1;
 
-	//Control of the actual running inside run()
-	private boolean mRun = false;
+	//Control of the actual running inside run() (and the simulation thread)
+	private volatile boolean mRun = false;
 		
 	//The surface this thread (and only this thread) writes upon
 	private SurfaceHolder mSurfaceHolder;
@@ -40,30 +47,88 @@ public abstract class GameThread extends Thread {
 	//The view
 	private GameView mGameView;
 
-    private long frameCount = 0;
-    private long fpsCount = 0;
-
 	//We might want to extend this call - therefore protected
-	int mCanvasWidth = 1;
-	int mCanvasHeight = 1;
+	volatile int mCanvasWidth = 1;
+	volatile int mCanvasHeight = 1;
+
+	//The length of a simulation tick. The game is always updated in whole ticks, so it behaves the same at any frame rate
+	static final float TICK_SECONDS = Tick.SECONDS;
+	static final long TICK_NANOS = Tick.NANOS;
+
+	//The number of ticks run since the game started (touches are recorded and replayed against it)
+	private long mTick = 0;
 
-	//Last time we updated the game physics
+	//The most ticks run in one frame to catch up. Any further behind and the game slows down, rather than spending
+	//ever longer on physics and falling further behind
+	private static final int MAX_TICKS_PER_FRAME = 5;
+
+	//Last time we updated the game physics (mClock.nanoTime())
 	private long mLastTime = 0;
+
+	//Time which has passed but hasn't been simulated yet (always less than a tick after each frame)
+	private long mAccumulator = 0;
+
+	//Snapshots of the game, published by the simulation thread after each batch of ticks and drawn by this thread.
+	//Neither thread waits for the other: the simulation never stalls on drawing, and drawing never takes the monitor
+	private final SnapshotBuffer mSnapshots = new SnapshotBuffer();
+
+	//Whether a new game is being set up (only one can be at a time, as two could be building the same world)
+	private final AtomicBoolean mSettingUp = new AtomicBoolean();
+
+	//Touches waiting to be applied by the simulation thread at the start of its next tick
+	private final InputQueue mInput = new InputQueue();
+
+	//Where each game is recorded to (see InputRecorder), or null if games aren't recorded
+	private File mRecordFile;
+
+	//The recording of the current game, or null if it isn't being recorded
+	private InputRecorder mRecorder;
+
+	//The recording which is replayed instead of taking touches from the player (see InputReplay), or null
+	private volatile InputReplay mReplay;
+
+	//Where the session is snapshotted to when the game stops, so that it can be resumed (see SessionSnapshot)
+	private File mSessionFile;
+
+	//The latest snapshot taken in this process (null if there's nothing to resume), so that resuming a game which
+	//stopped while the app was running doesn't have to wait for the disk
+	private static volatile byte[] sLatestSession;
+
+	//Writes snapshots to disk, so that the UI thread never waits for it (in the order they were taken)
+	private static final ExecutorService sSessionWriter = Executors.newSingleThreadExecutor(new ThreadFactory() {
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "SessionWriter");
+			thread.setDaemon(true);
+			return thread;
+		}
+	});
  
+	//Where the game gets the time from (the system clock, unless something else is driving the game)
+	private final Clock mClock;
+
+	//Timings of every frame, draw and tick
+	private final FrameStats mFrameStats = new FrameStats();
+
+	//Whether to draw the frame timings over the game (on by default in debug builds)
+	private volatile boolean mShowFrameStats = BuildConfig.DEBUG;
+
+	//The paint the frame timings are drawn with
+	private final Paint mFrameStatsPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+
+	//The heads-up display (coordinates, score and health), drawn by this thread
+	private final Hud mHud;
+
 	private Bitmap mBackgroundImage;
 	
 	private long score = 0;
 
-    //Used for time keeping
-	private long now;
-	private float elapsed;
-
     //Used to ensure appropriate threading
     private static final Integer monitor = 1;
 	
 
-	GameThread(GameView gameView) {
+	GameThread(GameView gameView, Clock clock) {
 		mGameView = gameView;
+		mClock = clock;
 		
 		mSurfaceHolder = gameView.getHolder();
 		mHandler = gameView.getmHandler();
@@ -72,6 +137,10 @@ public abstract class GameThread extends Thread {
 		mBackgroundImage = BitmapFactory.decodeResource
 							(gameView.getContext().getResources(), 
 							R.drawable.background);
+
+		mHud = new Hud(gameView.getResources());
+		mFrameStatsPaint.setColor(0xffffffff);
+		mFrameStatsPaint.setTextSize(12 * gameView.getResources().getDisplayMetrics().density);
 	}
 	
 	/*
@@ -86,32 +155,92 @@ public abstract class GameThread extends Thread {
 		this.mSurfaceHolder = null;
 	}
 	
-	//Pre-begin a game
+	//Pre-begin a game: build the new game, then hand it to beginGame. Called on a background thread without the monitor,
+	//so it can take as long as it needs (but mustn't touch anything the current game uses until beginGame)
 	abstract public void setupBeginning(String seed);
 	
-	//Starting up the game
-	void doStart(String seed) {
+	//Starting up the game. The world is built on a background thread, so neither this (the UI) thread nor drawing waits
+	//for it - the ready screen shows how far it's got (see showSetupProgress)
+	void doStart(final String seed) {
+		if (!mSettingUp.compareAndSet(false, true)) return; //Already setting one up
+		new Thread("GameSetup") {
+			@Override
+			public void run() {
+				try {
+					setupBeginning(seed);
+				} finally {
+					mSettingUp.set(false);
+				}
+			}
+		}.start();
+	}
+
+	//End the current game before a new one is set up. The end is run with the monitor held, so the simulation never
+	//sees half a game (and the game stops running, as there's nothing left to run)
+	protected void endGame(Runnable stopGame) {
+		synchronized(monitor) {
+			if (mMode == STATE_RUNNING) {
+				setState(STATE_READY);
+			}
+			stopGame.run();
+		}
+	}
+
+	//Switch to the game built by setupBeginning. The switch is run with the monitor held, so the simulation never
+	//sees half of each game
+	protected void beginGame(Runnable switchGame) {
 		synchronized(monitor) {
-			setupBeginning(seed);
-			mLastTime = System.currentTimeMillis() + 100;
+			mTick = 0;
+			if (mReplay != null) {
+				mReplay.rewind();
+			}
+			switchGame.run();
+			mLastTime = mClock.nanoTime();
+			mAccumulator = 0;
 			setState(STATE_RUNNING);
 			setScore(0);
 		}
 	}
+
+	//Show how much of a new game's world is ready (called from any thread, without the monitor). Once the game is
+	//running the rest of the world carries on filling in, but the ready screen has gone
+	protected void showSetupProgress(int ready, int total) {
+		Handler handler = mHandler;
+		Context context = mContext;
+		if (mMode == STATE_RUNNING || handler == null || context == null) return;
+		Message msg = handler.obtainMessage();
+		Bundle b = new Bundle();
+		b.putString("text", context.getResources().getString(R.string.mode_generating, ready * 100 / total));
+		b.putInt("viz", View.VISIBLE);
+		msg.setData(b);
+		handler.sendMessage(msg);
+	}
 	
-	//The thread start
+	//The thread start - this thread draws, while the game itself is updated on a separate simulation thread
 	@Override
 	public void run() {
+		Thread simulation = new Thread("Simulation") {
+			@Override
+			public void run() {
+				simulate();
+			}
+		};
+		simulation.start();
 		Canvas canvasRun;
 		while (mRun) {
 			canvasRun = null;
 			try {
 				canvasRun = mSurfaceHolder.lockCanvas(null);
-				synchronized (monitor) {
-					if (mMode == STATE_RUNNING) {
-						updatePhysics();
-					}
-					doDraw(canvasRun);
+				long frameStart = mClock.nanoTime();
+				mFrameStats.frameStarted(frameStart);
+				RenderSnapshot snapshot = mSnapshots.acquire();
+				doDraw(canvasRun, snapshot);
+				if (snapshot != null && canvasRun != null) {
+					mHud.draw(canvasRun, mCanvasWidth, snapshot);
+				}
+				mFrameStats.recordDraw(mClock.nanoTime() - frameStart);
+				if (mShowFrameStats && canvasRun != null) {
+					mFrameStats.drawOverlay(canvasRun, 5, mCanvasHeight / 2, mFrameStatsPaint);
 				}
 			} 
 			finally {
@@ -121,6 +250,41 @@ public abstract class GameThread extends Thread {
 				}
 			}
 		}
+		simulation.interrupt();
+		try {
+			simulation.join();
+		} catch (InterruptedException e) {
+			GameLog.e("GameThread", "Interrupted waiting for the simulation to stop", e);
+		}
+		synchronized (monitor) {
+			saveGame();
+			snapshotSession();
+			stopRecording();
+		}
+	}
+
+	//The simulation thread: run whole ticks as they fall due, publishing a snapshot for drawing after each batch
+	private void simulate() {
+		while (mRun) {
+			long wait = TICK_NANOS;
+			synchronized (monitor) {
+				if (mMode == STATE_RUNNING) {
+					if (updatePhysics() > 0) {
+						mSnapshots.getBack().score = score;
+						fillSnapshot(mSnapshots.getBack());
+						mSnapshots.publish(mClock.nanoTime());
+					}
+					wait = TICK_NANOS - mAccumulator;
+				} else {
+					applyInput();
+				}
+			}
+			try {
+				Thread.sleep(wait / 1000000, (int) (wait % 1000000));
+			} catch (InterruptedException e) {
+				return;
+			}
+		}
 	}
 	
 	/*
@@ -137,21 +301,91 @@ public abstract class GameThread extends Thread {
 	}
 
 
-	protected void doDraw(Canvas canvas) {
+	//Called on the render thread, without the monitor - so should only draw what's in the snapshot (null if there
+	//isn't one yet)
+	protected void doDraw(Canvas canvas, RenderSnapshot snapshot) {
 		
 		if(canvas == null) return;
 
 		if(mBackgroundImage != null) canvas.drawBitmap(mBackgroundImage, 0, 0, null);
 	}
 	
-	private void updatePhysics() {
-		now = System.currentTimeMillis();
-		elapsed = (now - mLastTime) / 1000.0f;
-		updateGame(elapsed);
+	//Returns the number of ticks run
+	private int updatePhysics() {
+		long now = mClock.nanoTime();
+		mAccumulator += now - mLastTime;
 		mLastTime = now;
+		int ticks = 0;
+		while (mAccumulator >= TICK_NANOS && ticks < MAX_TICKS_PER_FRAME && mMode == STATE_RUNNING) {
+			applyInput();
+			if (mReplay != null) {
+				applyReplay();
+			}
+			long tickStart = mClock.nanoTime();
+			updateGame(TICK_SECONDS);
+			mFrameStats.recordUpdate(mClock.nanoTime() - tickStart);
+			mTick++;
+			mAccumulator -= TICK_NANOS;
+			ticks++;
+		}
+		if (mAccumulator >= TICK_NANOS) {
+			//Too far behind - drop the backlog rather than trying to catch up
+			mAccumulator %= TICK_NANOS;
+		}
+		return ticks;
+	}
+
+	//Apply any touches which have arrived since the last tick (the player's touches are ignored during a replay)
+	private void applyInput() {
+		while (!mInput.isEmpty()) {
+			if (mReplay != null) {
+				mInput.pop();
+				continue;
+			}
+			if (mInput.peekType() == InputQueue.TOUCH) {
+				actionOnTouch(mInput.peekX(), mInput.peekY());
+			} else {
+				actionOnRelease(mInput.peekX(), mInput.peekY());
+			}
+			mInput.pop();
+		}
+	}
+
+	//Apply the replayed touches which were recorded before this tick
+	private void applyReplay() {
+		while (mReplay.hasNext() && mReplay.peekTick() <= mTick) {
+			if (mReplay.peekType() == Controls.TOUCH) {
+				actionOnTouch(mReplay.peekX(), mReplay.peekY());
+			} else {
+				actionOnRelease(mReplay.peekX(), mReplay.peekY());
+			}
+			mReplay.pop();
+		}
+	}
+
+	//How far (0-1) drawing now is between the snapshot's previous tick and its latest one. Drawing runs up to a tick
+	//behind the simulation, so that it only ever interpolates between ticks which have already happened
+	float getInterpolation(RenderSnapshot snapshot) {
+		float interpolation = (mClock.nanoTime() - snapshot.publishedAt) / (float) TICK_NANOS;
+		return Math.max(0, Math.min(1, interpolation));
 	}
 	
+	//Called once per tick, so secondsElapsed is always TICK_SECONDS
 	abstract protected void updateGame(float secondsElapsed);
+
+	//Copy everything needed to draw the game into the snapshot (called on the simulation thread, with the monitor held)
+	abstract protected void fillSnapshot(RenderSnapshot snapshot);
+
+	//Take a snapshot of the whole game (see SessionSnapshot), or return null if there isn't one
+	//(called with the monitor held)
+	abstract protected byte[] captureSession();
+
+	//Carry on the game in a snapshot, instead of starting a new one (called with the monitor held)
+	abstract protected void restoreSession(SessionSnapshot snapshot) throws IOException;
+
+	//Save anything worth keeping (called with the monitor held, when pausing and when the thread stops)
+	protected void saveGame() {
+	}
 	
 	/*
 	 * Control functions
@@ -171,14 +405,11 @@ public abstract class GameThread extends Thread {
 			return true;
 		}
 
+		//Queued for the simulation thread, rather than waiting for the monitor
 		if(action == MotionEvent.ACTION_DOWN || action == MotionEvent.ACTION_MOVE) {
-			synchronized (monitor) {
-				this.actionOnTouch(e.getRawX(), e.getRawY());
-			}
+			mInput.push(InputQueue.TOUCH, e.getRawX(), e.getRawY());
 		} else if(action == MotionEvent.ACTION_UP) {
-			synchronized (monitor) {
-				this.actionOnRelease(e.getRawX(), e.getRawY());
-			}
+			mInput.push(InputQueue.RELEASE, e.getRawX(), e.getRawY());
 		}
 		 
 		return false;
@@ -186,20 +417,163 @@ public abstract class GameThread extends Thread {
 
 	protected abstract void actionOnRelease(float x, float y);
 	protected abstract void actionOnTouch(float x, float y);
+
+	/*
+	 * Suspending and resuming
+	 */
+
+	//Snapshot the game when it stops, to resume it from later
+	void setSessionFile(File file) { mSessionFile = file; }
+
+	//Snapshot the game (called with the monitor held, when pausing and when the thread stops). Only copying the game
+	//into memory happens here: it's written to disk on another thread
+	private void snapshotSession() {
+		if (mSessionFile == null || mReplay != null || mRecordFile != null) return; //Those have to start from the beginning
+		final File file = mSessionFile;
+		final byte[] session;
+		if (mMode == STATE_RUNNING || mMode == STATE_PAUSE) {
+			long start = mClock.nanoTime();
+			session = captureSession();
+			if (session != null) {
+				GameLog.d("Session", "Snapshot taken (bytes, us)", session.length, (mClock.nanoTime() - start) / 1000);
+			}
+		} else {
+			session = null; //The game is over (or hasn't started), so there's nothing to resume
+		}
+		sLatestSession = session;
+		sSessionWriter.execute(new Runnable() {
+			public void run() {
+				try {
+					if (session != null) {
+						SessionSnapshot.write(session, file);
+					} else if (file.exists() && !file.delete()) {
+						GameLog.e("GameThread", "Couldn't delete " + file);
+					}
+				} catch (IOException e) {
+					GameLog.e("GameThread", "Couldn't write the snapshot", e);
+				}
+			}
+		});
+	}
+
+	//Carry on from the latest snapshot (paused, until the player is ready), if there is one. Returns true if the game
+	//was resumed, or false if a new game should be started
+	boolean resumeSession() {
+		if (mSessionFile == null || mReplay != null || mRecordFile != null) return false;
+		long start = mClock.nanoTime();
+		try {
+			byte[] session = sLatestSession;
+			if (session == null) {
+				if (!mSessionFile.isFile()) return false;
+				session = SessionSnapshot.read(mSessionFile); //Only after the app was killed, and it's small
+			}
+			SessionSnapshot snapshot = new SessionSnapshot(session);
+			synchronized (monitor) {
+				restoreSession(snapshot);
+				mTick = snapshot.getTick();
+				setScore(snapshot.getScore());
+				mLastTime = mClock.nanoTime();
+				mAccumulator = 0;
+				setState(STATE_PAUSE);
+			}
+		} catch (IOException e) {
+			GameLog.e("GameThread", "Couldn't resume the last game", e);
+			return false;
+		}
+		GameLog.d("Session", "Resumed in us", (mClock.nanoTime() - start) / 1000);
+		return true;
+	}
+
+	/*
+	 * Recording and replaying
+	 */
+
+	//Record each game from now on (each new game replaces the last recording)
+	void setRecordFile(File file) {
+		synchronized (monitor) {
+			mRecordFile = file;
+		}
+	}
+
+	//Replay a recording (see InputReplay) in each game from now on, instead of taking touches from the player
+	void setReplay(InputReplay replay) {
+		synchronized (monitor) {
+			mReplay = replay;
+		}
+	}
+
+	InputReplay getReplay() { return mReplay; }
+	long getTick() { return mTick; }
+	boolean isRecording() { return mRecordFile != null; }
+
+	//Start recording a new game, if games are being recorded (called by setupBeginning, once the seed is known)
+	protected void startRecording(long seed, int viewWidth, int viewHeight, float blockSize) {
+		stopRecording();
+		if (mRecordFile == null) return;
+		FileOutputStream out = null;
+		try {
+			out = new FileOutputStream(mRecordFile);
+			mRecorder = new InputRecorder(out, seed, viewWidth, viewHeight, blockSize);
+		} catch (IOException e) {
+			GameLog.e("GameThread", "Couldn't start recording to " + mRecordFile, e);
+			if (out != null) {
+				try {
+					out.close();
+				} catch (IOException ignored) {
+					// already failed
+				}
+			}
+		}
+	}
+
+	//Record a touch (or release) which has just been applied to the game
+	protected void record(int type, float x, float y) {
+		if (mRecorder == null) return;
+		try {
+			mRecorder.record(mTick, type, x, y);
+		} catch (IOException e) {
+			GameLog.e("GameThread", "Couldn't record, so stopped recording", e);
+			stopRecording();
+		}
+	}
+
+	private void flushRecording() {
+		if (mRecorder == null) return;
+		try {
+			mRecorder.flush();
+		} catch (IOException e) {
+			GameLog.e("GameThread", "Couldn't write the recording", e);
+		}
+	}
+
+	private void stopRecording() {
+		if (mRecorder == null) return;
+		try {
+			mRecorder.close();
+		} catch (IOException e) {
+			GameLog.e("GameThread", "Couldn't finish the recording", e);
+		}
+		mRecorder = null;
+	}
 	
 	/*
 	 * Game states
 	 */
 	void pause() {
 		synchronized (monitor) {
-			if (mMode == STATE_RUNNING) setState(STATE_PAUSE);
+			if (mMode == STATE_RUNNING) {
+				setState(STATE_PAUSE);
+				saveGame();
+				snapshotSession();
+				flushRecording(); // the game may never be resumed
+			}
 		}
 	}
 	
 	void unpause() {
 		// Move the real time clock up to now
 		synchronized (monitor) {
-			mLastTime = System.currentTimeMillis();
+			mLastTime = mClock.nanoTime();
 		}
 		setState(STATE_RUNNING);
 	}	
@@ -255,6 +629,15 @@ public abstract class GameThread extends Thread {
 	/*
 	 * Getter and setter
 	 */	
+	//Timings of every frame, draw and tick (safe to read from any thread)
+	public FrameStats getFrameStats() {
+		return mFrameStats;
+	}
+
+	void setShowFrameStats(boolean show) {
+		mShowFrameStats = show;
+	}
+
 	public void setSurfaceHolder(SurfaceHolder h) {
 		mSurfaceHolder = h;
 	}
@@ -278,60 +661,16 @@ public abstract class GameThread extends Thread {
 	
 	/* ALL ABOUT SCORES */
 	
-	//Send a score to the View to view 
-	//Would it be better to do this inside this thread writing it manually on the screen?
+	//The score is drawn by the HUD, from the snapshot
 	private void setScore(long score) {
 		this.score = score;
-		synchronized (monitor) {
-			Message msg = mHandler.obtainMessage();
-			Bundle b = new Bundle();
-			b.putBoolean("score", true);
-			b.putString("text", getScoreString().toString());
-			msg.setData(b);
-			mHandler.sendMessage(msg);
-		}
 	}
 
-	public float getScore() { return score; }
+	public long getScore() { return score; }
 	
 	void updateScore(long score) {
-		if (score != 0) {
-			this.setScore(this.score + score);
-		}
+		this.setScore(this.score + score);
 	}
-
-	private CharSequence getScoreString() {
-		return Long.toString(Math.round(this.score));
-	}
-
-	/* DISPLAY */
-	private void displayX(String x, String value) {
-        synchronized (monitor) {
-            Message msg = mHandler.obtainMessage();
-            Bundle b = new Bundle();
-            b.putBoolean(x, true);
-            b.putString("text", value);
-            msg.setData(b);
-            mHandler.sendMessage(msg);
-        }
-    }
-
-	void displayFps(double fps) {
-        frameCount++;
-        fpsCount += fps;
-        Log.v("FPS", Float.toString(fpsCount / (float) frameCount));
-        displayX("fps", Long.toString(Math.round(fps)));
-	}
-
-	void displayHealth(double health) {
-		displayX("health", Long.toString(Math.round(health)));
-	}
-
-    void displayCoords(float x, float y) {
-        String xVal = new DecimalFormat("0.00").format(x);
-        String yVal = new DecimalFormat("0.00").format(y);
-        displayX("coords", "(" + xVal + ", " + yVal + ")");
-    }
 }
 
 // This file is part of "OpenWorld"
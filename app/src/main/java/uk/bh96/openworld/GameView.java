@@ -10,6 +10,8 @@ import android.view.SurfaceView;
 import android.view.View;
 import android.widget.TextView;
 
+import java.io.File;
+
 public class GameView extends SurfaceView implements SurfaceHolder.Callback {
 	private volatile GameThread thread;
 
@@ -17,12 +19,13 @@ public class GameView extends SurfaceView implements SurfaceHolder.Callback {
 	private Handler mHandler;
 	
 	//Pointers to the views
-	private TextView mCoordsView;
-	private TextView mFpsView;
-    private TextView mScoreView;
-	private TextView mHealthView;
 	private TextView mStatusView;
 
+	//Where each game is recorded to, and the recording replayed instead of the player's touches (either may be null).
+	//Kept here, as the thread is replaced whenever the surface is recreated, and each thread needs them
+	private File mRecordFile;
+	private InputReplay mReplay;
+
 	public GameView(final Context context, AttributeSet attrs) {
 		super(context, attrs);
 
@@ -34,32 +37,22 @@ public class GameView extends SurfaceView implements SurfaceHolder.Callback {
 		mHandler = new Handler() {
 			@Override
 			public void handleMessage(Message m) {
-				if(m.getData().getBoolean("fps")) {
-					mFpsView.setText(context.getString(R.string.fps, m.getData().getString("text")));
-				} else if(m.getData().getBoolean("score")) {
-					mScoreView.setText(context.getString(R.string.score, m.getData().getString("text")));
-				} else if (m.getData().getBoolean("health")) {
-                    mHealthView.setText(context.getString(R.string.health, m.getData().getString("text")));
-				} else if (m.getData().getBoolean("coords")) {
-                    mCoordsView.setText(m.getData().getString("text"));
-                } else {
-					//So it is a status
-                    int i = m.getData().getInt("viz");
-                    switch(i) {
-                        case View.VISIBLE:
-                            mStatusView.setVisibility(View.VISIBLE);
-                            break;
-                        case View.INVISIBLE:
-                            mStatusView.setVisibility(View.INVISIBLE);
-                            break;
-                        case View.GONE:
-                            mStatusView.setVisibility(View.GONE);
-                            break;
-                    }
-
-                    mStatusView.setText(m.getData().getString("text"));
+				//The only messages are status changes (the HUD is drawn by the game thread)
+				int i = m.getData().getInt("viz");
+				switch(i) {
+					case View.VISIBLE:
+						mStatusView.setVisibility(View.VISIBLE);
+						break;
+					case View.INVISIBLE:
+						mStatusView.setVisibility(View.INVISIBLE);
+						break;
+					case View.GONE:
+						mStatusView.setVisibility(View.GONE);
+						break;
 				}
- 			}
+
+				mStatusView.setText(m.getData().getString("text"));
+			}
 		};
 	}
 	
@@ -92,11 +85,21 @@ public class GameView extends SurfaceView implements SurfaceHolder.Callback {
 		setFocusable(true);
 	}
 
-	public void setFpsView(TextView mFpsView) { this.mFpsView = mFpsView; }
-	public void setCoordsView(TextView mCoordsView) { this.mCoordsView = mCoordsView; }
-    public void setScoreView(TextView mScoreView) { this.mScoreView = mScoreView; }
-	public void setHealthView(TextView mHealthView) { this.mHealthView = mHealthView; }
 	public void setStatusView(TextView mStatusView) { this.mStatusView = mStatusView; }
+
+	//Record each game from now on (see GameThread.setRecordFile), including those of threads started later
+	public void setRecordFile(File file) {
+		mRecordFile = file;
+		if (thread != null) thread.setRecordFile(file);
+	}
+
+	//Replay a recording in each game from now on (see GameThread.setReplay), including those of threads started later
+	public void setReplay(InputReplay replay) {
+		mReplay = replay;
+		if (thread != null) thread.setReplay(replay);
+	}
+
+	public GameThread getThread() { return thread; }
 	public Handler getmHandler() { return mHandler; }
 	
 	/*
@@ -119,10 +122,12 @@ public class GameView extends SurfaceView implements SurfaceHolder.Callback {
 				//Just start the new thread
 				thread.start();
 			} else if(thread.getState() == Thread.State.TERMINATED){
-				//Start a new thread
-				//Should be this to update screen with old game: new GameThread(this, thread);
-				//The method should set all fields in new thread to the value of old thread's fields
+				//Start a new thread, carrying on the old thread's game from the snapshot it took when it stopped
+				thread.cleanup();
 				thread = new TheGame(this);
+				thread.setRecordFile(mRecordFile);
+				thread.setReplay(mReplay);
+				thread.resumeSession(); //(which doesn't, if games are recorded or replayed: they start from the beginning)
 				thread.setRunning(true);
 				thread.start();
 			}
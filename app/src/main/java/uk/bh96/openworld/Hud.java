@@ -0,0 +1,171 @@
+package uk.bh96.openworld;
+
+import android.content.res.Resources;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+
+/**
+ * The heads-up display (the player's coordinates, the score and the player's health), drawn straight onto the game
+ * surface by the render thread. Each piece of text lives in its own preallocated char array and is only reformatted
+ * when the value it shows changes, so drawing the HUD doesn't allocate or send anything to the UI thread.
+ */
+public class Hud {
+    /**
+     * The size of the text, in sp.
+     */
+    private static final float TEXT_SIZE = 24;
+    /**
+     * The gap between the text and the edge of the screen, in sp.
+     */
+    private static final float PADDING = 5;
+
+    /**
+     * The coordinates text.
+     */
+    private final char[] coords = new char[48];
+    /**
+     * The length of the coordinates text.
+     */
+    private int coordsLength = 0;
+    /**
+     * The health text.
+     */
+    private final char[] health = new char[48];
+    /**
+     * The length of the health text.
+     */
+    private int healthLength = 0;
+    /**
+     * The text before the health (e.g. "Health: "), taken from the string resource.
+     */
+    private final String healthPrefix;
+    /**
+     * The text after the health (e.g. "%"), taken from the string resource.
+     */
+    private final String healthSuffix;
+    /**
+     * Used to draw text against the left edge of the screen.
+     */
+    private final Paint leftPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    /**
+     * The distance between the baselines of two lines of text.
+     */
+    private final float lineHeight;
+    /**
+     * The gap between the text and the edge of the screen, in pixels.
+     */
+    private final float padding;
+    /**
+     * Used to draw text against the right edge of the screen.
+     */
+    private final Paint rightPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    /**
+     * The score text.
+     */
+    private final char[] score = new char[48];
+    /**
+     * The length of the score text.
+     */
+    private int scoreLength = 0;
+    /**
+     * The text before the score (e.g. "Score: "), taken from the string resource.
+     */
+    private final String scorePrefix;
+    /**
+     * The text after the score, taken from the string resource.
+     */
+    private final String scoreSuffix;
+    /**
+     * The health currently in the health text.
+     */
+    private int shownHealth = Integer.MIN_VALUE;
+    /**
+     * The score currently in the score text.
+     */
+    private long shownScore = Long.MIN_VALUE;
+    /**
+     * The x coordinate (in hundredths) currently in the coordinates text.
+     */
+    private long shownX = Long.MIN_VALUE;
+    /**
+     * The y coordinate (in hundredths) currently in the coordinates text.
+     */
+    private long shownY = Long.MIN_VALUE;
+
+    /**
+     * @param resources used to find the text labels and the size of the screen.
+     */
+    public Hud(Resources resources) {
+        float scaledDensity = resources.getDisplayMetrics().scaledDensity;
+        leftPaint.setColor(0xffffffff);
+        leftPaint.setTextSize(TEXT_SIZE * scaledDensity);
+        rightPaint.setColor(0xffffffff);
+        rightPaint.setTextSize(TEXT_SIZE * scaledDensity);
+        rightPaint.setTextAlign(Paint.Align.RIGHT);
+        lineHeight = leftPaint.descent() - leftPaint.ascent();
+        padding = PADDING * scaledDensity;
+        String scoreFormat = resources.getString(R.string.score);
+        scorePrefix = getPrefix(scoreFormat);
+        scoreSuffix = getSuffix(scoreFormat);
+        String healthFormat = resources.getString(R.string.health);
+        healthPrefix = getPrefix(healthFormat);
+        healthSuffix = getSuffix(healthFormat);
+    }
+
+    /**
+     * Draws the HUD, first reformatting any text whose value has changed.
+     * @param canvas the canvas to draw onto.
+     * @param width the width of the screen, in pixels.
+     * @param snapshot the snapshot to take the values from.
+     */
+    public void draw(Canvas canvas, int width, RenderSnapshot snapshot) {
+        long x = Math.round(snapshot.cameraX * 100);
+        long y = Math.round(snapshot.cameraY * 100);
+        if (x != shownX || y != shownY) {
+            int position = 0;
+            coords[position++] = '(';
+            position = TextFormat.appendFixed(coords, position, x, 2);
+            coords[position++] = ',';
+            coords[position++] = ' ';
+            position = TextFormat.appendFixed(coords, position, y, 2);
+            coords[position++] = ')';
+            coordsLength = position;
+            shownX = x;
+            shownY = y;
+        }
+        if (snapshot.score != shownScore) {
+            int position = TextFormat.appendText(score, 0, scorePrefix);
+            position = TextFormat.appendLong(score, position, snapshot.score);
+            scoreLength = TextFormat.appendText(score, position, scoreSuffix);
+            shownScore = snapshot.score;
+        }
+        if (snapshot.health != shownHealth) {
+            int position = TextFormat.appendText(health, 0, healthPrefix);
+            position = TextFormat.appendLong(health, position, snapshot.health);
+            healthLength = TextFormat.appendText(health, position, healthSuffix);
+            shownHealth = snapshot.health;
+        }
+        float firstBaseline = padding - leftPaint.ascent();
+        canvas.drawText(coords, 0, coordsLength, padding, firstBaseline, leftPaint);
+        canvas.drawText(score, 0, scoreLength, width - padding, firstBaseline, rightPaint);
+        canvas.drawText(health, 0, healthLength, width - padding, firstBaseline + lineHeight, rightPaint);
+    }
+
+    /**
+     * @param format a string resource with a single argument (e.g. "Score: %1$s").
+     * @return the text before the argument.
+     */
+    private static String getPrefix(String format) {
+        int argument = format.indexOf("%1$s");
+        return (argument < 0 ? format : format.substring(0, argument)).replace("%%", "%");
+    }
+
+    /**
+     * @param format a string resource with a single argument (e.g. "Health: %1$s%%").
+     * @return the text after the argument.
+     */
+    private static String getSuffix(String format) {
+        int argument = format.indexOf("%1$s");
+        return argument < 0 ? "" : format.substring(argument + 4).replace("%%", "%");
+    }
+}
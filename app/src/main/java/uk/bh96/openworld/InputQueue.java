@@ -0,0 +1,84 @@
+package uk.bh96.openworld;
+
+/**
+ * A lock-free, fixed size queue of touch events, passing them from the UI thread (the only producer) to the simulation
+ * thread (the only consumer). Touches are applied at the start of the next tick, so the UI thread never waits for the
+ * simulation. If the queue is full (the simulation has stalled), new events are dropped.
+ */
+public class InputQueue {
+    /**
+     * A finger touching (or moving on) the screen.
+     */
+    public static final int TOUCH = Controls.TOUCH;
+    /**
+     * A finger leaving the screen.
+     */
+    public static final int RELEASE = Controls.RELEASE;
+    /**
+     * The number of events the queue can hold. Must be a power of two.
+     */
+    private static final int CAPACITY = 64;
+
+    /**
+     * The index of the next event to be taken (only written by the consumer).
+     */
+    private volatile int head = 0;
+    /**
+     * The index the next event will be put at (only written by the producer).
+     */
+    private volatile int tail = 0;
+    /**
+     * The type of each event (TOUCH or RELEASE).
+     */
+    private final int[] types = new int[CAPACITY];
+    /**
+     * The x coordinate of each event.
+     */
+    private final float[] xs = new float[CAPACITY];
+    /**
+     * The y coordinate of each event.
+     */
+    private final float[] ys = new float[CAPACITY];
+
+    /**
+     * @return true if there are no events waiting.
+     */
+    public boolean isEmpty() { return head == tail; }
+
+    /**
+     * Called by the consumer, after peekType/peekX/peekY, to move on to the next event.
+     */
+    public void pop() { head = head + 1; }
+
+    /**
+     * @return the type of the next event (TOUCH or RELEASE). Only valid if the queue isn't empty.
+     */
+    public int peekType() { return types[head & (CAPACITY - 1)]; }
+    /**
+     * @return the x coordinate of the next event. Only valid if the queue isn't empty.
+     */
+    public float peekX() { return xs[head & (CAPACITY - 1)]; }
+    /**
+     * @return the y coordinate of the next event. Only valid if the queue isn't empty.
+     */
+    public float peekY() { return ys[head & (CAPACITY - 1)]; }
+
+    /**
+     * Called by the producer.
+     * @param type the type of the event (TOUCH or RELEASE).
+     * @param x the x coordinate of the event.
+     * @param y the y coordinate of the event.
+     * @return true if the event was queued, false if the queue was full.
+     */
+    public boolean push(int type, float x, float y) {
+        int t = tail;
+        if (t - head == CAPACITY) {
+            return false;
+        }
+        types[t & (CAPACITY - 1)] = type;
+        xs[t & (CAPACITY - 1)] = x;
+        ys[t & (CAPACITY - 1)] = y;
+        tail = t + 1; // publishes the event (volatile write)
+        return true;
+    }
+}
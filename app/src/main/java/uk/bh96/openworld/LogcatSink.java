@@ -0,0 +1,18 @@
+package uk.bh96.openworld;
+
+import android.util.Log;
+
+/**
+ * Sends the simulation's log messages (see GameLog) to logcat.
+ */
+public class LogcatSink implements GameLog.Sink {
+    public void debug(String tag, String message) { Log.d(tag, message); }
+
+    public void error(String tag, String message, Throwable throwable) {
+        if (throwable == null) {
+            Log.e(tag, message);
+        } else {
+            Log.e(tag, message, throwable);
+        }
+    }
+}
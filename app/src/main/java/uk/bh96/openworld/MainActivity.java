@@ -11,12 +11,22 @@ import android.widget.Button;
 import android.widget.EditText;
 import android.widget.TextView;
 
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
 public class MainActivity extends Activity {
 
     private static final int MENU_RESUME = 1;
     private static final int MENU_START = 2;
     private static final int MENU_STOP = 3;
 
+    /** The intent extra naming a file to record each game to (see InputRecorder). */
+    static final String EXTRA_RECORD = "uk.bh96.openworld.RECORD";
+    /** The intent extra naming a recording to replay instead of taking touches (see InputReplay). */
+    static final String EXTRA_REPLAY = "uk.bh96.openworld.REPLAY";
+
     private GameThread mGameThread;
     private GameView mGameView;
 
@@ -24,26 +34,68 @@ public class MainActivity extends Activity {
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        // the simulation doesn't know about Android, so tell it where its sprites and log messages go. Debug messages
+        // are only sent in debug builds (this has to be decided before GameLog is first used)
+        if (BuildConfig.DEBUG) {
+            System.setProperty(GameLog.DEBUG_PROPERTY, "true");
+        }
+        Sprite.setResolver(new DrawableSprites());
+        GameLog.setSink(new LogcatSink());
+        GameLog.installCrashHandler(); // so that a crash report includes what led up to it
         requestWindowFeature(Window.FEATURE_NO_TITLE);
         getWindow().addFlags(WindowManager.LayoutParams.FLAG_KEEP_SCREEN_ON);
         setContentView(R.layout.activity_main);
         mGameView = (GameView)findViewById(R.id.gamearea);
-        mGameView.setFpsView((TextView)findViewById(R.id.fps));
-        mGameView.setCoordsView((TextView)findViewById(R.id.coords));
-        mGameView.setScoreView((TextView)findViewById(R.id.score));
-        mGameView.setHealthView((TextView)findViewById(R.id.health));
         mGameView.setStatusView((TextView)findViewById(R.id.text));
         this.startGame(mGameView, null, savedInstanceState);
+        // for soak tests and comparing builds, e.g.
+        // adb shell am start -n uk.bh96.openworld/.MainActivity --es uk.bh96.openworld.REPLAY /sdcard/game.owir
+        String record = getIntent().getStringExtra(EXTRA_RECORD);
+        if (record != null) {
+            mGameView.setRecordFile(new File(record)); // (the view passes these on to every thread it starts)
+        }
+        String replay = getIntent().getStringExtra(EXTRA_REPLAY);
+        if (replay != null) {
+            mGameView.setReplay(readReplay(replay));
+        }
 
         final Button button = (Button) findViewById(R.id.home_play);
         final EditText seed = (EditText) findViewById(R.id.home_seed);
         button.setOnClickListener(new View.OnClickListener() {
             public void onClick(View v) {
-                mGameThread.doStart(seed.getText().toString());
+                mGameView.getThread().doStart(seed.getText().toString());
                 button.setVisibility(View.INVISIBLE);
                 seed.setVisibility(View.INVISIBLE);
             }
         });
+        if (mGameThread.resumeSession()) {
+            // carry on the last game (paused until the screen is touched), rather than starting a new one
+            button.setVisibility(View.INVISIBLE);
+            seed.setVisibility(View.INVISIBLE);
+        }
+    }
+
+    /**
+     * @param path the path of a recording.
+     * @return the recording, or null if it can't be read.
+     */
+    private static InputReplay readReplay(String path) {
+        InputStream in = null;
+        try {
+            in = new FileInputStream(path);
+            return new InputReplay(in);
+        } catch (IOException e) {
+            GameLog.e("MainActivity", "Couldn't read the recording " + path, e);
+            return null;
+        } finally {
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException ignored) {
+                    // it's been read
+                }
+            }
+        }
     }
 
     private void startGame(GameView gView, GameThread gThread, Bundle savedInstanceState) {
@@ -60,9 +112,7 @@ public class MainActivity extends Activity {
     @Override
     protected void onPause() {
         super.onPause();
-        if(mGameThread.getMode() == GameThread.STATE_RUNNING) {
-            mGameThread.setState(GameThread.STATE_PAUSE);
-        }
+        mGameView.getThread().pause(); // pauses (and saves) the game, if it's running - the view may have replaced the thread
     }
 
 
@@ -89,4 +139,4 @@ public class MainActivity extends Activity {
 //
 //
 // You should have received a copy of the GNU General Public License
-// along with it.  If not, see <http://www.gnu.org/licenses/>.
\ No newline at end of file
+// along with it.  If not, see <http://www.gnu.org/licenses/>.
\ No newline at end of file
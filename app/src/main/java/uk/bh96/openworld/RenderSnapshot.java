@@ -0,0 +1,170 @@
+package uk.bh96.openworld;
+
+import java.util.Arrays;
+
+import uk.bh96.openworld.blocks.Block;
+
+/**
+ * Everything needed to draw one tick of the game: the camera, a window of tile sprites around it, and the position and
+ * sprite of every entity. Snapshots are filled in by the simulation thread and handed to the render thread (see
+ * SnapshotBuffer), so drawing never has to look at (or lock) the world itself. Snapshots are reused, and their arrays
+ * only grow, so filling one doesn't allocate once the game is under way.
+ */
+public class RenderSnapshot {
+    /**
+     * When the snapshot was published (see Clock).
+     */
+    long publishedAt;
+    /**
+     * The x coordinate the camera is centred on, after the tick.
+     */
+    float cameraX;
+    /**
+     * The y coordinate the camera is centred on, after the tick.
+     */
+    float cameraY;
+    /**
+     * The number of entities in the snapshot.
+     */
+    int entityCount;
+    /**
+     * For each entity, the height of its sprite (in dp).
+     */
+    int[] entityHeight = new int[0];
+    /**
+     * For each entity, the x coordinate of the entity before the tick.
+     */
+    float[] entityPreviousX = new float[0];
+    /**
+     * For each entity, the y coordinate of the entity before the tick.
+     */
+    float[] entityPreviousY = new float[0];
+    /**
+     * For each entity, its sprite.
+     */
+    int[] entitySprite = new int[0];
+    /**
+     * For each entity, the width of its sprite (in dp).
+     */
+    int[] entityWidth = new int[0];
+    /**
+     * For each entity, the x coordinate of the entity after the tick.
+     */
+    float[] entityX = new float[0];
+    /**
+     * For each entity, the y coordinate of the entity after the tick.
+     */
+    float[] entityY = new float[0];
+    /**
+     * The player's health, rounded (and no less than 0).
+     */
+    int health;
+    /**
+     * The height of the player's sprite (in dp).
+     */
+    int playerHeight;
+    /**
+     * The x coordinate the camera was centred on, before the tick.
+     */
+    float previousCameraX;
+    /**
+     * The y coordinate the camera was centred on, before the tick.
+     */
+    float previousCameraY;
+    /**
+     * The player's sprite.
+     */
+    int playerSprite;
+    /**
+     * The width of the player's sprite (in dp).
+     */
+    int playerWidth;
+    /**
+     * The score.
+     */
+    long score;
+    /**
+     * The number of columns in the tile window.
+     */
+    int tileColumns;
+    /**
+     * The x coordinate of the left-most column of the tile window.
+     */
+    int tileMinX;
+    /**
+     * The y coordinate of the bottom row of the tile window.
+     */
+    int tileMinY;
+    /**
+     * The number of rows in the tile window.
+     */
+    int tileRows;
+    /**
+     * The sprite of each tile in the window (0 for air), stored column by column.
+     */
+    int[] tileSprites = new int[0];
+
+    /**
+     * Copies every mob into the snapshot, as its entities.
+     * @param mobs the mobs to copy.
+     */
+    void setEntities(MobStore mobs) {
+        entityCount = mobs.size();
+        if (entityCount > entityX.length) {
+            int capacity = Math.max(16, entityCount * 2);
+            entityHeight = Arrays.copyOf(entityHeight, capacity);
+            entityPreviousX = Arrays.copyOf(entityPreviousX, capacity);
+            entityPreviousY = Arrays.copyOf(entityPreviousY, capacity);
+            entitySprite = Arrays.copyOf(entitySprite, capacity);
+            entityWidth = Arrays.copyOf(entityWidth, capacity);
+            entityX = Arrays.copyOf(entityX, capacity);
+            entityY = Arrays.copyOf(entityY, capacity);
+        }
+        // the mobs are already stored as arrays, so positions can be copied wholesale
+        mobs.copyPositions(entityX, entityY, entityPreviousX, entityPreviousY);
+        for (int i = 0; i < entityCount; i++) {
+            entitySprite[i] = mobs.getBitmap(i);
+            entityWidth[i] = mobs.getType(i).getWidth();
+            entityHeight[i] = mobs.getType(i).getHeight();
+        }
+    }
+
+    /**
+     * @param x the x coordinate of a tile.
+     * @param y the y coordinate of a tile.
+     * @return the sprite of the tile (0 for air, or if it is outside the window).
+     */
+    int getTileSprite(int x, int y) {
+        int column = x - tileMinX;
+        int row = y - tileMinY;
+        if (column < 0 || column >= tileColumns || row < 0 || row >= tileRows) {
+            return 0;
+        }
+        return tileSprites[column * tileRows + row];
+    }
+
+    /**
+     * Fills the tile window from the world.
+     * @param world the world to take the tiles from.
+     * @param minX the x coordinate of the left-most column of the window.
+     * @param maxX the x coordinate of the right-most column of the window.
+     * @param minY the y coordinate of the bottom row of the window.
+     * @param maxY the y coordinate of the top row of the window.
+     */
+    void setTiles(World world, int minX, int maxX, int minY, int maxY) {
+        tileMinX = minX;
+        tileMinY = minY;
+        tileColumns = Math.max(0, maxX - minX + 1);
+        tileRows = Math.max(0, maxY - minY + 1);
+        if (tileSprites.length < tileColumns * tileRows) {
+            tileSprites = new int[tileColumns * tileRows];
+        }
+        int i = 0;
+        for (int x = minX; x <= maxX; x++) {
+            for (int y = minY; y <= maxY; y++) {
+                Block block = world.getBlock(x, y);
+                tileSprites[i++] = block == null ? 0 : block.getBitmap(world.getDestructionStage(x, y));
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package uk.bh96.openworld;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A lock-free triple buffer of render snapshots, passing them from the simulation thread (the only writer) to the
+ * render thread (the only reader). The writer always has a snapshot of its own to fill, the reader always has one of
+ * its own to draw, and the third holds the most recently published snapshot - so neither thread ever waits for the
+ * other, and the reader always gets the latest complete tick.
+ */
+public class SnapshotBuffer {
+    /**
+     * Set (alongside the index of the middle snapshot) when the middle snapshot hasn't been taken by the reader yet.
+     */
+    private static final int FRESH = 4;
+    /**
+     * Masks the index out of the middle state.
+     */
+    private static final int INDEX = 3;
+
+    /**
+     * The index of the snapshot the writer is filling.
+     */
+    private int back = 0;
+    /**
+     * The index of the snapshot the reader is drawing.
+     */
+    private int front = 1;
+    /**
+     * The index of the most recently published snapshot, plus the FRESH flag.
+     */
+    private final AtomicInteger middle = new AtomicInteger(2);
+    /**
+     * Whether anything has been published yet.
+     */
+    private volatile boolean published = false;
+    /**
+     * The three snapshots.
+     */
+    private final RenderSnapshot[] snapshots = new RenderSnapshot[]{
+            new RenderSnapshot(), new RenderSnapshot(), new RenderSnapshot()
+    };
+
+    /**
+     * Called by the reader.
+     * @return the most recently published snapshot (which the reader can keep using until it calls this again), or
+     * null if nothing has been published yet.
+     */
+    public RenderSnapshot acquire() {
+        if ((middle.get() & FRESH) != 0) {
+            front = middle.getAndSet(front) & INDEX;
+        }
+        return published ? snapshots[front] : null;
+    }
+
+    /**
+     * Called by the writer.
+     * @return the snapshot to fill in before calling publish().
+     */
+    public RenderSnapshot getBack() { return snapshots[back]; }
+
+    /**
+     * Called by the writer, once the back snapshot has been filled in.
+     * @param now the time that the snapshot is published (see Clock).
+     */
+    public void publish(long now) {
+        snapshots[back].publishedAt = now;
+        back = middle.getAndSet(back | FRESH) & INDEX;
+        published = true;
+    }
+}
@@ -0,0 +1,205 @@
+package uk.bh96.openworld;
+
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.PorterDuff;
+import android.graphics.PorterDuffXfermode;
+import android.graphics.Rect;
+import android.graphics.RectF;
+
+/**
+ * Holds decoded sprites packed into a single atlas bitmap, so that drawing a sprite never has to decode a resource.
+ * The atlas is split into equal sized slots (one per sprite), and is limited by a memory budget. If there are more
+ * sprites than slots, the least recently used sprite is evicted to make room for the one being drawn.
+ */
+public class SpriteAtlas {
+    /**
+     * The default memory budget for the atlas, in bytes.
+     */
+    public static final int DEFAULT_BUDGET = 4 * 1024 * 1024;
+    /**
+     * The number of bytes used by each pixel of the atlas (ARGB_8888).
+     */
+    private static final int BYTES_PER_PIXEL = 4;
+
+    /**
+     * The bitmap which all of the sprites are packed into.
+     */
+    private Bitmap atlas;
+    /**
+     * Used to draw newly decoded sprites into the atlas.
+     */
+    private final Canvas atlasCanvas;
+    /**
+     * Used to clear a slot before a new sprite is drawn into it.
+     */
+    private final Paint clearPaint = new Paint();
+    /**
+     * The number of slots in each row of the atlas.
+     */
+    private final int columns;
+    /**
+     * The destination rectangle, reused for every draw.
+     */
+    private final RectF dst = new RectF();
+    /**
+     * The resources that sprites are decoded from.
+     */
+    private final Resources resources;
+    /**
+     * The height of each slot, in pixels.
+     */
+    private final int slotHeight;
+    /**
+     * For each slot, the resource id of the sprite held in it (or 0 if the slot is empty).
+     */
+    private final int[] slotResId;
+    /**
+     * For each slot, the height of the sprite held in it.
+     */
+    private final int[] slotSpriteHeight;
+    /**
+     * For each slot, the width of the sprite held in it.
+     */
+    private final int[] slotSpriteWidth;
+    /**
+     * For each slot, when the sprite held in it was last used (as a value of useCounter).
+     */
+    private final long[] slotLastUsed;
+    /**
+     * The width of each slot, in pixels.
+     */
+    private final int slotWidth;
+    /**
+     * The source rectangle, reused for every draw.
+     */
+    private final Rect src = new Rect();
+    /**
+     * Incremented every time a sprite is drawn, used to find the least recently used slot.
+     */
+    private long useCounter = 0;
+
+    /**
+     * Decodes every sprite once (at the density of the given resources), and packs as many as the budget allows into
+     * the atlas.
+     * @param resources the resources to decode the sprites from.
+     * @param resIds the resource ids of every sprite which will be drawn.
+     * @param budget the maximum size of the atlas, in bytes.
+     */
+    public SpriteAtlas(Resources resources, int[] resIds, int budget) {
+        this.resources = resources;
+        clearPaint.setXfermode(new PorterDuffXfermode(PorterDuff.Mode.CLEAR));
+
+        // decode everything once, so that we know how big a slot needs to be
+        Bitmap[] decoded = new Bitmap[resIds.length];
+        int maxWidth = 1;
+        int maxHeight = 1;
+        for (int i = 0; i < resIds.length; i++) {
+            decoded[i] = BitmapFactory.decodeResource(resources, resIds[i]);
+            maxWidth = Math.max(maxWidth, decoded[i].getWidth());
+            maxHeight = Math.max(maxHeight, decoded[i].getHeight());
+        }
+        slotWidth = maxWidth;
+        slotHeight = maxHeight;
+
+        int slots = Math.max(1, Math.min(resIds.length, budget / (slotWidth * slotHeight * BYTES_PER_PIXEL)));
+        columns = (int) Math.ceil(Math.sqrt(slots));
+        int rows = (int) Math.ceil(slots / (float) columns);
+        slotResId = new int[slots];
+        slotSpriteWidth = new int[slots];
+        slotSpriteHeight = new int[slots];
+        slotLastUsed = new long[slots];
+
+        atlas = Bitmap.createBitmap(columns * slotWidth, rows * slotHeight, Bitmap.Config.ARGB_8888);
+        atlasCanvas = new Canvas(atlas);
+        for (int i = 0; i < decoded.length; i++) {
+            if (i < slots) {
+                store(i, resIds[i], decoded[i]);
+            }
+            decoded[i].recycle();
+        }
+    }
+
+    /**
+     * Draws a sprite onto a canvas, decoding it only if it isn't already in the atlas.
+     * @param canvas the canvas to draw onto.
+     * @param resId the resource id of the sprite.
+     * @param left the position of the left edge of the sprite on the canvas.
+     * @param top the position of the top edge of the sprite on the canvas.
+     */
+    public void draw(Canvas canvas, int resId, float left, float top) {
+        int slot = findSlot(resId);
+        if (slot < 0) {
+            slot = leastRecentlyUsedSlot();
+            Bitmap bitmap = BitmapFactory.decodeResource(resources, resId);
+            store(slot, resId, bitmap);
+            bitmap.recycle();
+        }
+        slotLastUsed[slot] = ++useCounter;
+        int slotLeft = (slot % columns) * slotWidth;
+        int slotTop = (slot / columns) * slotHeight;
+        src.set(slotLeft, slotTop, slotLeft + slotSpriteWidth[slot], slotTop + slotSpriteHeight[slot]);
+        dst.set(left, top, left + slotSpriteWidth[slot], top + slotSpriteHeight[slot]);
+        canvas.drawBitmap(atlas, src, dst, null);
+    }
+
+    /**
+     * @param resId the resource id of a sprite.
+     * @return the slot holding the sprite, or -1 if it isn't in the atlas. There are only ever a few dozen slots, so a
+     * linear scan is cheaper than hashing.
+     */
+    private int findSlot(int resId) {
+        for (int i = 0; i < slotResId.length; i++) {
+            if (slotResId[i] == resId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the slot which was used the longest time ago.
+     */
+    private int leastRecentlyUsedSlot() {
+        int lru = 0;
+        for (int i = 1; i < slotLastUsed.length; i++) {
+            if (slotLastUsed[i] < slotLastUsed[lru]) {
+                lru = i;
+            }
+        }
+        return lru;
+    }
+
+    /**
+     * Frees the atlas bitmap. The atlas can't be used after this has been called.
+     */
+    public void recycle() {
+        if (atlas != null) {
+            atlas.recycle();
+            atlas = null;
+        }
+    }
+
+    /**
+     * Copies a decoded sprite into a slot of the atlas, replacing whatever was there before.
+     * @param slot the slot to copy the sprite into.
+     * @param resId the resource id of the sprite.
+     * @param bitmap the decoded sprite.
+     */
+    private void store(int slot, int resId, Bitmap bitmap) {
+        int slotLeft = (slot % columns) * slotWidth;
+        int slotTop = (slot / columns) * slotHeight;
+        atlasCanvas.save();
+        atlasCanvas.clipRect(slotLeft, slotTop, slotLeft + slotWidth, slotTop + slotHeight);
+        atlasCanvas.drawRect(slotLeft, slotTop, slotLeft + slotWidth, slotTop + slotHeight, clearPaint);
+        atlasCanvas.drawBitmap(bitmap, slotLeft, slotTop, null);
+        atlasCanvas.restore();
+        slotResId[slot] = resId;
+        slotSpriteWidth[slot] = Math.min(bitmap.getWidth(), slotWidth);
+        slotSpriteHeight[slot] = Math.min(bitmap.getHeight(), slotHeight);
+        slotLastUsed[slot] = useCounter;
+    }
+}
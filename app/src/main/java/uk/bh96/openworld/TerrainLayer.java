@@ -0,0 +1,214 @@
+package uk.bh96.openworld;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.PorterDuff;
+import android.graphics.PorterDuffXfermode;
+import android.graphics.Rect;
+import android.graphics.RectF;
+
+import java.util.Arrays;
+
+/**
+ * An off-screen cache of the terrain around the camera. The layer is a grid of tile slots, slightly larger than the
+ * screen, which wraps around in both directions: tile (x, y) always lives in slot (x mod columns, -y mod rows). When
+ * the camera moves, tiles scrolling onto the screen simply overwrite the slots of tiles which scrolled off, so nothing
+ * already drawn has to move. Each slot remembers which tile (and sprite) it holds, so only tiles which are new or have
+ * changed (e.g. by being destroyed) are redrawn, and the terrain reaches the screen in at most four blits.
+ */
+public class TerrainLayer {
+    /**
+     * Used to clear a slot before a tile is redrawn into it.
+     */
+    private final Paint clearPaint = new Paint();
+    /**
+     * The number of slot columns in the layer.
+     */
+    private int columns;
+    /**
+     * The destination rectangle, reused for every blit.
+     */
+    private final RectF dst = new RectF();
+    /**
+     * The height of the screen which the layer was created for.
+     */
+    private int height;
+    /**
+     * The layer itself.
+     */
+    private Bitmap layer;
+    /**
+     * Used to draw tiles into the layer.
+     */
+    private final Canvas layerCanvas = new Canvas();
+    /**
+     * The number of slot rows in the layer.
+     */
+    private int rows;
+    /**
+     * For each slot, the sprite drawn in it (0 for air).
+     */
+    private int[] slotSprite;
+    /**
+     * For each slot, the x coordinate of the tile drawn in it.
+     */
+    private int[] slotX;
+    /**
+     * For each slot, the y coordinate of the tile drawn in it.
+     */
+    private int[] slotY;
+    /**
+     * The source rectangle, reused for every blit.
+     */
+    private final Rect src = new Rect();
+    /**
+     * The sprites which tiles are drawn with.
+     */
+    private final SpriteAtlas sprites;
+    /**
+     * The size of a tile within the layer, in pixels.
+     */
+    private final int tileSize;
+    /**
+     * The width of the screen which the layer was created for.
+     */
+    private int width;
+
+    /**
+     * @param sprites the sprites which tiles are drawn with.
+     * @param tileSize the size of a tile on screen, in pixels.
+     */
+    public TerrainLayer(SpriteAtlas sprites, float tileSize) {
+        this.sprites = sprites;
+        this.tileSize = Math.max(1, Math.round(tileSize));
+        clearPaint.setXfermode(new PorterDuffXfermode(PorterDuff.Mode.CLEAR));
+    }
+
+    /**
+     * Draws the visible terrain onto the screen, first bringing any new or changed tiles in the layer up to date.
+     * @param canvas the canvas to draw onto.
+     * @param snapshot the snapshot to take the tiles from (tiles outside its window are drawn as air).
+     * @param minX the x coordinate of the left-most visible tile.
+     * @param maxX the x coordinate of the right-most visible tile.
+     * @param minY the y coordinate of the bottom visible tile.
+     * @param maxY the y coordinate of the top visible tile.
+     * @param left the position on screen of the left edge of tile minX.
+     * @param top the position on screen of the top edge of tile maxY.
+     * @param scale the size of a tile on screen, in pixels.
+     */
+    public void draw(Canvas canvas, RenderSnapshot snapshot, int minX, int maxX, int minY, int maxY, float left, float top, float scale) {
+        if (layer == null || maxX < minX || maxY < minY) {
+            return;
+        }
+        // never try to show more than the layer holds
+        maxX = Math.min(maxX, minX + columns - 1);
+        minY = Math.max(minY, maxY - rows + 1);
+
+        // bring the visible slots up to date
+        for (int x = minX; x <= maxX; x++) {
+            for (int y = minY; y <= maxY; y++) {
+                int slot = wrap(-y, rows) * columns + wrap(x, columns);
+                int sprite = snapshot.getTileSprite(x, y);
+                if (slotX[slot] != x || slotY[slot] != y || slotSprite[slot] != sprite) {
+                    float slotLeft = (slot % columns) * tileSize;
+                    float slotTop = (slot / columns) * tileSize;
+                    layerCanvas.drawRect(slotLeft, slotTop, slotLeft + tileSize, slotTop + tileSize, clearPaint);
+                    if (sprite != 0) {
+                        sprites.draw(layerCanvas, sprite, slotLeft, slotTop);
+                    }
+                    slotX[slot] = x;
+                    slotY[slot] = y;
+                    slotSprite[slot] = sprite;
+                }
+            }
+        }
+
+        // blit the visible slots onto the screen - split wherever they wrap around the edge of the layer
+        int firstColumn = wrap(minX, columns);
+        int firstRow = wrap(-maxY, rows);
+        int visibleColumns = maxX - minX + 1;
+        int visibleRows = maxY - minY + 1;
+        int leftColumns = Math.min(visibleColumns, columns - firstColumn);
+        int topRows = Math.min(visibleRows, rows - firstRow);
+        blit(canvas, firstColumn, firstRow, leftColumns, topRows, left, top, scale);
+        if (leftColumns < visibleColumns) {
+            blit(canvas, 0, firstRow, visibleColumns - leftColumns, topRows, left + leftColumns * scale, top, scale);
+        }
+        if (topRows < visibleRows) {
+            blit(canvas, firstColumn, 0, leftColumns, visibleRows - topRows, left, top + topRows * scale, scale);
+            if (leftColumns < visibleColumns) {
+                blit(canvas, 0, 0, visibleColumns - leftColumns, visibleRows - topRows, left + leftColumns * scale, top + topRows * scale, scale);
+            }
+        }
+    }
+
+    /**
+     * Copies a rectangle of slots from the layer onto the screen.
+     * @param canvas the canvas to draw onto.
+     * @param column the first slot column to copy.
+     * @param row the first slot row to copy.
+     * @param width the number of slot columns to copy.
+     * @param height the number of slot rows to copy.
+     * @param left the position on screen of the left edge of the rectangle.
+     * @param top the position on screen of the top edge of the rectangle.
+     * @param scale the size of a tile on screen, in pixels.
+     */
+    private void blit(Canvas canvas, int column, int row, int width, int height, float left, float top, float scale) {
+        src.set(column * tileSize, row * tileSize, (column + width) * tileSize, (row + height) * tileSize);
+        dst.set(left, top, left + width * scale, top + height * scale);
+        canvas.drawBitmap(layer, src, dst, null);
+    }
+
+    /**
+     * Forgets everything in the layer, so that every tile is redrawn (e.g. because the world has been replaced).
+     */
+    public void invalidate() {
+        if (slotX != null) {
+            Arrays.fill(slotX, Integer.MIN_VALUE);
+        }
+    }
+
+    /**
+     * Frees the layer bitmap.
+     */
+    public void recycle() {
+        if (layer != null) {
+            layer.recycle();
+            layer = null;
+        }
+    }
+
+    /**
+     * (Re)creates the layer to cover a screen of the given size (plus a tile either side). Does nothing if the layer
+     * already covers a screen of that size.
+     * @param width the width of the screen, in pixels.
+     * @param height the height of the screen, in pixels.
+     */
+    public void resize(int width, int height) {
+        if (layer != null && width == this.width && height == this.height) {
+            return;
+        }
+        recycle();
+        this.width = width;
+        this.height = height;
+        columns = (width + tileSize - 1) / tileSize + 2;
+        rows = (height + tileSize - 1) / tileSize + 3;
+        layer = Bitmap.createBitmap(columns * tileSize, rows * tileSize, Bitmap.Config.ARGB_8888);
+        layerCanvas.setBitmap(layer);
+        slotSprite = new int[columns * rows];
+        slotX = new int[columns * rows];
+        slotY = new int[columns * rows];
+        invalidate();
+    }
+
+    /**
+     * @param value the value to wrap.
+     * @param size the size to wrap at.
+     * @return the value modulo the size (always positive, unlike %).
+     */
+    private static int wrap(int value, int size) {
+        int wrapped = value % size;
+        return wrapped < 0 ? wrapped + size : wrapped;
+    }
+}
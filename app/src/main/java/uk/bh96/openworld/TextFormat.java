@@ -0,0 +1,79 @@
+package uk.bh96.openworld;
+
+/**
+ * Formats numbers straight into char arrays, for text which is drawn every frame (where String.format, DecimalFormat
+ * and string concatenation would all allocate).
+ */
+public final class TextFormat {
+    private TextFormat() {}
+
+    /**
+     * Writes a fixed point number (e.g. 1234 with 2 decimals is written as "12.34").
+     * @param buffer the array to write into.
+     * @param position where in the array to write.
+     * @param value the number, multiplied by 10^decimals.
+     * @param decimals the number of digits after the decimal point.
+     * @return the position after the number.
+     */
+    public static int appendFixed(char[] buffer, int position, long value, int decimals) {
+        if (value < 0) {
+            buffer[position++] = '-';
+            value = -value;
+        }
+        long scale = 1;
+        for (int i = 0; i < decimals; i++) {
+            scale *= 10;
+        }
+        position = appendLong(buffer, position, value / scale);
+        if (decimals > 0) {
+            buffer[position++] = '.';
+            long fraction = value % scale;
+            for (int i = position + decimals - 1; i >= position; i--) {
+                buffer[i] = (char) ('0' + fraction % 10);
+                fraction /= 10;
+            }
+            position += decimals;
+        }
+        return position;
+    }
+
+    /**
+     * Writes a whole number.
+     * @param buffer the array to write into.
+     * @param position where in the array to write.
+     * @param value the number.
+     * @return the position after the number.
+     */
+    public static int appendLong(char[] buffer, int position, long value) {
+        if (value < 0) {
+            buffer[position++] = '-';
+            if (value == Long.MIN_VALUE) { // can't be negated
+                buffer[position++] = '9';
+                value = -(value + 9000000000000000000L);
+            } else {
+                value = -value;
+            }
+        }
+        int digits = 1;
+        for (long rest = value / 10; rest > 0; rest /= 10) {
+            digits++;
+        }
+        for (int i = position + digits - 1; i >= position; i--) {
+            buffer[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        return position + digits;
+    }
+
+    /**
+     * Writes some text.
+     * @param buffer the array to write into.
+     * @param position where in the array to write.
+     * @param text the text.
+     * @return the position after the text.
+     */
+    public static int appendText(char[] buffer, int position, String text) {
+        text.getChars(0, text.length(), buffer, position);
+        return position + text.length();
+    }
+}
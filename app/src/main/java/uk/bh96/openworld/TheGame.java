@@ -2,191 +2,301 @@ package uk.bh96.openworld;
 
 //Other parts of the android libraries that we use
 
-import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 import android.graphics.Canvas;
-import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
 
 import uk.bh96.openworld.blocks.Block;
+import uk.bh96.openworld.blocks.Blocks;
 
-import uk.bh96.openworld.mobs.Mob;
+import uk.bh96.openworld.mobs.Mobs;
 
 public class TheGame extends GameThread {
     private float displayDensity;
+    /**
+     * The visible range of blocks, as {minX, maxX, minY, maxY}. Reused every frame to avoid allocating (only used by
+     * the render thread).
+     */
+    private final int[] minMaxXY = new int[4];
+    /**
+     * The range of blocks copied into each snapshot, as {minX, maxX, minY, maxY} (only used by the simulation thread).
+     */
+    private final int[] snapshotMinMaxXY = new int[4];
+    /**
+     * Turns touches into actions in the world (see Controls).
+     */
+    private Controls controls;
     private GameView gameView;
     private Player player;
+    private SpriteAtlas sprites;
+    private TerrainLayer terrain;
     private World world;
 
     //This is run before anything else, so we can prepare things here
     TheGame(GameView gameView) {
         //House keeping
-        super(gameView);
+        super(gameView, Clock.SYSTEM);
         this.gameView = gameView;
         this.displayDensity = gameView.getResources().getDisplayMetrics().density;
+        this.sprites = new SpriteAtlas(gameView.getResources(), getAllBitmaps(), SpriteAtlas.DEFAULT_BUDGET);
+        this.terrain = new TerrainLayer(sprites, Block.size * displayDensity);
+        setSessionFile(new File(gameView.getContext().getFilesDir(), "session.owss"));
     }
 
-    private int[] getMinMaxXY() {
-        int minXIndex = (int) Math.floor((player.getX() - ((mCanvasWidth / 2) / (Block.size * displayDensity))));
-        int maxXIndex = (int) Math.floor((player.getX() + ((mCanvasWidth / 2) / (Block.size * displayDensity))));
-        int minYIndex = (int) Math.floor((player.getY() - ((mCanvasHeight / 2) / (Block.size * displayDensity))));
-        int maxYIndex = (int) Math.ceil((player.getY() + ((mCanvasHeight / 2) / (Block.size * displayDensity))));
-        if (minXIndex < 0) {
-            minXIndex = 0;
-        }
-        if (maxXIndex > 1023) {
-            maxXIndex = 1023;
-        }
-        if (minYIndex < 0) {
-            minYIndex = 0;
-        }
-        if (maxYIndex > 255) {
-            maxYIndex = 255;
+    @Override
+    protected byte[] captureSession() {
+        return world == null ? null : SessionSnapshot.capture(world, getScore(), getTick());
+    }
+
+    /**
+     * @return every sprite that the game could draw (blocks, the player and mobs).
+     */
+    private static int[] getAllBitmaps() {
+        Blocks[] blocks = Blocks.values();
+        int[] playerBitmaps = Player.getBitmaps();
+        int[] zombieBitmaps = Mobs.ZOMBIE.getBitmaps();
+        int[] bitmaps = new int[blocks.length + 1 + playerBitmaps.length + zombieBitmaps.length];
+        int i = 0;
+        for (Blocks block : blocks) {
+            bitmaps[i++] = block.getBlock().getBitmapNormal();
         }
-        return new int[] {minXIndex, maxXIndex, minYIndex, maxYIndex};
+        bitmaps[i++] = Sprite.DESTROY.getId();
+        System.arraycopy(playerBitmaps, 0, bitmaps, i, playerBitmaps.length);
+        System.arraycopy(zombieBitmaps, 0, bitmaps, i + playerBitmaps.length, zombieBitmaps.length);
+        return bitmaps;
     }
 
-    //This is run before a new game (also after an old game)
     @Override
-    public void setupBeginning(String seed) {
-        // hash the string into a long: see http://stackoverflow.com/a/1660613
+    void cleanup() {
+        super.cleanup();
+        terrain.recycle();
+        sprites.recycle();
+        if (world != null) {
+            world.close();
+        }
+    }
+
+    /**
+     * Works out the range of blocks visible around the camera.
+     * @param cameraX the x coordinate the camera is centred on.
+     * @param cameraY the y coordinate the camera is centred on.
+     * @param margin the number of extra blocks to include on each side.
+     * @param minMaxXY where to put the range, as {minX, maxX, minY, maxY}.
+     */
+    private void updateMinMaxXY(float cameraX, float cameraY, int margin, int[] minMaxXY) {
+        Viewport.getVisibleRange(cameraX, cameraY, mCanvasWidth, mCanvasHeight, Block.size * displayDensity, margin, minMaxXY);
+    }
+
+    /**
+     * Hashes a seed typed in by the player into a long: see http://stackoverflow.com/a/1660613
+     * @param seed the seed.
+     * @return the seed for the world (based on the time, if the seed is blank).
+     */
+    private static long hashSeed(String seed) {
         long worldSeed = 1125899906842597L; // prime
-        Log.d("Seed", "Seed = \"" + seed + "\".");
+        if (GameLog.DEBUG) { // only build the message if it's going to be sent
+            GameLog.d("Seed", "Seed = \"" + seed + "\".");
+        }
         int len = seed.length();
         if (len > 0) {
-            Log.d("Seed", "Seed is NOT blank - hashing.");
+            GameLog.d("Seed", "Seed is NOT blank - hashing.");
             for (int i = 0; i < len; i++) {
                 worldSeed = 31*worldSeed + seed.charAt(i);
             }
-            Log.d("Seed", "Seed hash = \"" + worldSeed + "\".");
+            GameLog.d("Seed", "Seed hash =", worldSeed);
         } else {
-            Log.d("Seed", "Seed is blank, using currentTimeMillis().");
+            GameLog.d("Seed", "Seed is blank, using currentTimeMillis().");
             worldSeed = System.currentTimeMillis();
         }
-        float screenWidthInBlocks = mCanvasWidth / (Block.size * displayDensity);
-        float screenHeightInBlocks = mCanvasHeight / (Block.size * displayDensity);
-        world = new World(worldSeed, screenWidthInBlocks, screenHeightInBlocks);
-        player = new Player(world);
+        return worldSeed;
     }
 
+    //This is run before a new game (also after an old game)
     @Override
-    protected void doDraw(Canvas canvas) {
-        long startDrawTime = System.currentTimeMillis();
+    public void setupBeginning(String seed) {
+        // a world can only be open once: a new game with the same seed is the same world, and two Worlds sharing a save
+        // directory would overwrite each other's region files and journal. So the old world is closed (without the
+        // monitor, as closing it saves it) before the new one is built
+        final World[] oldWorld = new World[1];
+        endGame(new Runnable() {
+            public void run() {
+                oldWorld[0] = world;
+                world = null;
+                player = null;
+                controls = null;
+            }
+        });
+        if (oldWorld[0] != null) {
+            oldWorld[0].close();
+        }
+
+        InputReplay replay = getReplay();
+        final long worldSeed;
+        final float blockSize;
+        final int viewWidth, viewHeight;
+        File saveDirectory;
+        if (replay != null) {
+            // the game has to be set up exactly as it was when it was recorded (and mustn't change the saved world)
+            worldSeed = replay.getSeed();
+            blockSize = replay.getBlockSize();
+            viewWidth = replay.getViewWidth();
+            viewHeight = replay.getViewHeight();
+            saveDirectory = null;
+            GameLog.d("Replay", "Replaying touches, up to tick", replay.getLastTick());
+        } else {
+            worldSeed = hashSeed(seed);
+            blockSize = Block.size * displayDensity;
+            viewWidth = mCanvasWidth;
+            viewHeight = mCanvasHeight;
+            // a recording starts from a newly generated world, so a recorded game isn't saved either
+            saveDirectory = isRecording() ? null : getSaveDirectory(worldSeed);
+        }
+        // this is the slow part: the area around the player is generated before the game begins (the rest of the world
+        // fills in around it afterwards)
+        final World newWorld = new World(worldSeed, viewWidth / blockSize, viewHeight / blockSize, saveDirectory);
+        newWorld.prepare(Player.SPAWN_X, new World.Progress() {
+            public void chunkReady(int ready, int total) { showSetupProgress(ready, total); }
+        });
+        final Player newPlayer = new Player(newWorld);
+        final Controls newControls = new Controls(newWorld, newPlayer, blockSize);
+        beginGame(new Runnable() {
+            public void run() {
+                world = newWorld;
+                player = newPlayer;
+                controls = newControls;
+                startRecording(worldSeed, viewWidth, viewHeight, blockSize);
+            }
+        });
+    }
+
+    /**
+     * @param worldSeed the seed of a world.
+     * @return the directory the world is saved in.
+     */
+    private File getSaveDirectory(long worldSeed) {
+        return new File(gameView.getContext().getFilesDir(), "worlds" + File.separator + worldSeed);
+    }
 
+    //This is run instead of setupBeginning to carry on an old game, without generating the world again
+    @Override
+    protected void restoreSession(SessionSnapshot snapshot) throws IOException {
+        // as in setupBeginning, the old world has to be closed before the restored one opens the same save directory
+        if (world != null) {
+            world.close();
+            world = null;
+            player = null;
+            controls = null;
+        }
+        world = snapshot.restore(snapshot.isSaved() ? getSaveDirectory(snapshot.getSeed()) : null);
+        player = snapshot.getPlayer();
+        controls = new Controls(world, player, Block.size * displayDensity);
+    }
+
+    @Override
+    protected void doDraw(Canvas canvas, RenderSnapshot snapshot) {
         //If there isn't a canvas to do nothing
         //It is ok not understanding what is happening here
         if (canvas == null) return;
 
         //House keeping
-        super.doDraw(canvas);
+        super.doDraw(canvas, snapshot);
+
+        if (getMode() == STATE_RUNNING && snapshot != null) {
+            // follow the player, interpolated between ticks so that movement is smooth at any frame rate
+            float interpolation = getInterpolation(snapshot);
+            float cameraX = snapshot.previousCameraX + (snapshot.cameraX - snapshot.previousCameraX) * interpolation;
+            float cameraY = snapshot.previousCameraY + (snapshot.cameraY - snapshot.previousCameraY) * interpolation;
 
-        if (getMode() == STATE_RUNNING) {
             // draw blocks
-            int[] minMaxXY = getMinMaxXY();
+            updateMinMaxXY(cameraX, cameraY, 0, minMaxXY);
             int minXIndex = minMaxXY[0];
             int maxXIndex = minMaxXY[1];
             int minYIndex = minMaxXY[2];
             int maxYIndex = minMaxXY[3];
-            for (int x = minXIndex; x <= maxXIndex; x++) {
-                for (int y = minYIndex; y <= maxYIndex; y++) { // for each row in that column
-                    try {
-                        Bitmap blockBitmap = BitmapFactory.decodeResource(gameView.getContext().getResources(), world.getBlock(x, y).getBitmap());
-                        canvas.drawBitmap(
-                                blockBitmap,
-                                (x - ((player.getX() - ((mCanvasWidth / 2) / (Block.size * displayDensity))))) * Block.size * displayDensity,
-                                mCanvasHeight - ((y - ((player.getY() - ((mCanvasHeight / 2) / (Block.size * displayDensity))))) * Block.size * displayDensity + ((44 / 2) * displayDensity)),
-                                null);
-                    } catch (NullPointerException e) {
-                        // do nothing - no need to draw "air"
-                    }
-                }
-            }
+            terrain.resize(mCanvasWidth, mCanvasHeight); // does nothing unless the surface has changed size
+            terrain.draw(
+                    canvas,
+                    snapshot,
+                    minXIndex, maxXIndex, minYIndex, maxYIndex,
+                    (minXIndex - ((cameraX - ((mCanvasWidth / 2) / (Block.size * displayDensity))))) * Block.size * displayDensity,
+                    mCanvasHeight - ((maxYIndex - ((cameraY - ((mCanvasHeight / 2) / (Block.size * displayDensity))))) * Block.size * displayDensity + ((44 / 2) * displayDensity)),
+                    Block.size * displayDensity);
 
             // draw player
-            Bitmap playerBitmap = BitmapFactory.decodeResource(gameView.getContext().getResources(), player.getBitmap());
-            canvas.drawBitmap(
-                    playerBitmap,
-                    (mCanvasWidth / 2) - ((player.getWidth() / 2) * displayDensity),
-                    mCanvasHeight - (mCanvasHeight / 2) - ((player.getHeight() / 2) * displayDensity),
-                    null);
+            sprites.draw(
+                    canvas,
+                    snapshot.playerSprite,
+                    (mCanvasWidth / 2) - ((snapshot.playerWidth / 2) * displayDensity),
+                    mCanvasHeight - (mCanvasHeight / 2) - ((snapshot.playerHeight / 2) * displayDensity));
 
             // draw mobs
-            for (Mob mob : world.getMobs()) {
-                Bitmap mobBitmap = BitmapFactory.decodeResource(gameView.getContext().getResources(), mob.getBitmap());
-                canvas.drawBitmap(
-                        mobBitmap,
-                        (mCanvasWidth / 2) - ((mob.getWidth() / 2) * displayDensity) + ((mob.getX() - player.getX()) * Block.size * displayDensity),
-                        ((mCanvasHeight / 2) - ((mob.getHeight() / 2) * displayDensity)) - ((mob.getY() - player.getY()) * Block.size * displayDensity),
-                        null);
+            for (int i = 0; i < snapshot.entityCount; i++) {
+                float mobX = snapshot.entityPreviousX[i] + (snapshot.entityX[i] - snapshot.entityPreviousX[i]) * interpolation;
+                float mobY = snapshot.entityPreviousY[i] + (snapshot.entityY[i] - snapshot.entityPreviousY[i]) * interpolation;
+                sprites.draw(
+                        canvas,
+                        snapshot.entitySprite[i],
+                        (mCanvasWidth / 2) - ((snapshot.entityWidth[i] / 2) * displayDensity) + ((mobX - cameraX) * Block.size * displayDensity),
+                        ((mCanvasHeight / 2) - ((snapshot.entityHeight[i] / 2) * displayDensity)) - ((mobY - cameraY) * Block.size * displayDensity));
             }
         }
+    }
 
-        if (getMode() == STATE_RUNNING) {
-            try {
-                displayFps(1000 / (System.currentTimeMillis() - startDrawTime));
-            } catch (ArithmeticException e) { // if James Anderson appears and does a cheeky division by zero
-                displayFps(Double.POSITIVE_INFINITY);
-            }
-        }
+    //This is run after each batch of ticks, to copy what needs drawing into a snapshot for the render thread
+    @Override
+    protected void fillSnapshot(RenderSnapshot snapshot) {
+        snapshot.cameraX = player.getX();
+        snapshot.cameraY = player.getY();
+        snapshot.previousCameraX = player.getInterpolatedX(0);
+        snapshot.previousCameraY = player.getInterpolatedY(0);
+        snapshot.playerSprite = player.getBitmap();
+        snapshot.playerWidth = player.getWidth();
+        snapshot.playerHeight = player.getHeight();
+        snapshot.health = (int) Math.max(0, Math.round(player.getHealth())); // the health can drop below 0
+
+        // the camera is drawn somewhere between its previous and latest positions, so copy a block either side
+        updateMinMaxXY(snapshot.cameraX, snapshot.cameraY, 2, snapshotMinMaxXY);
+        snapshot.setTiles(world, snapshotMinMaxXY[0], snapshotMinMaxXY[1], snapshotMinMaxXY[2], snapshotMinMaxXY[3]);
+
+        snapshot.setEntities(world.getMobs());
     }
 
 
+    //This is run when the game is paused (or the thread stops), so anything worth keeping should be saved here
+    @Override
+    protected void saveGame() {
+        if (world != null) {
+            world.save();
+        }
+    }
+
     //This is run whenever the phone is touched by the user
     @Override
     protected void actionOnTouch(float x, float y) {
-        Log.d("TouchDetected", "x: " + Float.toString(x) + ", y: " + Float.toString(y));
+        GameLog.d("TouchDetected", "Touch detected at screen coords", x, y);
 
         if (getMode() == STATE_RUNNING) {
-            // player movement: left / right
-            if (x < mCanvasWidth * 0.15) {
-                Log.d("MovePlayer", "Start player left");
-                player.startMoving(Direction.LEFT);
-            } else if (x > mCanvasWidth * 0.85) {
-                Log.d("MovePlayer", "Start player right");
-                player.startMoving(Direction.RIGHT);
-            } else {
-                Log.d("MovePlayer", "Player still");
-                player.stopMoving();
-            }
-
-            // player movement: jump
-            if (y < mCanvasHeight * 0.15) {
-                Log.d("MovePlayer", "Player jump");
-                player.jump();
-            } else {
-                Log.d("MovePlayer", "Player no jump");
-            }
-
-            // destroying blocks & attacking mobs
-            float touchWorldX = ((x - mCanvasWidth / 2) / (Block.size * displayDensity)) + player.getX();
-            float touchWorldY = ((mCanvasHeight / 2 - y) / (Block.size * displayDensity)) + player.getY() + (player.getHeight() / Block.size) - 0.4f;
-            Log.d("TouchDetected", "Touch detected at world coords (" + touchWorldX + ", " + touchWorldY + ")");
-            if (x > mCanvasWidth * 0.25 && x < mCanvasWidth * 0.75 && y > mCanvasHeight * 0.25 && y < mCanvasHeight * 0.75) {
-                int blockX = (int) Math.floor(touchWorldX);
-                int blockY = (int) Math.floor(touchWorldY);
-                world.destroyBlock(blockX, blockY);
-            }
-            world.attackMob(touchWorldX, touchWorldY);
+            InputReplay replay = getReplay(); // replayed touches are relative to the screen they were recorded on
+            controls.touch(x, y, replay == null ? mCanvasWidth : replay.getViewWidth(), replay == null ? mCanvasHeight : replay.getViewHeight());
+            record(Controls.TOUCH, x, y);
         }
     }
 
     @Override
     protected void actionOnRelease(float x, float y) {
-        // player movement: left / right
-        if (x < mCanvasWidth * 0.2 || x > mCanvasWidth * 0.8) {
-            player.stopMoving();
-        }
-        world.destroyBlock(-1, -1);
+        if (controls == null) return; // (between games)
+        InputReplay replay = getReplay();
+        controls.release(x, y, replay == null ? mCanvasWidth : replay.getViewWidth());
+        record(Controls.RELEASE, x, y);
     }
 
     //This is run just before the game "scenario" is printed on the screen
     @Override
     protected void updateGame(float secondsElapsed) {
         player.update(secondsElapsed);
-        displayCoords(player.getX(), player.getY());
         updateScore(world.getScoreChange());
-        displayHealth(player.getHealth());
         if (player.getHealth() <= 0) {
-            displayHealth(0); // in case the player health dropped below 0
             setState(STATE_LOSE);
         }
     }
@@ -1,6 +0,0 @@
-package uk.bh96.openworld.blocks;
-
-/**
- * Contains a list of the different available block types.
- */
-public enum Blocks { BEDROCK, COAL, DIAMOND, DIRT, GOLD, GRASS, IRON, LAVA, STONE };
@@ -1,6 +0,0 @@
-package uk.bh96.openworld.mobs;
-
-/**
- * Contains a list of the different available mob types.
- */
-public enum Mobs { ZOMBIE };
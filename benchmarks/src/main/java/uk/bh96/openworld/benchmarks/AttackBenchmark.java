@@ -0,0 +1,82 @@
+package uk.bh96.openworld.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import uk.bh96.openworld.Player;
+import uk.bh96.openworld.World;
+
+/**
+ * Measures attacking (finding the mobs at a point, and damaging them) in a world full of mobs. Attacks cycle through
+ * points spread across the screen, some of which hit mobs and some of which don't.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AttackBenchmark {
+    /**
+     * The number of points attacked (a power of two).
+     */
+    private static final int POINTS = 1024;
+
+    /**
+     * The number of mobs in the world.
+     */
+    @Param({"100", "1000"})
+    public int mobs;
+
+    /**
+     * The index of the next point to attack.
+     */
+    private int next = 0;
+    /**
+     * The x coordinate of each point to attack.
+     */
+    private final float[] pointX = new float[POINTS];
+    /**
+     * The y coordinate of each point to attack.
+     */
+    private final float[] pointY = new float[POINTS];
+    /**
+     * The world being attacked in.
+     */
+    private World world;
+
+    @Setup
+    public void setUp() {
+        world = BenchmarkWorlds.createWorld(BenchmarkWorlds.SEED);
+        Player player = BenchmarkWorlds.addPlayer(world);
+        Random random = new Random(mobs);
+        BenchmarkWorlds.addMobs(world, player, mobs, random);
+        for (int i = 0; i < POINTS; i++) {
+            pointX[i] = player.getX() + (random.nextFloat() - 0.5f) * BenchmarkWorlds.SCREEN_WIDTH;
+            pointY[i] = world.getHeight((int) Math.floor(pointX[i])) + 1 + random.nextFloat();
+        }
+    }
+
+    @TearDown
+    public void tearDown() { world.close(); }
+
+    @Benchmark
+    public World attackMob() {
+        int point = next++ & (POINTS - 1);
+        world.attackMob(pointX[point], pointY[point]);
+        return world;
+    }
+}
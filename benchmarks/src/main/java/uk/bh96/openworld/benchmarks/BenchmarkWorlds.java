@@ -0,0 +1,65 @@
+package uk.bh96.openworld.benchmarks;
+
+import java.util.Random;
+
+import uk.bh96.openworld.Player;
+import uk.bh96.openworld.Tick;
+import uk.bh96.openworld.World;
+import uk.bh96.openworld.mobs.Mobs;
+
+/**
+ * Builds the worlds which the benchmarks run in.
+ */
+final class BenchmarkWorlds {
+    /**
+     * The seed of every world (unless a benchmark is comparing seeds).
+     */
+    static final long SEED = 1125899906842597L;
+    /**
+     * The width of the screen in blocks (a 1920x1080 screen at 480dpi).
+     */
+    static final float SCREEN_WIDTH = 1920 / (56 * 3f);
+    /**
+     * The height of the screen in blocks (a 1920x1080 screen at 480dpi).
+     */
+    static final float SCREEN_HEIGHT = 1080 / (56 * 3f);
+    /**
+     * The length of a tick, in seconds (as in the game).
+     */
+    static final float TICK = Tick.SECONDS;
+
+    private BenchmarkWorlds() { }
+
+    /**
+     * @param seed the seed of the world.
+     * @return a new world (which must be closed once finished with).
+     */
+    static World createWorld(long seed) { return new World(seed, SCREEN_WIDTH, SCREEN_HEIGHT, null); }
+
+    /**
+     * Adds a player to a world, and loads the chunks around the player.
+     * @param world the world to add the player to.
+     * @return the player.
+     */
+    static Player addPlayer(World world) {
+        Player player = new Player(world);
+        world.update(0);
+        return player;
+    }
+
+    /**
+     * Adds mobs to a world, standing on the surface at random within a screen's width either side of the player (where
+     * they stay, as they're despawned at twice the screen width).
+     * @param world the world to add the mobs to.
+     * @param player the player in the world.
+     * @param count the number of mobs to add.
+     * @param random chooses where the mobs go.
+     */
+    static void addMobs(World world, Player player, int count, Random random) {
+        int range = (int) SCREEN_WIDTH;
+        for (int i = 0; i < count; i++) {
+            int x = (int) player.getX() - range + random.nextInt(2 * range);
+            world.getMobs().add(Mobs.ZOMBIE, x + 0.5f, world.getHeight(x) + 1);
+        }
+    }
+}
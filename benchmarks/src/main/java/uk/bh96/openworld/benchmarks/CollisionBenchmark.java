@@ -0,0 +1,142 @@
+package uk.bh96.openworld.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import uk.bh96.openworld.Direction;
+import uk.bh96.openworld.Lifeform;
+import uk.bh96.openworld.Player;
+import uk.bh96.openworld.TileCollider;
+import uk.bh96.openworld.World;
+
+/**
+ * Measures collision against the terrain: a lifeform's update (which sweeps it along and down, and probes for the
+ * ground beneath it), and a batch of sweeps as used by the mobs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CollisionBenchmark {
+    /**
+     * The number of sweeps in a batch.
+     */
+    private static final int BATCH = 1000;
+
+    /**
+     * A lifeform which walks back and forth across the terrain, jumping whenever it turns around.
+     */
+    private static class Walker extends Lifeform {
+        /**
+         * How many ticks the walker walks for before turning around.
+         */
+        private static final int TICKS_PER_TURN = 90;
+        /**
+         * The number of ticks since the walker last turned around.
+         */
+        private int ticks = 0;
+
+        /**
+         * @param world the world that the walker exists within.
+         * @param x the x position that the walker starts at.
+         * @param y the y position that the walker starts at.
+         */
+        Walker(World world, float x, float y) {
+            super(world);
+            setX(x);
+            setY(y);
+            setHealth(100);
+        }
+
+        public int getBitmap() { return 0; }
+        public int getHeight() { return 64; }
+        protected float getSpeed() { return 0.2f; }
+        public int getWidth() { return 40; }
+
+        @Override
+        public void update(float secondsElapsed) {
+            if (ticks++ == TICKS_PER_TURN) {
+                ticks = 0;
+                jump();
+                direction = direction == Direction.LEFT ? Direction.RIGHT : Direction.LEFT;
+            }
+            startMoving(direction); // only succeeds when on the ground
+            super.update(secondsElapsed);
+        }
+    }
+
+    /**
+     * The boxes (left, bottom, right, top) and moves (x, y) of the batch.
+     */
+    private final float[] minX = new float[BATCH], minY = new float[BATCH], maxX = new float[BATCH], maxY = new float[BATCH],
+            dx = new float[BATCH], dy = new float[BATCH];
+    /**
+     * The results of the batch.
+     */
+    private final float[] times = new float[BATCH];
+    /**
+     * The results of the batch.
+     */
+    private final byte[] normals = new byte[BATCH];
+    /**
+     * Used while sweeping the batch.
+     */
+    private final TileCollider.Contact contact = new TileCollider.Contact();
+    /**
+     * The walker.
+     */
+    private Walker walker;
+    /**
+     * The world that everything is swept through.
+     */
+    private World world;
+
+    @Setup
+    public void setUp() {
+        world = BenchmarkWorlds.createWorld(BenchmarkWorlds.SEED);
+        Player player = BenchmarkWorlds.addPlayer(world);
+        walker = new Walker(world, player.getX(), player.getY());
+        // a batch of lifeform-sized boxes standing on the surface, half falling and half walking
+        Random random = new Random(BATCH);
+        int range = (int) BenchmarkWorlds.SCREEN_WIDTH;
+        for (int i = 0; i < BATCH; i++) {
+            int x = (int) player.getX() - range + random.nextInt(2 * range);
+            minX[i] = x + 0.1f;
+            maxX[i] = x + 0.9f;
+            minY[i] = world.getHeight(x) + 1;
+            maxY[i] = minY[i] + 64 / 56f;
+            dx[i] = i % 2 == 0 ? 0 : 0.2f;
+            dy[i] = i % 2 == 0 ? -0.5f : 0;
+        }
+    }
+
+    @TearDown
+    public void tearDown() { world.close(); }
+
+    @Benchmark
+    public Lifeform lifeformUpdate() {
+        walker.update(BenchmarkWorlds.TICK);
+        // its steps are scheduled, so run them (without updating the rest of the world)
+        world.getScheduler().advance(world.getScheduler().getTick() + 1);
+        return walker;
+    }
+
+    @Benchmark
+    public int sweepBatch() {
+        return world.getCollider().sweepAll(minX, minY, maxX, maxY, dx, dy, BATCH, times, normals, contact);
+    }
+}
@@ -0,0 +1,82 @@
+package uk.bh96.openworld.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import uk.bh96.openworld.BlockDamage;
+import uk.bh96.openworld.Scheduler;
+
+/**
+ * Measures keeping track of damaged blocks: each tick, some blocks are damaged (so the damaged blocks churn, as blocks
+ * which aren't damaged again recover), and the stage of a visible block is looked up as it would be when drawing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DamageBenchmark {
+    /**
+     * The number of blocks damaged (a power of two).
+     */
+    private static final int POINTS = 4096;
+
+    /**
+     * The number of blocks damaged each tick.
+     */
+    @Param({"1", "64"})
+    public int blocksPerTick;
+
+    /**
+     * Schedules the blocks' recovery.
+     */
+    private final Scheduler scheduler = new Scheduler();
+    /**
+     * The damaged blocks.
+     */
+    private final BlockDamage damage = new BlockDamage(scheduler);
+    /**
+     * The index of the next block to damage.
+     */
+    private int next = 0;
+    /**
+     * The x coordinate of each block to damage.
+     */
+    private final int[] pointX = new int[POINTS];
+    /**
+     * The y coordinate of each block to damage.
+     */
+    private final int[] pointY = new int[POINTS];
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(blocksPerTick);
+        for (int i = 0; i < POINTS; i++) {
+            pointX[i] = random.nextInt((int) BenchmarkWorlds.SCREEN_WIDTH * 4);
+            pointY[i] = random.nextInt((int) BenchmarkWorlds.SCREEN_HEIGHT * 4);
+        }
+    }
+
+    @Benchmark
+    public int tick() {
+        scheduler.advance(scheduler.getTick() + 1);
+        for (int i = 0; i < blocksPerTick; i++) {
+            int point = next++ & (POINTS - 1);
+            damage.add(pointX[point], pointY[point], 1);
+        }
+        return damage.get(pointX[next & (POINTS - 1)], pointY[next & (POINTS - 1)]);
+    }
+}
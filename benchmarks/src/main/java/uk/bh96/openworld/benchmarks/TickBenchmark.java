@@ -0,0 +1,61 @@
+package uk.bh96.openworld.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import uk.bh96.openworld.Player;
+import uk.bh96.openworld.World;
+
+/**
+ * Measures the cost of one tick of the world (World.update), with different numbers of mobs chasing the player. The
+ * world is rebuilt for each iteration, as the mobs gather around the player (and the player dies) as it runs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TickBenchmark {
+    /**
+     * The number of mobs in the world (up to the 5-10 thousand that MobStore is meant to handle).
+     */
+    @Param({"0", "100", "1000", "5000", "10000"})
+    public int mobs;
+
+    /**
+     * The world being ticked.
+     */
+    private World world;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        world = BenchmarkWorlds.createWorld(BenchmarkWorlds.SEED);
+        Player player = BenchmarkWorlds.addPlayer(world);
+        BenchmarkWorlds.addMobs(world, player, mobs, new Random(mobs));
+        world.update(BenchmarkWorlds.TICK); // builds the mobs' flow field
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() { world.close(); }
+
+    @Benchmark
+    public World tick() {
+        world.update(BenchmarkWorlds.TICK);
+        return world;
+    }
+}
@@ -0,0 +1,67 @@
+package uk.bh96.openworld.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import uk.bh96.openworld.Viewport;
+
+/**
+ * Measures working out the range of visible blocks (done for every frame drawn, and every snapshot published), for
+ * camera positions spread across the world.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ViewportBenchmark {
+    /**
+     * The number of camera positions (a power of two).
+     */
+    private static final int CAMERAS = 1024;
+
+    /**
+     * The x coordinate of each camera position.
+     */
+    private final float[] cameraX = new float[CAMERAS];
+    /**
+     * The y coordinate of each camera position.
+     */
+    private final float[] cameraY = new float[CAMERAS];
+    /**
+     * The index of the next camera position.
+     */
+    private int next = 0;
+    /**
+     * Where the range goes.
+     */
+    private final int[] minMaxXY = new int[4];
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(CAMERAS);
+        for (int i = 0; i < CAMERAS; i++) {
+            cameraX[i] = random.nextFloat() * 4096 - 2048;
+            cameraY[i] = random.nextFloat() * 256;
+        }
+    }
+
+    @Benchmark
+    public int[] visibleRange() {
+        int camera = next++ & (CAMERAS - 1);
+        Viewport.getVisibleRange(cameraX[camera], cameraY[camera], 1920, 1080, 56 * 3f, 0, minMaxXY);
+        return minMaxXY;
+    }
+}
@@ -0,0 +1,43 @@
+package uk.bh96.openworld.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import uk.bh96.openworld.Player;
+import uk.bh96.openworld.World;
+
+/**
+ * Measures how long it takes to create a world: generating the chunks around the player (the spawn area), and starting
+ * and stopping the generator threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WorldBenchmark {
+    /**
+     * The seed of the world (the terrain, and so the cost of generating it, depends on the seed).
+     */
+    @Param({"1", "1125899906842597", "-8029392305217536000"})
+    public long seed;
+
+    @Benchmark
+    public Player construct() {
+        World world = BenchmarkWorlds.createWorld(seed);
+        Player player = BenchmarkWorlds.addPlayer(world);
+        world.close();
+        return player;
+    }
+}
@@ -0,0 +1,247 @@
+package uk.bh96.openworld;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * How damaged each block is (its destruction stage), for any number of blocks at once (e.g. mined by the player, or
+ * attacked by mobs). A block which isn't damaged again recovers a stage every DECAY_TICKS, until it's whole again.
+ *
+ * Blocks are kept in an open addressing hash table keyed by their packed coordinates (with the stages in a parallel
+ * array), so looking a block up and damaging it never allocates. Each block's next recovery is scheduled (see
+ * Scheduler), so ticks cost nothing while nothing is due. Damaging a block again schedules it for a later tick, and the
+ * recovery which was scheduled before is skipped when it runs (as the block's deadline no longer matches).
+ */
+public class BlockDamage {
+    /**
+     * How many ticks a block goes without being damaged before it recovers a stage.
+     */
+    public static final int DECAY_TICKS = 15;
+
+    /**
+     * For each slot of the table, the tick at which the block recovers its next stage.
+     */
+    private long[] deadlines;
+    /**
+     * For each slot of the table, the packed coordinates of the block.
+     */
+    private long[] keys;
+    /**
+     * Lets a block recover a stage (the argument is its packed coordinates).
+     */
+    private final Scheduler.Task recovery = new Scheduler.Task(Scheduler.RECOVERY) {
+        public void run(long tick, long key) { recover(tick, key); }
+    };
+    /**
+     * Schedules the blocks' recovery.
+     */
+    private final Scheduler scheduler;
+    /**
+     * The number of damaged blocks.
+     */
+    private int size = 0;
+    /**
+     * For each slot of the table, the block's destruction stage (0 if the slot is empty).
+     */
+    private int[] stages;
+
+    /**
+     * @param scheduler schedules the blocks' recovery (e.g. the world's).
+     */
+    public BlockDamage(Scheduler scheduler) {
+        this.scheduler = scheduler;
+        allocate(64);
+    }
+
+    /**
+     * Damages a block.
+     * @param x the x coordinate of the block.
+     * @param y the y coordinate of the block.
+     * @param amount the number of stages to damage it by.
+     * @return the block's destruction stage now.
+     */
+    public int add(int x, int y, int amount) {
+        long key = pack(x, y);
+        int slot = find(key);
+        if (stages[slot] == 0) {
+            if (size + 1 > keys.length / 2) {
+                allocate(keys.length * 2);
+                slot = find(key);
+            }
+            keys[slot] = key;
+            size++;
+        }
+        stages[slot] += amount;
+        schedule(slot, scheduler.getTick() + DECAY_TICKS);
+        return stages[slot];
+    }
+
+    /**
+     * (Re)allocates the table, keeping the blocks already in it.
+     * @param capacity the number of slots (a power of two).
+     */
+    private void allocate(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldStages = stages;
+        long[] oldDeadlines = deadlines;
+        keys = new long[capacity];
+        stages = new int[capacity];
+        deadlines = new long[capacity];
+        if (oldKeys != null) {
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldStages[i] != 0) {
+                    int slot = find(oldKeys[i]);
+                    keys[slot] = oldKeys[i];
+                    stages[slot] = oldStages[i];
+                    deadlines[slot] = oldDeadlines[i];
+                }
+            }
+        }
+    }
+
+    /**
+     * @param key the packed coordinates of a block.
+     * @return the slot of the table holding the block, or the empty slot where it would go.
+     */
+    private int find(long key) {
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (stages[slot] != 0 && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * @param x the x coordinate of the block.
+     * @param y the y coordinate of the block.
+     * @return the block's destruction stage (0 if it isn't damaged).
+     */
+    public int get(int x, int y) {
+        if (size == 0) {
+            return 0; // the usual case
+        }
+        return stages[find(pack(x, y))];
+    }
+
+    /**
+     * @param key the packed coordinates of a block.
+     * @return the key's bits thoroughly mixed (neighbouring blocks shouldn't cluster in the table).
+     */
+    private static int hash(long key) {
+        key *= 0x9E3779B97F4A7C15L;
+        return (int) (key ^ (key >>> 32));
+    }
+
+    /**
+     * @param x the x coordinate.
+     * @param y the y coordinate.
+     * @return the coordinates packed into a single value, for use as a key.
+     */
+    private static long pack(int x, int y) { return ((long) x << 32) | (y & 0xffffffffL); }
+
+    /**
+     * Reads back the blocks written by writeState(), in place of those here (see SessionSnapshot). The scheduler must
+     * already have been reset to the tick the blocks were written at.
+     * @param in where to read the blocks from.
+     * @throws IOException if they can't be read.
+     */
+    void readState(DataInput in) throws IOException {
+        Arrays.fill(stages, 0);
+        size = 0;
+        int blocks = in.readInt();
+        for (int i = 0; i < blocks; i++) {
+            int x = in.readInt();
+            int y = in.readInt();
+            add(x, y, in.readInt());
+            // (the recovery add() scheduled is skipped, as it no longer matches)
+            schedule(find(pack(x, y)), scheduler.getTick() + in.readInt());
+        }
+    }
+
+    /**
+     * Lets a block recover a stage, if it's due to.
+     * @param tick the current tick.
+     * @param key the packed coordinates of the block.
+     */
+    private void recover(long tick, long key) {
+        int slot = find(key);
+        if (stages[slot] != 0 && deadlines[slot] == tick) { // (otherwise it's been damaged, or removed, since)
+            if (--stages[slot] == 0) {
+                removeSlot(slot);
+            } else {
+                schedule(slot, tick + DECAY_TICKS);
+            }
+        }
+    }
+
+    /**
+     * Stops tracking a block (e.g. because it's been destroyed).
+     * @param x the x coordinate of the block.
+     * @param y the y coordinate of the block.
+     */
+    public void remove(int x, int y) {
+        int slot = find(pack(x, y));
+        if (stages[slot] != 0) {
+            removeSlot(slot);
+        }
+    }
+
+    /**
+     * Empties a slot of the table, moving any blocks after it which belong earlier back to fill the gap (so that finding
+     * them doesn't stop at the empty slot). Their recoveries are scheduled by key rather than slot, so they're unchanged.
+     * @param slot the slot to empty.
+     */
+    private void removeSlot(int slot) {
+        int mask = keys.length - 1;
+        int gap = slot;
+        int next = (gap + 1) & mask;
+        while (stages[next] != 0) {
+            int home = hash(keys[next]) & mask;
+            // move the block back if its home slot isn't between the gap (exclusive) and where it is (inclusive)
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                stages[gap] = stages[next];
+                deadlines[gap] = deadlines[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        stages[gap] = 0;
+        size--;
+    }
+
+    /**
+     * Schedules a block's next recovery.
+     * @param slot the block's slot in the table.
+     * @param deadline the tick at which it's due.
+     */
+    private void schedule(int slot, long deadline) {
+        deadlines[slot] = deadline;
+        scheduler.schedule(recovery, deadline, keys[slot]);
+    }
+
+    /**
+     * @return the number of damaged blocks.
+     */
+    public int size() { return size; }
+
+    /**
+     * Writes every damaged block: its coordinates, stage and how long until it next recovers (see SessionSnapshot).
+     * @param out where to write the blocks.
+     * @throws IOException if they can't be written.
+     */
+    void writeState(DataOutput out) throws IOException {
+        out.writeInt(size);
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (stages[slot] != 0) {
+                out.writeInt((int) (keys[slot] >> 32));
+                out.writeInt((int) keys[slot]);
+                out.writeInt(stages[slot]);
+                out.writeInt((int) (deadlines[slot] - scheduler.getTick()));
+            }
+        }
+    }
+}
@@ -0,0 +1,338 @@
+package uk.bh96.openworld;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+
+/**
+ * An append-only journal of the blocks changed in a world, so that no change is lost if the game is killed between
+ * saves (a world's region files are only forced out to disk when it's saved, see WorldStorage).
+ *
+ * Each change is a fixed size record: the coordinates, the old and new palette ids, and the tick it happened in. The
+ * game thread only ever copies a record into a preallocated buffer. A background thread swaps the buffers, writes out
+ * everything appended since it last ran and forces it to disk, so one fsync covers every change in a batch (group
+ * commit). A record which was only partly written when the game died is cut off when the journal is next opened.
+ *
+ * When a world is opened the journal is replayed on top of its saved (or generated) terrain. Once the world has been
+ * saved the changes are in the region files, so the journal is emptied (see checkpoint()) - in the background, after
+ * the region files have been forced to disk, so saving never waits for the disk either. Between saves, whenever it
+ * grows past COMPACT_BYTES it's compacted in the background: only the latest change to each block is kept.
+ *
+ * Failures are logged rather than thrown - the worst case is that changes since the last save are lost.
+ */
+public class BlockJournal {
+    /**
+     * Applies a change read back from the journal.
+     */
+    public interface Editor {
+        /**
+         * @param x the x coordinate of the block.
+         * @param y the y coordinate of the block.
+         * @param paletteId the palette id the block was changed to.
+         * @param tick the tick the change was made in.
+         */
+        void setBlock(int x, int y, byte paletteId, long tick);
+    }
+
+    /**
+     * The size of a record: the x coordinate (int), the y coordinate (short), the old and new palette ids (bytes) and
+     * the tick (long).
+     */
+    public static final int RECORD_BYTES = 16;
+    /**
+     * The number of records each buffer holds. Changes are made at most a few times a second, so a buffer only fills if
+     * the disk stalls for minutes (and then appending waits for it).
+     */
+    private static final int CAPACITY = 1024;
+    /**
+     * The size past which the journal is compacted.
+     */
+    private static final long COMPACT_BYTES = 256 * 1024;
+    /**
+     * How often the background thread writes a batch out (in milliseconds).
+     */
+    private static final long FLUSH_INTERVAL = 200;
+
+    /**
+     * The buffer which changes are appended to (guarded by lock).
+     */
+    private ByteBuffer appending = ByteBuffer.allocate(CAPACITY * RECORD_BYTES);
+    /**
+     * The channel of the open journal, or null if it couldn't be opened.
+     */
+    private FileChannel channel;
+    /**
+     * Forces the world's saved changes to disk, before the journal is emptied: set by checkpoint() until the background
+     * thread gets to it, otherwise null (guarded by lock).
+     */
+    private Runnable checkpoint;
+    /**
+     * The number of bytes at the start of appending which are covered by the pending checkpoint (guarded by lock).
+     */
+    private int checkpointBytes;
+    /**
+     * The journal.
+     */
+    private final File file;
+    /**
+     * Writes batches out in the background.
+     */
+    private final Thread flusher;
+    /**
+     * Guards the buffers, and the file while it's being written.
+     */
+    private final Object lock = new Object();
+    /**
+     * Whether the journal is open (guarded by lock).
+     */
+    private boolean open = true;
+    /**
+     * The buffer being written out (only touched by the background thread while flushing).
+     */
+    private ByteBuffer writing = ByteBuffer.allocate(CAPACITY * RECORD_BYTES);
+
+    /**
+     * Opens a journal, creating it if it doesn't exist, and starts writing changes to it in the background.
+     * @param file the journal.
+     */
+    public BlockJournal(File file) {
+        this.file = file;
+        channel = openChannel(file);
+        flusher = new Thread("BlockJournal") {
+            @Override
+            public void run() { flushLoop(); }
+        };
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * Records a change. Never waits for the disk (unless it has stalled for so long that the buffer is full).
+     * @param x the x coordinate of the block.
+     * @param y the y coordinate of the block.
+     * @param oldId the palette id the block had.
+     * @param newId the palette id the block has now.
+     * @param tick the tick the change was made in.
+     */
+    public void append(int x, int y, byte oldId, byte newId, long tick) {
+        synchronized (lock) {
+            while (appending.remaining() < RECORD_BYTES && open) {
+                lock.notifyAll(); // the background thread will swap the buffers
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return; // lose this change rather than wait forever
+                }
+            }
+            appending.putInt(x).putShort((short) y).put(oldId).put(newId).putLong(tick);
+        }
+    }
+
+    /**
+     * Empties the journal of every change appended so far, once they're all safely in the world's region files. Doesn't
+     * wait: the background thread writes out what's been appended, forces the region files to disk, and only then drops
+     * the changes (keeping any appended since this was called).
+     * @param forceWorld forces the world's region files to disk (run on the background thread).
+     */
+    public void checkpoint(Runnable forceWorld) {
+        synchronized (lock) {
+            checkpoint = forceWorld;
+            checkpointBytes = appending.position();
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Writes out everything appended so far, and closes the journal.
+     */
+    public void close() {
+        synchronized (lock) {
+            open = false;
+            lock.notifyAll();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                GameLog.e("BlockJournal", "Unable to close " + file, e);
+            }
+        }
+    }
+
+    /**
+     * Rewrites the journal keeping only the latest change to each block (called by the background thread, while
+     * flushing).
+     */
+    private void compact() {
+        try {
+            ByteBuffer records = readAll();
+            HashMap<Long, Integer> latest = new HashMap<>();
+            for (int position = 0; position < records.limit(); position += RECORD_BYTES) {
+                latest.put(((long) records.getInt(position) << 32) | (records.getShort(position + 4) & 0xffff), position);
+            }
+            ByteBuffer compacted = ByteBuffer.allocate(latest.size() * RECORD_BYTES);
+            for (int position = 0; position < records.limit(); position += RECORD_BYTES) {
+                long key = ((long) records.getInt(position) << 32) | (records.getShort(position + 4) & 0xffff);
+                if (latest.get(key) == position) { // keep the order the changes were made in
+                    compacted.put(records.array(), position, RECORD_BYTES);
+                }
+            }
+            compacted.flip();
+            replace(compacted);
+            GameLog.d("BlockJournal", "Compacted journal (records)", records.limit() / RECORD_BYTES, latest.size());
+        } catch (IOException e) {
+            GameLog.e("BlockJournal", "Unable to compact " + file, e);
+        }
+    }
+
+    /**
+     * The background thread: every FLUSH_INTERVAL, swaps the buffers and writes out a batch.
+     */
+    private void flushLoop() {
+        while (true) {
+            Runnable forceWorld;
+            int covered;
+            synchronized (lock) {
+                if (open && appending.remaining() >= RECORD_BYTES && checkpoint == null) {
+                    try {
+                        lock.wait(FLUSH_INTERVAL);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (appending.position() == 0 && checkpoint == null) {
+                    if (!open) {
+                        return;
+                    }
+                    continue;
+                }
+                ByteBuffer batch = appending;
+                appending = writing;
+                writing = batch;
+                forceWorld = checkpoint;
+                covered = checkpointBytes;
+                checkpoint = null;
+                lock.notifyAll(); // there's room to append again
+            }
+            try {
+                writing.flip();
+                if (channel != null) {
+                    while (writing.hasRemaining()) {
+                        channel.write(writing);
+                    }
+                    channel.force(false);
+                    if (forceWorld != null) {
+                        // the changes up to the checkpoint are only dropped once the world is on disk (the rest of the
+                        // batch, appended since, stays)
+                        forceWorld.run();
+                        writing.position(covered);
+                        replace(writing);
+                    } else if (channel.size() > COMPACT_BYTES) {
+                        compact();
+                    }
+                } else if (forceWorld != null) {
+                    forceWorld.run();
+                }
+            } catch (IOException e) {
+                GameLog.e("BlockJournal", "Unable to write to " + file, e);
+            } finally {
+                writing.clear();
+            }
+        }
+    }
+
+    /**
+     * @param file the journal.
+     * @return its channel, positioned at the end of the last complete record (anything after it is cut off, so that
+     * new records line up), or null if it can't be opened.
+     */
+    private static FileChannel openChannel(File file) {
+        try {
+            FileChannel channel = new RandomAccessFile(file, "rw").getChannel();
+            long size = channel.size();
+            if (size % RECORD_BYTES != 0) {
+                channel.truncate(size - size % RECORD_BYTES);
+            }
+            channel.position(channel.size());
+            return channel;
+        } catch (IOException e) {
+            GameLog.e("BlockJournal", "Unable to open " + file, e);
+            return null;
+        }
+    }
+
+    /**
+     * @return every complete record in the journal.
+     * @throws IOException if it can't be read.
+     */
+    private ByteBuffer readAll() throws IOException {
+        long size = channel.size();
+        ByteBuffer records = ByteBuffer.allocate((int) (size - size % RECORD_BYTES));
+        channel.position(0);
+        while (records.hasRemaining() && channel.read(records) >= 0) {
+            // keep reading
+        }
+        channel.position(size);
+        records.flip();
+        return records;
+    }
+
+    /**
+     * Replaces the journal with the given records, safely (they're written to a temporary file which is then renamed
+     * over the journal, so that if the game dies part way through the old journal is still there). Called by the
+     * background thread, while flushing.
+     * @param records the records.
+     * @throws IOException if they can't be written.
+     */
+    private void replace(ByteBuffer records) throws IOException {
+        File temporary = new File(file.getPath() + ".tmp");
+        FileChannel out = new RandomAccessFile(temporary, "rw").getChannel();
+        try {
+            out.truncate(0);
+            while (records.hasRemaining()) {
+                out.write(records);
+            }
+            out.force(true);
+        } finally {
+            out.close();
+        }
+        channel.close();
+        if (!temporary.renameTo(file)) {
+            GameLog.e("BlockJournal", "Unable to replace " + file);
+        }
+        channel = openChannel(file);
+    }
+
+    /**
+     * Replays the journal (before anything has been appended to it), applying each change in the order it was made.
+     * @param editor applies the changes.
+     * @return the number of changes replayed.
+     */
+    public int replay(Editor editor) {
+        if (channel == null) {
+            return 0;
+        }
+        synchronized (lock) {
+            try {
+                ByteBuffer records = readAll();
+                for (int position = 0; position < records.limit(); position += RECORD_BYTES) {
+                    editor.setBlock(records.getInt(position), records.getShort(position + 4), records.get(position + 7),
+                            records.getLong(position + 8));
+                }
+                return records.limit() / RECORD_BYTES;
+            } catch (IOException e) {
+                GameLog.e("BlockJournal", "Unable to replay " + file, e);
+                return 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,396 @@
+package uk.bh96.openworld;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import uk.bh96.openworld.blocks.Blocks;
+
+/**
+ * A fixed-width column of the world, holding the palette ids (see Blocks) of every block within it. A chunk which
+ * isn't near the player can be compressed: each 16 block high section then keeps its own small palette, and packs
+ * each block into just enough bits to index it (no bits at all for a section which is entirely air or stone).
+ * Compressed blocks are read in place; changing a block decompresses the chunk first. Each chunk also keeps (once
+ * first asked for) the height of each of its columns and where in them a mob could spawn, updated as blocks change.
+ */
+public class Chunk {
+    /**
+     * The height of every chunk (and so of the world), in blocks.
+     */
+    public static final int HEIGHT = 256;
+    /**
+     * The width of every chunk, in blocks. Must be a power of two.
+     */
+    public static final int WIDTH = 16;
+    /**
+     * log2(WIDTH), used to convert between block and chunk coordinates.
+     */
+    public static final int WIDTH_BITS = 4;
+    /**
+     * The size of a chunk's blocks when saved, in bytes.
+     */
+    public static final int BYTES = WIDTH * HEIGHT;
+    /**
+     * The height of a section (the unit which is compressed), in blocks.
+     */
+    public static final int SECTION_HEIGHT = 16;
+    /**
+     * log2(SECTION_HEIGHT), used to find the section containing a block.
+     */
+    private static final int SECTION_HEIGHT_BITS = 4;
+    /**
+     * The number of sections in a chunk.
+     */
+    private static final int SECTIONS = HEIGHT / SECTION_HEIGHT;
+    /**
+     * The number of blocks in a section.
+     */
+    private static final int SECTION_BLOCKS = WIDTH * SECTION_HEIGHT;
+    /**
+     * The number of longs in each column's bitmap of spawn candidates.
+     */
+    private static final int SPAWN_WORDS = HEIGHT / 64;
+
+    /**
+     * The palette ids of the blocks in this chunk, stored column by column (or null if the chunk is compressed).
+     */
+    private byte[] blocks = new byte[BYTES];
+    /**
+     * When compressed, the number of bits used to store each block of each section (always 0, 1, 2, 4 or 8, so that a
+     * block never straddles two longs).
+     */
+    private byte[] sectionBits;
+    /**
+     * When compressed, the packed blocks of each section - indexes into that section's palette.
+     */
+    private long[][] sectionData;
+    /**
+     * When compressed, the palette of each section - the distinct palette ids used within it.
+     */
+    private byte[][] sectionPalettes;
+    /**
+     * The x coordinate of this chunk, measured in chunks (so block x = chunkX * WIDTH + localX).
+     */
+    private final int chunkX;
+    /**
+     * Whether the chunk has changed since it was last saved (a newly generated chunk has never been saved).
+     */
+    private boolean dirty = true;
+    /**
+     * Whether the chunk may differ from what it would be if it were loaded again (generated from the seed, or read from
+     * the region file): the world has changed one of its blocks since. Only these chunks need to be kept in a snapshot
+     * (see SessionSnapshot).
+     */
+    private boolean edited = false;
+    /**
+     * For each column, the y coordinate of its highest solid block (-1 if it has none). Null until first needed, and
+     * then kept up to date as blocks change.
+     */
+    private short[] heights;
+    /**
+     * For each column, a bitmap (SPAWN_WORDS longs, lowest y first) of the blocks where a mob could spawn: air, with air
+     * above and a solid block below. Null until first needed (along with heights), and then kept up to date.
+     */
+    private long[] spawnCandidates;
+
+    /**
+     * @param chunkX the x coordinate of the chunk, measured in chunks.
+     */
+    public Chunk(int chunkX) { this.chunkX = chunkX; }
+
+    /**
+     * @param x the x coordinate of a block.
+     * @return the x coordinate of the chunk containing that block.
+     */
+    public static int chunkXOf(int x) { return x >> WIDTH_BITS; }
+
+    /**
+     * Works out the height and spawn candidates of every column (see heights and spawnCandidates).
+     */
+    private void buildColumns() {
+        heights = new short[WIDTH];
+        spawnCandidates = new long[WIDTH * SPAWN_WORDS];
+        for (int localX = 0; localX < WIDTH; localX++) {
+            heights[localX] = -1;
+            for (int y = 0; y < HEIGHT; y++) {
+                if (Blocks.isSolid(getBlock(localX, y))) {
+                    heights[localX] = (short) y;
+                }
+                if (isSpawnCandidate(localX, y)) {
+                    spawnCandidates[localX * SPAWN_WORDS + (y >> 6)] |= 1L << y;
+                }
+            }
+        }
+    }
+
+    /**
+     * Compresses the chunk (see above). Does nothing if it's already compressed.
+     */
+    public void compress() {
+        if (blocks == null) {
+            return;
+        }
+        sectionBits = new byte[SECTIONS];
+        sectionData = new long[SECTIONS][];
+        sectionPalettes = new byte[SECTIONS][];
+        int[] paletteIndex = new int[256];
+        byte[] palette = new byte[256];
+        for (int section = 0; section < SECTIONS; section++) {
+            // build the palette of this section
+            Arrays.fill(paletteIndex, -1);
+            int paletteSize = 0;
+            for (int localX = 0; localX < WIDTH; localX++) {
+                for (int y = section << SECTION_HEIGHT_BITS; y < (section + 1) << SECTION_HEIGHT_BITS; y++) {
+                    int paletteId = blocks[localX * HEIGHT + y] & 0xff;
+                    if (paletteIndex[paletteId] < 0) {
+                        paletteIndex[paletteId] = paletteSize;
+                        palette[paletteSize++] = (byte) paletteId;
+                    }
+                }
+            }
+            sectionPalettes[section] = Arrays.copyOf(palette, paletteSize);
+            int bits = 0;
+            while ((1 << bits) < paletteSize) {
+                bits = bits == 0 ? 1 : bits << 1;
+            }
+            sectionBits[section] = (byte) bits;
+            if (bits == 0) {
+                continue; // every block in the section is the same, so the palette says it all
+            }
+
+            // pack the blocks of this section
+            int perLong = 64 / bits;
+            long[] data = new long[(SECTION_BLOCKS + perLong - 1) / perLong];
+            for (int localX = 0; localX < WIDTH; localX++) {
+                for (int localY = 0; localY < SECTION_HEIGHT; localY++) {
+                    int i = localX * SECTION_HEIGHT + localY;
+                    long index = paletteIndex[blocks[localX * HEIGHT + (section << SECTION_HEIGHT_BITS) + localY] & 0xff];
+                    data[i / perLong] |= index << ((i % perLong) * bits);
+                }
+            }
+            sectionData[section] = data;
+        }
+        blocks = null;
+    }
+
+    /**
+     * Decompresses the chunk. Does nothing if it isn't compressed.
+     */
+    public void decompress() {
+        if (blocks != null) {
+            return;
+        }
+        byte[] decompressed = new byte[BYTES];
+        for (int localX = 0; localX < WIDTH; localX++) {
+            for (int y = 0; y < HEIGHT; y++) {
+                decompressed[localX * HEIGHT + y] = getCompressedBlock(localX, y);
+            }
+        }
+        blocks = decompressed;
+        sectionBits = null;
+        sectionData = null;
+        sectionPalettes = null;
+    }
+
+    /**
+     * @param localX the x coordinate of a column within this chunk.
+     * @param minY the lowest y coordinate to count from.
+     * @param maxY the highest y coordinate to count to.
+     * @return the number of spawn candidates (see spawnCandidates) in the column between the given heights.
+     */
+    public int countSpawnCandidates(int localX, int minY, int maxY) {
+        if (heights == null) {
+            buildColumns();
+        }
+        int count = 0;
+        for (int word = 0; word < SPAWN_WORDS; word++) {
+            count += Long.bitCount(spawnCandidates[localX * SPAWN_WORDS + word] & rangeMask(word, minY, maxY));
+        }
+        return count;
+    }
+
+    /**
+     * @param localX the x coordinate of the block within this chunk.
+     * @param y the y coordinate of the block.
+     * @return the palette id of the block.
+     */
+    public byte getBlock(int localX, int y) {
+        if (blocks != null) {
+            return blocks[localX * HEIGHT + y];
+        }
+        return getCompressedBlock(localX, y);
+    }
+    public int getChunkX() { return chunkX; }
+
+    /**
+     * @param localX the x coordinate of the block within this (compressed) chunk.
+     * @param y the y coordinate of the block.
+     * @return the palette id of the block.
+     */
+    private byte getCompressedBlock(int localX, int y) {
+        int section = y >> SECTION_HEIGHT_BITS;
+        int bits = sectionBits[section];
+        if (bits == 0) {
+            return sectionPalettes[section][0];
+        }
+        int perLong = 64 / bits;
+        int i = localX * SECTION_HEIGHT + (y & (SECTION_HEIGHT - 1));
+        int index = (int) (sectionData[section][i / perLong] >>> ((i % perLong) * bits)) & ((1 << bits) - 1);
+        return sectionPalettes[section][index];
+    }
+
+    /**
+     * @return an estimate of the number of bytes of heap used by this chunk (assuming 16 byte array headers).
+     */
+    public int getHeapBytes() {
+        int bytes = 32; // the chunk itself
+        if (blocks != null) {
+            return bytes + 16 + blocks.length;
+        }
+        bytes += 3 * (16 + 4 * SECTIONS); // the per-section arrays
+        for (int section = 0; section < SECTIONS; section++) {
+            bytes += 16 + sectionPalettes[section].length;
+            if (sectionData[section] != null) {
+                bytes += 16 + 8 * sectionData[section].length;
+            }
+        }
+        return bytes;
+    }
+    /**
+     * @param localX the x coordinate of a column within this chunk.
+     * @return the y coordinate of the highest solid block in the column (-1 if there isn't one).
+     */
+    public int getHeight(int localX) {
+        if (heights == null) {
+            buildColumns();
+        }
+        return heights[localX];
+    }
+    /**
+     * @return the x coordinate of the first (left-most) column of this chunk, measured in blocks.
+     */
+    public int getMinX() { return chunkX << WIDTH_BITS; }
+    /**
+     * @param localX the x coordinate of a column within this chunk.
+     * @param minY the lowest y coordinate to look from.
+     * @param maxY the highest y coordinate to look to.
+     * @param n which of the spawn candidates between the given heights to find (0 is the lowest).
+     * @return the y coordinate of the spawn candidate, or -1 if there are n or fewer between the given heights.
+     */
+    public int getSpawnCandidate(int localX, int minY, int maxY, int n) {
+        if (heights == null) {
+            buildColumns();
+        }
+        for (int word = 0; word < SPAWN_WORDS; word++) {
+            long candidates = spawnCandidates[localX * SPAWN_WORDS + word] & rangeMask(word, minY, maxY);
+            int count = Long.bitCount(candidates);
+            if (n < count) {
+                for (int i = 0; i < n; i++) {
+                    candidates &= candidates - 1; // clear the lowest candidate
+                }
+                return (word << 6) + Long.numberOfTrailingZeros(candidates);
+            }
+            n -= count;
+        }
+        return -1;
+    }
+    public boolean isCompressed() { return blocks == null; }
+    public boolean isDirty() { return dirty; }
+    public boolean isEdited() { return edited; }
+
+    /**
+     * @param localX the x coordinate of the block within this chunk.
+     * @param y the y coordinate of the block.
+     * @return true if a mob could spawn in the block (see spawnCandidates).
+     */
+    private boolean isSpawnCandidate(int localX, int y) {
+        return y >= 1 && getBlock(localX, y) == Blocks.AIR && (y + 1 == HEIGHT || getBlock(localX, y + 1) == Blocks.AIR)
+                && Blocks.isSolid(getBlock(localX, y - 1));
+    }
+
+    /**
+     * @param word which of a column's spawn candidate longs the mask is for.
+     * @param minY the lowest y coordinate in the range.
+     * @param maxY the highest y coordinate in the range.
+     * @return the bits of the long which are within the range.
+     */
+    private static long rangeMask(int word, int minY, int maxY) {
+        int low = Math.max(minY - (word << 6), 0);
+        int high = Math.min(maxY - (word << 6), 63);
+        if (low > high) {
+            return 0;
+        }
+        return (-1L << low) & (-1L >>> (63 - high));
+    }
+
+    /**
+     * Reads the blocks of this chunk from a buffer (as written by writeTo).
+     * @param buffer the buffer, positioned at the start of the chunk's data.
+     */
+    public void readFrom(ByteBuffer buffer) {
+        decompress();
+        buffer.get(blocks);
+        heights = null; // work them out again when next needed
+        spawnCandidates = null;
+    }
+
+    /**
+     * @param localX the x coordinate of the block within this chunk.
+     * @param y the y coordinate of the block.
+     * @param paletteId the palette id of the new block.
+     */
+    public void setBlock(int localX, int y, byte paletteId) {
+        decompress();
+        blocks[localX * HEIGHT + y] = paletteId;
+        if (heights != null) {
+            updateColumn(localX, y);
+        }
+    }
+    public void setDirty(boolean dirty) { this.dirty = dirty; }
+    public void setEdited(boolean edited) { this.edited = edited; }
+
+    /**
+     * Brings a column's height and spawn candidates up to date after one of its blocks has changed.
+     * @param localX the x coordinate of the column within this chunk.
+     * @param y the y coordinate of the block which changed.
+     */
+    private void updateColumn(int localX, int y) {
+        // whether a block is a spawn candidate depends on it, and the blocks above and below it
+        for (int candidateY = Math.max(0, y - 1); candidateY <= Math.min(HEIGHT - 1, y + 1); candidateY++) {
+            long bit = 1L << candidateY;
+            int word = localX * SPAWN_WORDS + (candidateY >> 6);
+            if (isSpawnCandidate(localX, candidateY)) {
+                spawnCandidates[word] |= bit;
+            } else {
+                spawnCandidates[word] &= ~bit;
+            }
+        }
+        if (Blocks.isSolid(getBlock(localX, y))) {
+            if (y > heights[localX]) {
+                heights[localX] = (short) y;
+            }
+        } else if (y == heights[localX]) {
+            // the highest block has gone, so look down for the next one
+            int height = y - 1;
+            while (height >= 0 && !Blocks.isSolid(getBlock(localX, height))) {
+                height--;
+            }
+            heights[localX] = (short) height;
+        }
+    }
+
+    /**
+     * Writes the blocks of this chunk to a buffer.
+     * @param buffer the buffer, positioned where the chunk's data should start.
+     */
+    public void writeTo(ByteBuffer buffer) {
+        if (blocks != null) {
+            buffer.put(blocks);
+        } else {
+            for (int localX = 0; localX < WIDTH; localX++) {
+                for (int y = 0; y < HEIGHT; y++) {
+                    buffer.put(getCompressedBlock(localX, y));
+                }
+            }
+        }
+    }
+}
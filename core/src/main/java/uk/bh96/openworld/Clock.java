@@ -0,0 +1,19 @@
+package uk.bh96.openworld;
+
+/**
+ * A source of time, so that whatever is driven by time (e.g. the fixed-rate simulation loop) can be driven by
+ * something other than the system clock, such as a benchmark or a replay.
+ */
+public interface Clock {
+    /**
+     * The system clock.
+     */
+    Clock SYSTEM = new Clock() {
+        public long nanoTime() { return System.nanoTime(); }
+    };
+
+    /**
+     * @return the current time, in nanoseconds (only meaningful relative to other times from the same clock).
+     */
+    long nanoTime();
+}
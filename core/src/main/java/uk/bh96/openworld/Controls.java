@@ -0,0 +1,113 @@
+package uk.bh96.openworld;
+
+import uk.bh96.openworld.blocks.Block;
+
+/**
+ * Turns touches on the screen into actions in the world: moving and jumping, destroying blocks and attacking mobs. The
+ * screen is described by its size and how big a block is drawn on it, so the same touches have the same effect whether
+ * they come from the screen or from a recording (see InputRecorder).
+ */
+public class Controls {
+    /**
+     * A finger touching (or moving on) the screen.
+     */
+    public static final int TOUCH = 0;
+    /**
+     * A finger leaving the screen.
+     */
+    public static final int RELEASE = 1;
+
+    /**
+     * The size of a block on the screen (in pixels).
+     */
+    private final float blockSize;
+    /**
+     * The player being controlled.
+     */
+    private final Player player;
+    /**
+     * The world that the player exists within.
+     */
+    private final World world;
+
+    /**
+     * @param world the world that the player exists within.
+     * @param player the player being controlled.
+     * @param blockSize the size of a block on the screen (in pixels).
+     */
+    public Controls(World world, Player player, float blockSize) {
+        this.world = world;
+        this.player = player;
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * Applies a touch or release.
+     * @param type TOUCH or RELEASE.
+     * @param x the x coordinate on the screen.
+     * @param y the y coordinate on the screen.
+     * @param viewWidth the width of the screen.
+     * @param viewHeight the height of the screen.
+     */
+    public void apply(int type, float x, float y, int viewWidth, int viewHeight) {
+        if (type == TOUCH) {
+            touch(x, y, viewWidth, viewHeight);
+        } else {
+            release(x, y, viewWidth);
+        }
+    }
+
+    /**
+     * Applies a finger leaving the screen.
+     * @param x the x coordinate on the screen.
+     * @param y the y coordinate on the screen.
+     * @param viewWidth the width of the screen.
+     */
+    public void release(float x, float y, int viewWidth) {
+        // player movement: left / right
+        if (x < viewWidth * 0.2 || x > viewWidth * 0.8) {
+            player.stopMoving();
+        }
+        world.stopDestroyingBlock();
+    }
+
+    /**
+     * Applies a finger touching (or moving on) the screen.
+     * @param x the x coordinate on the screen.
+     * @param y the y coordinate on the screen.
+     * @param viewWidth the width of the screen.
+     * @param viewHeight the height of the screen.
+     */
+    public void touch(float x, float y, int viewWidth, int viewHeight) {
+        // player movement: left / right
+        if (x < viewWidth * 0.15) {
+            GameLog.d("MovePlayer", "Start player left");
+            player.startMoving(Direction.LEFT);
+        } else if (x > viewWidth * 0.85) {
+            GameLog.d("MovePlayer", "Start player right");
+            player.startMoving(Direction.RIGHT);
+        } else {
+            GameLog.d("MovePlayer", "Player still");
+            player.stopMoving();
+        }
+
+        // player movement: jump
+        if (y < viewHeight * 0.15) {
+            GameLog.d("MovePlayer", "Player jump");
+            player.jump();
+        } else {
+            GameLog.d("MovePlayer", "Player no jump");
+        }
+
+        // destroying blocks & attacking mobs
+        float touchWorldX = ((x - viewWidth / 2) / blockSize) + player.getX();
+        float touchWorldY = ((viewHeight / 2 - y) / blockSize) + player.getY() + (player.getHeight() / Block.size) - 0.4f;
+        GameLog.d("TouchDetected", "Touch detected at world coords", touchWorldX, touchWorldY);
+        if (x > viewWidth * 0.25 && x < viewWidth * 0.75 && y > viewHeight * 0.25 && y < viewHeight * 0.75) {
+            int blockX = (int) Math.floor(touchWorldX);
+            int blockY = (int) Math.floor(touchWorldY);
+            world.destroyBlock(blockX, blockY);
+        }
+        world.attackMob(touchWorldX, touchWorldY);
+    }
+}
@@ -0,0 +1,447 @@
+package uk.bh96.openworld;
+
+import java.util.Arrays;
+
+import uk.bh96.openworld.blocks.Block;
+
+/**
+ * A flow field leading towards one target (e.g. the player), shared by every mob chasing that target: rather than each
+ * mob searching for its own path, one search from the target finds the best move from every reachable cell around it.
+ * Mobs can walk left or right, fall off edges, and jump up a single block (the most that a jump clears, see Lifeform).
+ * <p>
+ * The field covers every row of the world, and the columns within a fixed distance of the target. When the target moves
+ * to a new cell the field is searched again (from the cached terrain, so without touching the world). When a block
+ * changes, only the cells whose moves depend on that block, and those whose best path led through them, are searched
+ * again (see repair()).
+ */
+public class FlowField {
+    /**
+     * No move (the lifeform is at the target, or can't reach it from where it is).
+     */
+    public static final int NONE = 0;
+    /**
+     * Move left.
+     */
+    public static final int LEFT = 1;
+    /**
+     * Move right.
+     */
+    public static final int RIGHT = 2;
+    /**
+     * Jump (as well as moving left or right) - the next cell is a block higher.
+     */
+    public static final int JUMP = 4;
+    /**
+     * The distance of a cell which can't reach the target.
+     */
+    private static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    /**
+     * The number of columns in the field.
+     */
+    private final int columns;
+    /**
+     * For each cell, the number of moves from it to the target (UNREACHABLE if there's no way).
+     */
+    private final int[] distance;
+    /**
+     * The x coordinates of blocks which have changed since the field was last updated.
+     */
+    private int[] changedX = new int[8];
+    /**
+     * The y coordinates of blocks which have changed since the field was last updated.
+     */
+    private int[] changedY = new int[8];
+    /**
+     * The number of blocks which have changed since the field was last updated.
+     */
+    private int changedCount = 0;
+    /**
+     * How far (in blocks) either side of the target the field reaches.
+     */
+    private final int halfWidth;
+    /**
+     * The cells waiting to be searched, as a binary heap of (distance << 32 | cell), smallest first.
+     */
+    private long[] heap = new long[256];
+    /**
+     * The number of cells in the heap.
+     */
+    private int heapSize = 0;
+    /**
+     * For each cell, whether it's been invalidated during a repair.
+     */
+    private final boolean[] invalid;
+    /**
+     * The cells invalidated during a repair.
+     */
+    private final int[] invalidCells;
+    /**
+     * The x coordinate of the left-most column of the field (Integer.MIN_VALUE before the field is first built).
+     */
+    private int minX = Integer.MIN_VALUE;
+    /**
+     * For each cell, the next cell on the best path to the target (-1 if there isn't one).
+     */
+    private final int[] next;
+    /**
+     * The moves into (or out of) a cell, reused to avoid allocating.
+     */
+    private final int[] neighbours = new int[2 * (Chunk.HEIGHT + 1)];
+    /**
+     * How far (in blocks) the target can move from the centre of the field before the field is moved to follow it.
+     */
+    private final int recentreDistance;
+    /**
+     * For each cell, whether the block in it is solid (a copy of the terrain, so searching doesn't touch the world).
+     */
+    private final boolean[] solid;
+    /**
+     * The lifeform which the field leads towards.
+     */
+    private final Lifeform target;
+    /**
+     * The cell which the target was standing in when the field was last searched (-1 if it hasn't been).
+     */
+    private int targetCell = -1;
+    /**
+     * The world which the field covers.
+     */
+    private final World world;
+
+    /**
+     * @param world the world which the field covers.
+     * @param target the lifeform which the field leads towards.
+     * @param halfWidth how far (in blocks) either side of the target the field should reach. Every block within this
+     *                  distance (plus recentreDistance) of the target must be loaded.
+     * @param recentreDistance how far (in blocks) the target can move before the field is moved to follow it.
+     */
+    public FlowField(World world, Lifeform target, int halfWidth, int recentreDistance) {
+        this.world = world;
+        this.target = target;
+        this.halfWidth = halfWidth;
+        this.recentreDistance = recentreDistance;
+        columns = 2 * halfWidth + 1;
+        distance = new int[columns * Chunk.HEIGHT];
+        invalid = new boolean[columns * Chunk.HEIGHT];
+        invalidCells = new int[columns * Chunk.HEIGHT];
+        next = new int[columns * Chunk.HEIGHT];
+        solid = new boolean[columns * Chunk.HEIGHT];
+    }
+
+    /**
+     * Records that a block has changed, so that the field can be repaired on the next update.
+     * @param x the x coordinate of the block.
+     * @param y the y coordinate of the block.
+     */
+    public void blockChanged(int x, int y) {
+        if (minX == Integer.MIN_VALUE || x < minX || x >= minX + columns) {
+            return; // outside the field (it'll be read afresh if the field moves over it)
+        }
+        if (changedCount == changedX.length) {
+            changedX = Arrays.copyOf(changedX, changedCount * 2);
+            changedY = Arrays.copyOf(changedY, changedCount * 2);
+        }
+        changedX[changedCount] = x;
+        changedY[changedCount] = y;
+        changedCount++;
+    }
+
+    /**
+     * @param column a column of the field.
+     * @param y a row of the field.
+     * @return the cell.
+     */
+    private static int cellOf(int column, int y) { return column * Chunk.HEIGHT + y; }
+
+    /**
+     * @return the lifeform which the field leads towards.
+     */
+    public Lifeform getTarget() { return target; }
+
+    /**
+     * @param x the x coordinate of a lifeform.
+     * @param y the y coordinate of a lifeform.
+     * @return the move which the lifeform should make to get closer to the target: LEFT or RIGHT (possibly with JUMP),
+     * or NONE if it's at the target, isn't standing on anything, or can't reach the target.
+     */
+    public int getMove(float x, float y) {
+        int column = (int) Math.floor(x) - minX;
+        int row = (int) Math.floor(y);
+        if (minX == Integer.MIN_VALUE || column < 0 || column >= columns || row < 0 || row >= Chunk.HEIGHT) {
+            return NONE;
+        }
+        int cell = cellOf(column, row);
+        if (distance[cell] == UNREACHABLE || next[cell] < 0) {
+            return NONE;
+        }
+        int nextColumn = next[cell] / Chunk.HEIGHT;
+        int nextRow = next[cell] % Chunk.HEIGHT;
+        return (nextColumn < column ? LEFT : RIGHT) | (nextRow > row ? JUMP : NONE);
+    }
+
+    /**
+     * Removes the nearest cell from the heap.
+     * @return the cell and its distance, as (distance << 32 | cell).
+     */
+    private long heapPop() {
+        long top = heap[0];
+        long last = heap[--heapSize];
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= heapSize) {
+                break;
+            }
+            if (child + 1 < heapSize && heap[child + 1] < heap[child]) {
+                child++;
+            }
+            if (heap[child] >= last) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = last;
+        return top;
+    }
+
+    /**
+     * Adds a cell to the heap.
+     * @param cell the cell.
+     * @param cellDistance the distance of the cell from the target.
+     */
+    private void heapPush(int cell, int cellDistance) {
+        if (heapSize == heap.length) {
+            heap = Arrays.copyOf(heap, heapSize * 2);
+        }
+        long entry = ((long) cellDistance << 32) | cell;
+        int i = heapSize++;
+        while (i > 0 && heap[(i - 1) / 2] > entry) {
+            heap[i] = heap[(i - 1) / 2];
+            i = (i - 1) / 2;
+        }
+        heap[i] = entry;
+    }
+
+    /**
+     * @param column a column of the field.
+     * @param y a row.
+     * @return true if the cell is solid. Cells outside the field count as solid (so paths stay within it), cells below
+     * the world as solid, and cells above the world as air.
+     */
+    private boolean isSolid(int column, int y) {
+        if (column < 0 || column >= columns || y < 0) {
+            return true;
+        }
+        return y < Chunk.HEIGHT && solid[cellOf(column, y)];
+    }
+
+    /**
+     * @param column a column of the field.
+     * @param y a row.
+     * @return true if a lifeform could stand in the cell: it and the cell above are air, and the cell below is solid.
+     */
+    private boolean isStanding(int column, int y) {
+        return y >= 1 && y < Chunk.HEIGHT && !isSolid(column, y) && !isSolid(column, y + 1) && isSolid(column, y - 1);
+    }
+
+    /**
+     * Finds every cell which can reach a cell in one move.
+     * @param cell the cell.
+     * @return the number of cells found (they're in neighbours).
+     */
+    private int predecessors(int cell) {
+        int column = cell / Chunk.HEIGHT;
+        int y = cell % Chunk.HEIGHT;
+        int count = 0;
+        for (int from = column - 1; from <= column + 1; from += 2) {
+            if (from < 0 || from >= columns) {
+                continue;
+            }
+            // walking across from the same height, or stepping off a ledge above and falling down this column
+            for (int fromY = y; fromY < Chunk.HEIGHT && !isSolid(column, fromY); fromY++) {
+                if (!isSolid(column, fromY + 1) && isStanding(from, fromY)) {
+                    neighbours[count++] = cellOf(from, fromY);
+                }
+            }
+            // jumping up from a block below (with room above to jump)
+            if (isStanding(from, y - 1) && !isSolid(from, y + 1)) {
+                neighbours[count++] = cellOf(from, y - 1);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Reads the solidity of a block from the world into the field.
+     * @param column the column of the field which the block is in.
+     * @param y the y coordinate of the block.
+     */
+    private void readBlock(int column, int y) {
+        Block block = world.getBlock(minX + column, y);
+        solid[cellOf(column, y)] = block != null && block.isSolid();
+    }
+
+    /**
+     * Repairs the field after a block has changed (and been read into the field). Only the moves into and out of cells near the block can have
+     * changed, so those cells are invalidated, along with every cell whose best path led through an invalidated cell.
+     * The invalidated cells then take the best distance offered by their valid neighbours, and any improvement spreads
+     * out from there.
+     * @param x the x coordinate of the block.
+     * @param y the y coordinate of the block.
+     */
+    private void repair(int x, int y) {
+        int column = x - minX;
+        // a block affects whether the cells around it can be stood in or jumped from, and falls down its column
+        int invalidCount = 0;
+        for (int c = Math.max(0, column - 1); c <= Math.min(columns - 1, column + 1); c++) {
+            for (int row = Math.max(0, y - 2); row < Chunk.HEIGHT; row++) {
+                int cell = cellOf(c, row);
+                invalid[cell] = true;
+                invalidCells[invalidCount++] = cell;
+            }
+        }
+        for (int i = 0; i < invalidCount; i++) {
+            if (next[invalidCells[i]] < 0 && invalidCells[i] != targetCell) {
+                continue; // not on any path to the target, so no other cell's path can lead through it
+            }
+            int count = predecessors(invalidCells[i]);
+            for (int j = 0; j < count; j++) {
+                int cell = neighbours[j];
+                if (!invalid[cell] && next[cell] == invalidCells[i]) {
+                    invalid[cell] = true;
+                    invalidCells[invalidCount++] = cell;
+                }
+            }
+        }
+        heapSize = 0;
+        for (int i = 0; i < invalidCount; i++) {
+            distance[invalidCells[i]] = UNREACHABLE;
+            next[invalidCells[i]] = -1;
+        }
+        if (invalid[targetCell] && isStanding(targetCell / Chunk.HEIGHT, targetCell % Chunk.HEIGHT)) {
+            distance[targetCell] = 0;
+            heapPush(targetCell, 0);
+        }
+        for (int i = 0; i < invalidCount; i++) {
+            int cell = invalidCells[i];
+            if (!isStanding(cell / Chunk.HEIGHT, cell % Chunk.HEIGHT)) {
+                continue;
+            }
+            int count = successors(cell);
+            for (int j = 0; j < count; j++) {
+                int to = neighbours[j];
+                if (!invalid[to] && distance[to] != UNREACHABLE && distance[to] + 1 < distance[cell]) {
+                    distance[cell] = distance[to] + 1;
+                    next[cell] = to;
+                }
+            }
+            if (distance[cell] != UNREACHABLE) {
+                heapPush(cell, distance[cell]);
+            }
+        }
+        for (int i = 0; i < invalidCount; i++) {
+            invalid[invalidCells[i]] = false;
+        }
+        search();
+    }
+
+    /**
+     * Spreads distances out from the cells in the heap (Dijkstra's algorithm, run backwards from the target).
+     */
+    private void search() {
+        while (heapSize > 0) {
+            long entry = heapPop();
+            int cell = (int) entry;
+            int cellDistance = (int) (entry >>> 32);
+            if (cellDistance > distance[cell]) {
+                continue; // already reached by a shorter path
+            }
+            int count = predecessors(cell);
+            for (int i = 0; i < count; i++) {
+                int from = neighbours[i];
+                if (cellDistance + 1 < distance[from]) {
+                    distance[from] = cellDistance + 1;
+                    next[from] = cell;
+                    heapPush(from, cellDistance + 1);
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds every cell which a cell can reach in one move.
+     * @param cell the cell (which must be one that can be stood in).
+     * @return the number of cells found (they're in neighbours).
+     */
+    private int successors(int cell) {
+        int column = cell / Chunk.HEIGHT;
+        int y = cell % Chunk.HEIGHT;
+        int count = 0;
+        for (int to = column - 1; to <= column + 1; to += 2) {
+            if (!isSolid(to, y) && !isSolid(to, y + 1)) {
+                // walk across, and fall until landing on something
+                int landing = y;
+                while (!isSolid(to, landing - 1)) {
+                    landing--;
+                }
+                if (landing >= 1) {
+                    neighbours[count++] = cellOf(to, landing);
+                }
+            } else if (!isSolid(column, y + 2) && isStanding(to, y + 1)) {
+                // jump up a block
+                neighbours[count++] = cellOf(to, y + 1);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Brings the field up to date: moves it if the target has moved too far from its centre, repairs it around any
+     * blocks which have changed, and searches it again if the target has moved to a new cell. Should be called once
+     * per tick, before any lifeforms use the field.
+     */
+    public void update() {
+        int targetX = (int) Math.floor(target.getX());
+        int targetY = (int) Math.floor(target.getY());
+        boolean recentred = false;
+        if (minX == Integer.MIN_VALUE || Math.abs(targetX - (minX + halfWidth)) > recentreDistance) {
+            minX = targetX - halfWidth;
+            for (int column = 0; column < columns; column++) {
+                for (int y = 0; y < Chunk.HEIGHT; y++) {
+                    readBlock(column, y);
+                }
+            }
+            changedCount = 0;
+            recentred = true;
+        }
+        for (int i = 0; i < changedCount; i++) {
+            readBlock(changedX[i] - minX, changedY[i]);
+        }
+        // if the target is jumping or falling, aim for where it will land
+        int column = targetX - minX;
+        targetY = Math.max(0, Math.min(Chunk.HEIGHT - 1, targetY));
+        while (targetY > 0 && !isStanding(column, targetY)) {
+            targetY--;
+        }
+        int newTargetCell = cellOf(column, targetY);
+        if (recentred || newTargetCell != targetCell) {
+            targetCell = newTargetCell;
+            changedCount = 0;
+            Arrays.fill(distance, UNREACHABLE);
+            Arrays.fill(next, -1);
+            heapSize = 0;
+            if (isStanding(column, targetY)) {
+                distance[targetCell] = 0;
+                heapPush(targetCell, 0);
+            }
+            search();
+        } else {
+            for (int i = 0; i < changedCount; i++) {
+                repair(changedX[i], changedY[i]);
+            }
+            changedCount = 0;
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package uk.bh96.openworld;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Where the game sends its log messages. The simulation doesn't know what platform it's running on, so messages go to
+ * a Sink which is set by whatever is running it (e.g. the Android app sends them to logcat). Until a sink is set, errors
+ * go to standard error.
+ *
+ * Logging has to be cheap enough to leave in the hot paths, so:
+ * - debug messages are only built and sent to the sink if DEBUG is set, which is a static final (so when it's off, the
+ *   JIT removes the code behind it entirely);
+ * - values are passed as primitives (see the overloads of d()) rather than concatenated into the message, so nothing
+ *   is allocated unless the message is actually sent;
+ * - every debug message is also recorded, whether or not DEBUG is set, as a binary event (the time, the tag and
+ *   message - which are constants - and the values) in a small ring buffer. Recording doesn't allocate, and the most
+ *   recent events can be dumped to the sink after a crash (see installCrashHandler()).
+ */
+public final class GameLog {
+    /**
+     * Receives log messages.
+     */
+    public interface Sink {
+        /**
+         * @param tag identifies where the message came from.
+         * @param message the message.
+         */
+        void debug(String tag, String message);
+
+        /**
+         * @param tag identifies where the message came from.
+         * @param message the message.
+         * @param throwable the cause of the error (may be null).
+         */
+        void error(String tag, String message, Throwable throwable);
+    }
+
+    /**
+     * The system property which turns debug messages on (it must be set to "true" before GameLog is first used).
+     */
+    public static final String DEBUG_PROPERTY = "uk.bh96.openworld.log.debug";
+    /**
+     * Whether debug messages are sent to the sink (they are always recorded). Fixed when the class is loaded.
+     */
+    public static final boolean DEBUG = Boolean.getBoolean(DEBUG_PROPERTY);
+    /**
+     * The number of events kept for post-mortems (a power of two).
+     */
+    private static final int EVENTS = 256;
+    /**
+     * The kind of event which has no values.
+     */
+    private static final byte NO_VALUES = 0;
+    /**
+     * The kind of event which has one integer value.
+     */
+    private static final byte ONE_LONG = 1;
+    /**
+     * The kind of event which has two integer values.
+     */
+    private static final byte TWO_LONGS = 2;
+    /**
+     * The kind of event which has one decimal value.
+     */
+    private static final byte ONE_DOUBLE = 3;
+    /**
+     * The kind of event which has two decimal values.
+     */
+    private static final byte TWO_DOUBLES = 4;
+
+    /**
+     * The sink used until another is set.
+     */
+    private static final Sink DEFAULT = new Sink() {
+        public void debug(String tag, String message) { System.out.println(tag + ": " + message); }
+
+        public void error(String tag, String message, Throwable throwable) {
+            System.err.println(tag + ": " + message);
+            if (throwable != null) {
+                throwable.printStackTrace();
+            }
+        }
+    };
+
+    /**
+     * The number of events ever recorded (the next event goes in slot next % EVENTS).
+     */
+    private static final AtomicInteger next = new AtomicInteger();
+    /**
+     * For each recorded event, its kind (NO_VALUES, ONE_LONG...).
+     */
+    private static final byte[] kinds = new byte[EVENTS];
+    /**
+     * For each recorded event, its message.
+     */
+    private static final String[] messages = new String[EVENTS];
+    /**
+     * For each recorded event, its tag.
+     */
+    private static final String[] tags = new String[EVENTS];
+    /**
+     * For each recorded event, when it was recorded (see Clock).
+     */
+    private static final long[] times = new long[EVENTS];
+    /**
+     * For each recorded event, its first value (the raw bits, if it's a double).
+     */
+    private static final long[] firstValues = new long[EVENTS];
+    /**
+     * For each recorded event, its second value (the raw bits, if it's a double).
+     */
+    private static final long[] secondValues = new long[EVENTS];
+    /**
+     * Where messages are currently sent.
+     */
+    private static volatile Sink sink = DEFAULT;
+
+    private GameLog() { }
+
+    /**
+     * Logs a debug message.
+     * @param tag identifies where the message came from (should be a constant).
+     * @param message the message (should be a constant).
+     */
+    public static void d(String tag, String message) {
+        record(tag, message, NO_VALUES, 0, 0);
+        if (DEBUG) {
+            sink.debug(tag, message);
+        }
+    }
+
+    /**
+     * Logs a debug message about a value.
+     * @param tag identifies where the message came from (should be a constant).
+     * @param message the message (should be a constant), which the value is appended to.
+     * @param value the value.
+     */
+    public static void d(String tag, String message, long value) {
+        record(tag, message, ONE_LONG, value, 0);
+        if (DEBUG) {
+            sink.debug(tag, format(message, ONE_LONG, value, 0));
+        }
+    }
+
+    /**
+     * Logs a debug message about a pair of values (e.g. coordinates).
+     * @param tag identifies where the message came from (should be a constant).
+     * @param message the message (should be a constant), which the values are appended to.
+     * @param first the first value.
+     * @param second the second value.
+     */
+    public static void d(String tag, String message, long first, long second) {
+        record(tag, message, TWO_LONGS, first, second);
+        if (DEBUG) {
+            sink.debug(tag, format(message, TWO_LONGS, first, second));
+        }
+    }
+
+    /**
+     * Logs a debug message about a value.
+     * @param tag identifies where the message came from (should be a constant).
+     * @param message the message (should be a constant), which the value is appended to.
+     * @param value the value.
+     */
+    public static void d(String tag, String message, double value) {
+        long bits = Double.doubleToRawLongBits(value);
+        record(tag, message, ONE_DOUBLE, bits, 0);
+        if (DEBUG) {
+            sink.debug(tag, format(message, ONE_DOUBLE, bits, 0));
+        }
+    }
+
+    /**
+     * Logs a debug message about a pair of values (e.g. coordinates).
+     * @param tag identifies where the message came from (should be a constant).
+     * @param message the message (should be a constant), which the values are appended to.
+     * @param first the first value.
+     * @param second the second value.
+     */
+    public static void d(String tag, String message, double first, double second) {
+        long firstBits = Double.doubleToRawLongBits(first);
+        long secondBits = Double.doubleToRawLongBits(second);
+        record(tag, message, TWO_DOUBLES, firstBits, secondBits);
+        if (DEBUG) {
+            sink.debug(tag, format(message, TWO_DOUBLES, firstBits, secondBits));
+        }
+    }
+
+    /**
+     * Sends the most recently recorded events (oldest first) to the sink, as errors (e.g. after a crash). Each is shown
+     * with when it was recorded, relative to the last event.
+     */
+    public static void dump() {
+        int end = next.get();
+        int count = end >= 0 && end < EVENTS ? end : EVENTS; // (the count wraps after 2^31 events)
+        long last = times[(end - 1) & (EVENTS - 1)];
+        sink.error("GameLog", "The last " + count + " events:", null);
+        for (int i = end - count; i != end; i++) {
+            int slot = i & (EVENTS - 1);
+            // events may still be being recorded by other threads, so this is best effort
+            String message = format(messages[slot], kinds[slot], firstValues[slot], secondValues[slot]);
+            sink.error("GameLog", (times[slot] - last) / 1000 + "us " + tags[slot] + ": " + message, null);
+        }
+    }
+
+    /**
+     * Logs an error (errors are always sent to the sink).
+     * @param tag identifies where the message came from.
+     * @param message the message.
+     */
+    public static void e(String tag, String message) { sink.error(tag, message, null); }
+
+    /**
+     * Logs an error (errors are always sent to the sink).
+     * @param tag identifies where the message came from.
+     * @param message the message.
+     * @param throwable the cause of the error.
+     */
+    public static void e(String tag, String message, Throwable throwable) { sink.error(tag, message, throwable); }
+
+    /**
+     * @param message the message.
+     * @param kind the kind of event (NO_VALUES, ONE_LONG...).
+     * @param first the first value (the raw bits, if it's a double).
+     * @param second the second value (the raw bits, if it's a double).
+     * @return the message, with the values appended.
+     */
+    private static String format(String message, byte kind, long first, long second) {
+        switch (kind) {
+            case ONE_LONG:
+                return message + " " + first;
+            case TWO_LONGS:
+                return message + " (" + first + ", " + second + ")";
+            case ONE_DOUBLE:
+                return message + " " + Double.longBitsToDouble(first);
+            case TWO_DOUBLES:
+                return message + " (" + Double.longBitsToDouble(first) + ", " + Double.longBitsToDouble(second) + ")";
+            default:
+                return message;
+        }
+    }
+
+    /**
+     * Dumps the recent events (see dump()) whenever a thread dies of an uncaught exception, before passing the
+     * exception on to whichever handler was installed before.
+     */
+    public static void installCrashHandler() {
+        final Thread.UncaughtExceptionHandler previous = Thread.getDefaultUncaughtExceptionHandler();
+        Thread.setDefaultUncaughtExceptionHandler(new Thread.UncaughtExceptionHandler() {
+            public void uncaughtException(Thread thread, Throwable throwable) {
+                try {
+                    e("GameLog", "Uncaught exception in " + thread.getName(), throwable);
+                    dump();
+                } finally {
+                    if (previous != null) {
+                        previous.uncaughtException(thread, throwable);
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Records an event in the ring buffer (overwriting the oldest).
+     * @param tag identifies where the event came from.
+     * @param message the message.
+     * @param kind the kind of event (NO_VALUES, ONE_LONG...).
+     * @param first the first value (the raw bits, if it's a double).
+     * @param second the second value (the raw bits, if it's a double).
+     */
+    private static void record(String tag, String message, byte kind, long first, long second) {
+        int slot = next.getAndIncrement() & (EVENTS - 1);
+        times[slot] = Clock.SYSTEM.nanoTime();
+        tags[slot] = tag;
+        messages[slot] = message;
+        kinds[slot] = kind;
+        firstValues[slot] = first;
+        secondValues[slot] = second;
+    }
+
+    /**
+     * @param sink where to send messages from now on (null for the default).
+     */
+    public static void setSink(Sink sink) { GameLog.sink = sink == null ? DEFAULT : sink; }
+}
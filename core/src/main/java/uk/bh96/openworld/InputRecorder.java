@@ -0,0 +1,91 @@
+package uk.bh96.openworld;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Records a game as a compact binary log, so that it can be replayed exactly (see InputReplay). The simulation is
+ * deterministic given the world's seed and the touches applied at each tick, so that's all that's recorded:
+ *
+ * - a header: MAGIC, VERSION, the seed, then the size of the screen and of a block on it (so that touches mean the same
+ *   thing when they're replayed on another screen);
+ * - then each touch: the number of ticks since the previous one (as a varint: 7 bits per byte, low bits first, the top
+ *   bit set on all but the last byte - so it's usually one byte), its type (see Controls) and its coordinates.
+ *
+ * A touch takes 10 bytes, so a long session of play records to a few hundred kilobytes.
+ */
+public class InputRecorder implements Closeable {
+    /**
+     * The first four bytes of a recording ("OWIR").
+     */
+    public static final int MAGIC = 0x4f574952;
+    /**
+     * The version of the format.
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * The tick at which the previous touch was recorded.
+     */
+    private long lastTick = 0;
+    /**
+     * Where the recording is written.
+     */
+    private final DataOutputStream out;
+
+    /**
+     * Starts a recording, writing its header.
+     * @param out where to write the recording (closed when the recorder is).
+     * @param seed the seed the world was created with.
+     * @param viewWidth the width of the screen.
+     * @param viewHeight the height of the screen.
+     * @param blockSize the size of a block on the screen (in pixels).
+     * @throws IOException if the header can't be written.
+     */
+    public InputRecorder(OutputStream out, long seed, int viewWidth, int viewHeight, float blockSize) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(out));
+        this.out.writeInt(MAGIC);
+        this.out.writeByte(VERSION);
+        this.out.writeLong(seed);
+        this.out.writeInt(viewWidth);
+        this.out.writeInt(viewHeight);
+        this.out.writeFloat(blockSize);
+    }
+
+    /**
+     * Flushes and closes the recording.
+     * @throws IOException if it can't be written.
+     */
+    @Override
+    public void close() throws IOException { out.close(); }
+
+    /**
+     * Writes out whatever has been recorded so far (e.g. when the game is paused, in case it's never resumed).
+     * @throws IOException if it can't be written.
+     */
+    public void flush() throws IOException { out.flush(); }
+
+    /**
+     * Records a touch.
+     * @param tick the tick before which the touch was applied (ticks must never go backwards).
+     * @param type the type of touch (see Controls).
+     * @param x the x coordinate on the screen.
+     * @param y the y coordinate on the screen.
+     * @throws IOException if it can't be written.
+     */
+    public void record(long tick, int type, float x, float y) throws IOException {
+        long delta = tick - lastTick;
+        lastTick = tick;
+        while ((delta & ~0x7fL) != 0) {
+            out.writeByte((int) (delta & 0x7f) | 0x80);
+            delta >>>= 7;
+        }
+        out.writeByte((int) delta);
+        out.writeByte(type);
+        out.writeFloat(x);
+        out.writeFloat(y);
+    }
+}
@@ -0,0 +1,160 @@
+package uk.bh96.openworld;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * A recording of a game (see InputRecorder), read back into memory so that it can be replayed without touching the disk
+ * mid-game. Touches are taken in order, like from an InputQueue: peekTick() says when the next one is due.
+ */
+public class InputReplay {
+    /**
+     * The size of a block on the screen it was recorded on (in pixels).
+     */
+    private final float blockSize;
+    /**
+     * The number of touches.
+     */
+    private int count = 0;
+    /**
+     * The index of the next touch to be replayed.
+     */
+    private int next = 0;
+    /**
+     * The seed the world was created with.
+     */
+    private final long seed;
+    /**
+     * The tick before which each touch is applied.
+     */
+    private long[] ticks = new long[64];
+    /**
+     * The type of each touch (see Controls).
+     */
+    private byte[] types = new byte[64];
+    /**
+     * The height of the screen it was recorded on.
+     */
+    private final int viewHeight;
+    /**
+     * The width of the screen it was recorded on.
+     */
+    private final int viewWidth;
+    /**
+     * The x coordinate of each touch.
+     */
+    private float[] xs = new float[64];
+    /**
+     * The y coordinate of each touch.
+     */
+    private float[] ys = new float[64];
+
+    /**
+     * Reads a whole recording. A recording which was cut short (e.g. the game was killed mid-write) is read up to the
+     * last complete touch.
+     * @param in the recording (not closed).
+     * @throws IOException if it can't be read, or isn't a recording.
+     */
+    public InputReplay(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+        if (data.readInt() != InputRecorder.MAGIC) {
+            throw new IOException("Not a recording");
+        }
+        int version = data.readUnsignedByte();
+        if (version != InputRecorder.VERSION) {
+            throw new IOException("Unsupported recording version " + version);
+        }
+        seed = data.readLong();
+        viewWidth = data.readInt();
+        viewHeight = data.readInt();
+        blockSize = data.readFloat();
+        long tick = 0;
+        try {
+            while (true) {
+                long delta = 0;
+                int shift = 0;
+                int b;
+                do {
+                    b = data.readUnsignedByte();
+                    delta |= (long) (b & 0x7f) << shift;
+                    shift += 7;
+                } while ((b & 0x80) != 0);
+                byte type = data.readByte();
+                float x = data.readFloat();
+                float y = data.readFloat();
+                tick += delta;
+                add(tick, type, x, y);
+            }
+        } catch (EOFException e) {
+            // the end of the recording
+        }
+    }
+
+    /**
+     * Adds a touch to the end of the replay.
+     * @param tick the tick before which the touch is applied.
+     * @param type the type of touch (see Controls).
+     * @param x the x coordinate on the screen.
+     * @param y the y coordinate on the screen.
+     */
+    private void add(long tick, byte type, float x, float y) {
+        if (count == ticks.length) {
+            int capacity = count * 2;
+            ticks = Arrays.copyOf(ticks, capacity);
+            types = Arrays.copyOf(types, capacity);
+            xs = Arrays.copyOf(xs, capacity);
+            ys = Arrays.copyOf(ys, capacity);
+        }
+        ticks[count] = tick;
+        types[count] = type;
+        xs[count] = x;
+        ys[count] = y;
+        count++;
+    }
+
+    public float getBlockSize() { return blockSize; }
+    public long getSeed() { return seed; }
+    public int getViewHeight() { return viewHeight; }
+    public int getViewWidth() { return viewWidth; }
+
+    /**
+     * @return the tick after the last touch (Long.MIN_VALUE if there aren't any).
+     */
+    public long getLastTick() { return count == 0 ? Long.MIN_VALUE : ticks[count - 1]; }
+
+    /**
+     * @return true if there are touches which haven't been replayed yet.
+     */
+    public boolean hasNext() { return next < count; }
+
+    /**
+     * @return the tick before which the next touch is applied. Only valid if hasNext().
+     */
+    public long peekTick() { return ticks[next]; }
+    /**
+     * @return the type of the next touch (see Controls). Only valid if hasNext().
+     */
+    public int peekType() { return types[next]; }
+    /**
+     * @return the x coordinate of the next touch. Only valid if hasNext().
+     */
+    public float peekX() { return xs[next]; }
+    /**
+     * @return the y coordinate of the next touch. Only valid if hasNext().
+     */
+    public float peekY() { return ys[next]; }
+
+    /**
+     * Moves on to the next touch, after peekTick/peekType/peekX/peekY.
+     */
+    public void pop() { next++; }
+
+    /**
+     * Goes back to the first touch, to replay the recording again.
+     */
+    public void rewind() { next = 0; }
+}
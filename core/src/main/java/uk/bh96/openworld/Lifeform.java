@@ -0,0 +1,372 @@
+package uk.bh96.openworld;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import uk.bh96.openworld.blocks.Block;
+import uk.bh96.openworld.blocks.Lava;
+
+/**
+ * This class models a basic lifeform, which can move, jump (and fall under gravity), and take damage.
+ */
+public abstract class Lifeform extends Entity {
+    /**
+     * How often (in ticks) the lifeform moves a step and animates. (Gravity is applied every tick.)
+     */
+    static final int MOVEMENT_TICKS = 3;
+    /**
+     * How often (in ticks) the lifeform regains a point of health, while it's hurt (the equivalent of 2% health per
+     * second).
+     */
+    static final int REGENERATION_TICKS = 15;
+    /**
+     * How far below its feet the lifeform looks for the ground (in blocks).
+     */
+    static final float GROUND_PROBE = 0.01f;
+    /**
+     * The latest contact between the lifeform and the terrain (reused, to avoid allocating).
+     */
+    private final TileCollider.Contact contact = new TileCollider.Contact();
+    /**
+     * The animation stage of the bitmap.
+     */
+    private byte bitmapStage = 0;
+    /**
+     * The direction that the lifeform is facing.
+     */
+    protected Direction direction = Direction.LEFT;
+    /**
+     * The health of the lifeform.
+     */
+    private double health;
+    /**
+     * Whether the lifeform is moving.
+     */
+    private boolean moving = false;
+    /**
+     * The tick at which the lifeform regains its next point of health (-1 if it isn't hurt).
+     */
+    private long nextRegenerationTick = -1;
+    /**
+     * The tick at which the lifeform moves its next step (-1 if it isn't moving).
+     */
+    private long nextStepTick = -1;
+    /**
+     * Regains a point of health, every REGENERATION_TICKS while the lifeform is hurt.
+     */
+    private final Scheduler.Task regeneration = new Scheduler.Task(Scheduler.REGENERATION) {
+        public void run(long tick, long argument) { regenerate(tick); }
+    };
+    /**
+     * Moves a step, every MOVEMENT_TICKS while the lifeform is moving.
+     */
+    private final Scheduler.Task step = new Scheduler.Task(Scheduler.MOVEMENT) {
+        public void run(long tick, long argument) { step(tick); }
+    };
+    /**
+     * If the lifeform is falling, whether the lifeform should stop when it lands on solid ground.
+     */
+    private boolean stopWhenOnSolidGround = false;
+    /**
+     * Whether the lifeform was touching lava as of the last update (when it doesn't regenerate).
+     */
+    private boolean touchingLava = false;
+    /**
+     * The world that the lifeform exists within.
+     */
+    private World world;
+    /**
+     * The x coordinate of the lifeform.
+     */
+    private float x;
+    /**
+     * The x coordinate of the lifeform before the last update (used to interpolate drawing between updates).
+     */
+    private float previousX;
+    /**
+     * The y coordinate of the lifeform.
+     */
+    private float y;
+    /**
+     * The y coordinate of the lifeform before the last update (used to interpolate drawing between updates).
+     */
+    private float previousY;
+    /**
+     * The vertical speed (jumping and falling) of the lifeform.
+     */
+    private float ySpeed;
+
+    /**
+     * @param world the world that the lifeform exists within.
+     */
+    protected Lifeform(World world) { this.world = world; }
+
+    /**
+     * @param amount the amount to damage the lifeform by.
+     */
+    public void damage(double amount) {
+        health -= amount;
+        scheduleRegeneration();
+    }
+    protected byte getBitmapStage() { return bitmapStage; }
+    public double getHealth() { return health; }
+    /**
+     * @return the height of the bitmap representing the lifeform.
+     */
+    public abstract int getHeight();
+    /**
+     * @return the speed that the lifeform moves at (distance per tick - norminally every 0.1 seconds).
+     */
+    protected abstract float getSpeed();
+    /**
+     * @return the width of the bitmap representing the lifeform.
+     */
+    public abstract int getWidth();
+    public float getX() { return x; }
+    /**
+     * @param interpolation how far (0-1) between the last update and the next one to interpolate.
+     * @return the x coordinate of the lifeform, interpolated between the last two updates.
+     */
+    public float getInterpolatedX(float interpolation) { return previousX + (x - previousX) * interpolation; }
+    /**
+     * @return the position of the left foot of the lifeform.
+     */
+    private float getXLeftFoot() { return x - ((getWidth() / (float) Block.size) * 0.4f); }
+    /**
+     * @return the position of the right foot of the lifeform.
+     */
+    private float getXRightFoot() {
+        return x + ((getWidth() / (float) Block.size) * 0.4f);
+    }
+    public float getY() { return y; }
+    /**
+     * @param interpolation how far (0-1) between the last update and the next one to interpolate.
+     * @return the y coordinate of the lifeform, interpolated between the last two updates.
+     */
+    public float getInterpolatedY(float interpolation) { return previousY + (y - previousY) * interpolation; }
+
+    /**
+     * Causes the lifeform to jump.
+     * @return true if the lifeform jumped as a result of calling jump(). False if it didn't jump (e.g. because it's falling or jumping already).
+     */
+    protected boolean jump() {
+        if (ySpeed == 0) { // jump if we're not falling or already jumping
+            ySpeed = 0.4f;
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    /**
+     * @return the height of the lifeform, in blocks.
+     */
+    private float getHeightInBlocks() { return getHeight() / (float) Block.size; }
+
+    /**
+     * @return true if the block beneath the feet of the lifeform is "solid", false otherwise.
+     */
+    private boolean onSolidGround() {
+        return world.getCollider().sweep(getXLeftFoot(), y, getXRightFoot(), y + getHeightInBlocks(), 0, -GROUND_PROBE, contact);
+    }
+
+    /**
+     * Reads back the state written by writeState() (see SessionSnapshot).
+     * @param in where to read the state from.
+     * @throws IOException if it can't be read.
+     */
+    void readState(DataInput in) throws IOException {
+        x = in.readFloat();
+        y = in.readFloat();
+        previousX = in.readFloat();
+        previousY = in.readFloat();
+        ySpeed = in.readFloat();
+        health = in.readDouble();
+        nextStepTick = in.readLong();
+        nextRegenerationTick = in.readLong();
+        bitmapStage = in.readByte();
+        direction = in.readBoolean() ? Direction.RIGHT : Direction.LEFT;
+        moving = in.readBoolean();
+        stopWhenOnSolidGround = in.readBoolean();
+        // the world's scheduler has been reset, so schedule whatever was pending again
+        if (nextStepTick >= 0) {
+            world.getScheduler().schedule(step, nextStepTick, 0);
+        }
+        if (nextRegenerationTick >= 0) {
+            world.getScheduler().schedule(regeneration, nextRegenerationTick, 0);
+        }
+    }
+
+    /**
+     * Regains a point of health (unless touching lava), if it's due to.
+     * @param tick the current tick.
+     */
+    private void regenerate(long tick) {
+        if (tick != nextRegenerationTick) {
+            return; // (it's been rescheduled since)
+        }
+        nextRegenerationTick = -1;
+        if (!touchingLava) {
+            health = Math.min(100, health + 1);
+        }
+        scheduleRegeneration(); // if still hurt
+    }
+
+    /**
+     * Schedules the lifeform's next point of health, if it's hurt and one isn't scheduled already.
+     */
+    private void scheduleRegeneration() {
+        if (health < 100 && nextRegenerationTick < 0) {
+            Scheduler scheduler = world.getScheduler();
+            nextRegenerationTick = scheduler.getTick() + REGENERATION_TICKS;
+            scheduler.schedule(regeneration, nextRegenerationTick, 0);
+        }
+    }
+
+    protected void setHealth(float health) {
+        this.health = health;
+        scheduleRegeneration();
+    }
+    /**
+     * Moves the lifeform instantly (without interpolating from where it was).
+     * @param x the new x coordinate.
+     */
+    protected void setX(float x) { this.x = x; this.previousX = x; }
+    /**
+     * Moves the lifeform instantly (without interpolating from where it was).
+     * @param y the new y coordinate.
+     */
+    protected void setY(float y) { this.y = y; this.previousY = y; }
+
+    /**
+     * Causes the lifeform to start moving in the direction specified.
+     * @param newDirection the direction to move in.
+     * @return true if the lifeform is now moving. False otherwise (e.g. because the lifeform is currently falling / jumping).
+     */
+    protected boolean startMoving(Direction newDirection) {
+        if (this.onSolidGround()) {
+            moving = true;
+            direction = newDirection;
+            if (nextStepTick < 0) {
+                Scheduler scheduler = world.getScheduler();
+                nextStepTick = scheduler.getTick() + MOVEMENT_TICKS;
+                scheduler.schedule(step, nextStepTick, 0);
+            }
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    /**
+     * Stops the lifeform from moving - when it lands, if it's jumping / falling.
+     */
+    protected void stopMoving() {
+        bitmapStage = 0;
+        if (this.onSolidGround()) {
+            moving = false;
+        } else {
+            stopWhenOnSolidGround = true;
+        }
+    }
+
+    /**
+     * Writes everything about the lifeform which changes as it's updated (see SessionSnapshot).
+     * @param out where to write the state.
+     * @throws IOException if it can't be written.
+     */
+    void writeState(DataOutput out) throws IOException {
+        out.writeFloat(x);
+        out.writeFloat(y);
+        out.writeFloat(previousX);
+        out.writeFloat(previousY);
+        out.writeFloat(ySpeed);
+        out.writeDouble(health);
+        out.writeLong(nextStepTick);
+        out.writeLong(nextRegenerationTick);
+        out.writeByte(bitmapStage);
+        out.writeBoolean(direction == Direction.RIGHT);
+        out.writeBoolean(moving);
+        out.writeBoolean(stopWhenOnSolidGround);
+    }
+
+    /**
+     * Moves the lifeform a step left or right, if possible, if it's due to (and schedules the next, if it's still
+     * moving).
+     * @param tick the current tick.
+     */
+    private void step(long tick) {
+        if (tick != nextStepTick) {
+            return; // (it's been rescheduled since)
+        }
+        if (!moving) {
+            nextStepTick = -1; // stop, until the lifeform starts moving again
+            return;
+        }
+        if (!stopWhenOnSolidGround) {
+            bitmapStage++;
+        }
+        float distance = direction == Direction.LEFT ? -getSpeed() : getSpeed();
+        // move as far as we can - right up to a wall, if there is one
+        world.getCollider().sweep(getXLeftFoot(), y, getXRightFoot(), y + getHeightInBlocks(), distance, 0, contact);
+        x += distance * contact.getTime();
+        nextStepTick = tick + MOVEMENT_TICKS;
+        world.getScheduler().schedule(this.step, nextStepTick, 0);
+    }
+
+    /**
+     * Updates the state of the lifeform (its steps, and regenerating health, are scheduled separately).
+     * @param secondsElapsed the number of seconds (or part thereof) that have elapsed since the last update.
+     */
+    public void update(float secondsElapsed) {
+        previousX = x;
+        previousY = y;
+        updateDamage(secondsElapsed);
+        updateGravity();
+    }
+
+    /**
+     * Causes the lifeform to take damage.
+     * @param secondsElapsed the number of seconds (or part thereof) that have elapsed since the last update.
+     */
+    private void updateDamage(float secondsElapsed) {
+        // the four blocks the feet and body overlap, checked directly (this runs every tick, so it doesn't allocate)
+        int left = (int) Math.floor(getXLeftFoot());
+        int right = (int) Math.floor(getXRightFoot());
+        int bottom = (int) Math.floor(y);
+        int top = (int) Math.floor(y + 1);
+        touchingLava = world.getBlock(left, bottom) instanceof Lava || world.getBlock(right, bottom) instanceof Lava
+                || world.getBlock(left, top) instanceof Lava || world.getBlock(right, top) instanceof Lava;
+        if (touchingLava) {
+            health = Math.max(0, health - 200 * secondsElapsed);
+            scheduleRegeneration();
+        }
+    }
+
+    /**
+     * Causes the lifeform to be affected by gravity / fall.
+     */
+    private void updateGravity() {
+        // sweep the whole step, so that even at full speed we can't fall through a floor (or jump through a ceiling)
+        if (ySpeed != 0 && world.getCollider().sweep(getXLeftFoot(), y, getXRightFoot(), y + getHeightInBlocks(), 0, ySpeed, contact)) {
+            if (contact.getNormal() == TileCollider.NORMAL_UP) {
+                y = contact.getTileY() + 1; // we've just landed
+            } else {
+                y += ySpeed * contact.getTime(); // we've hit our head on something
+            }
+            ySpeed = 0;
+        } else {
+            y += ySpeed;
+        }
+        if (ySpeed <= 0 && this.onSolidGround()) {
+            ySpeed = 0;
+            if (stopWhenOnSolidGround) {
+                this.stopMoving();
+                stopWhenOnSolidGround = false;
+            }
+        } else if (ySpeed > -2) {
+            ySpeed -= 0.08;
+        }
+    }
+}
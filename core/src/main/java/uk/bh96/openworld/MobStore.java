@@ -0,0 +1,673 @@
+package uk.bh96.openworld;
+
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+import uk.bh96.openworld.blocks.Block;
+import uk.bh96.openworld.blocks.Lava;
+import uk.bh96.openworld.mobs.Mobs;
+
+/**
+ * Holds every mob in a world as a row across parallel arrays (one array per field), rather than as an object per mob,
+ * and updates them a system at a time (thinking, damage, movement, gravity...) with a tight loop over those arrays.
+ * This keeps each system's data packed together in memory, and the sweeps through the terrain are batched (see
+ * TileCollider.sweepAll). Mobs are numbered 0 to size()-1, and a removed mob is replaced by the last one (so numbers
+ * change when mobs are removed, and shouldn't be kept between updates). Mobs behave the same as any other lifeform
+ * (see Lifeform), except that they never stop moving. As every mob is always moving (and numbers change), each mob's
+ * next step is kept as a tick in an array and checked as the mobs are swept, rather than scheduled as a task; the mobs
+ * regenerate health together, scheduled (see Scheduler) while any of them is hurt.
+ */
+public class MobStore {
+    /**
+     * Flag: the mob is moving.
+     */
+    private static final byte MOVING = 1;
+    /**
+     * Flag: the mob is standing on solid ground (as of the last time gravity was applied).
+     */
+    private static final byte ON_GROUND = 2;
+    /**
+     * Flag: the mob is facing right (rather than left).
+     */
+    private static final byte FACING_RIGHT = 4;
+    /**
+     * Flag: the mob is touching lava (as of the last update), so doesn't regenerate.
+     */
+    private static final byte IN_LAVA = 8;
+    /**
+     * The largest width (or height) of any mob, in blocks - how far from a point a mob's position can be while the mob
+     * still covers it.
+     */
+    private static final float MAX_MOB_SIZE = 2;
+    /**
+     * The furthest mobs are pushed apart per tick, in blocks (so that they drift apart, rather than jumping).
+     */
+    private static final float MAX_SEPARATION_PER_TICK = 0.05f;
+    /**
+     * Every type of mob (cached, as values() copies the array each time).
+     */
+    private static final Mobs[] TYPES = Mobs.values();
+
+    /**
+     * The sweeps (and their results) of the current batch, reused between batches: the box (left, bottom, right, top)
+     * and move (x, y) of each sweep, and when (and against which face) it hit something.
+     */
+    private float[] batchMinX, batchMinY, batchMaxX, batchMaxY, batchDX, batchDY, batchTimes;
+    /**
+     * The face each sweep in the current batch hit (see batchMinX).
+     */
+    private byte[] batchNormals;
+    /**
+     * The mob that each sweep in the current batch is for (see batchMinX).
+     */
+    private int[] batchMobs;
+    /**
+     * For each mob, its animation stage.
+     */
+    private byte[] bitmapStage;
+    /**
+     * The number of mobs.
+     */
+    private int count = 0;
+    /**
+     * Used while sweeping mobs one at a time (to avoid allocating).
+     */
+    private final TileCollider.Contact contact = new TileCollider.Contact();
+    /**
+     * For each mob, its flags (MOVING, ON_GROUND, FACING_RIGHT, IN_LAVA).
+     */
+    private byte[] flags;
+    /**
+     * For each type of mob, half the width of its feet (mobs stand on the middle 80% of their width), in blocks.
+     */
+    private final float[] footWidth = new float[TYPES.length];
+    /**
+     * Indexes the mobs by position, so that finding the mobs near a point doesn't mean looking at them all.
+     */
+    private final SpatialGrid grid = new SpatialGrid();
+    /**
+     * For each mob, its health.
+     */
+    private float[] health;
+    /**
+     * For each type of mob, its height in blocks.
+     */
+    private final float[] heightInBlocks = new float[TYPES.length];
+    /**
+     * The results of the latest grid query (reused, to avoid allocating).
+     */
+    private int[] nearby;
+    /**
+     * The tick at which the mobs next regain a point of health (-1 if none of them are hurt).
+     */
+    private long nextRegenerationTick = -1;
+    /**
+     * For each mob, the tick at which it moves its next step.
+     */
+    private long[] nextStepTick;
+    /**
+     * Every mob, sorted by row and then by x coordinate (as of the last separation), so that the mobs either side of a
+     * mob are its nearest neighbours. Mobs barely move between ticks, so this is kept rather than rebuilt, and
+     * re-sorting it is nearly free.
+     */
+    private int[] order;
+    /**
+     * For each mob, its x coordinate before the last update (used to interpolate drawing between updates).
+     */
+    private float[] previousX;
+    /**
+     * For each mob, its y coordinate before the last update (used to interpolate drawing between updates).
+     */
+    private float[] previousY;
+    /**
+     * For each mob, its position in order.
+     */
+    private int[] rank;
+    /**
+     * Regains a point of health for every hurt mob, every REGENERATION_TICKS while any mob is hurt.
+     */
+    private final Scheduler.Task regeneration = new Scheduler.Task(Scheduler.REGENERATION) {
+        public void run(long tick, long argument) { regenerate(tick); }
+    };
+    /**
+     * For each mob, its type (as an ordinal of Mobs).
+     */
+    private byte[] type;
+    /**
+     * The world that the mobs exist within.
+     */
+    private final World world;
+    /**
+     * For each mob, its x coordinate.
+     */
+    private float[] x;
+    /**
+     * For each mob, its y coordinate.
+     */
+    private float[] y;
+    /**
+     * For each mob, its vertical speed (jumping and falling).
+     */
+    private float[] ySpeed;
+
+    /**
+     * @param world the world that the mobs exist within.
+     */
+    public MobStore(World world) {
+        this.world = world;
+        for (Mobs mobType : TYPES) {
+            footWidth[mobType.ordinal()] = (mobType.getWidth() / (float) Block.size) * 0.4f;
+            heightInBlocks[mobType.ordinal()] = mobType.getHeight() / (float) Block.size;
+        }
+        allocate(64);
+    }
+
+    /**
+     * Adds a mob to the world.
+     * @param mobType the type of mob to add.
+     * @param x the x position that the mob spawns at.
+     * @param y the y position that the mob spawns at.
+     * @return the number of the new mob.
+     */
+    public int add(Mobs mobType, float x, float y) {
+        if (count == this.x.length) {
+            allocate(count * 2);
+        }
+        int mob = count++;
+        type[mob] = (byte) mobType.ordinal();
+        this.x[mob] = x;
+        this.y[mob] = y;
+        previousX[mob] = x;
+        previousY[mob] = y;
+        ySpeed[mob] = 0;
+        health[mob] = mobType.getHealth();
+        nextStepTick[mob] = world.getScheduler().getTick() + Lifeform.MOVEMENT_TICKS;
+        bitmapStage[mob] = 0;
+        flags[mob] = 0;
+        order[mob] = mob; // anywhere will do, as it's sorted before it's used
+        rank[mob] = mob;
+        grid.insert(mob, x, y);
+        return mob;
+    }
+
+    /**
+     * (Re)allocates every array, keeping the mobs already in them.
+     * @param capacity the number of mobs to make room for.
+     */
+    private void allocate(int capacity) {
+        type = type == null ? new byte[capacity] : Arrays.copyOf(type, capacity);
+        x = x == null ? new float[capacity] : Arrays.copyOf(x, capacity);
+        y = y == null ? new float[capacity] : Arrays.copyOf(y, capacity);
+        previousX = previousX == null ? new float[capacity] : Arrays.copyOf(previousX, capacity);
+        previousY = previousY == null ? new float[capacity] : Arrays.copyOf(previousY, capacity);
+        ySpeed = ySpeed == null ? new float[capacity] : Arrays.copyOf(ySpeed, capacity);
+        health = health == null ? new float[capacity] : Arrays.copyOf(health, capacity);
+        nextStepTick = nextStepTick == null ? new long[capacity] : Arrays.copyOf(nextStepTick, capacity);
+        bitmapStage = bitmapStage == null ? new byte[capacity] : Arrays.copyOf(bitmapStage, capacity);
+        flags = flags == null ? new byte[capacity] : Arrays.copyOf(flags, capacity);
+        order = order == null ? new int[capacity] : Arrays.copyOf(order, capacity);
+        rank = rank == null ? new int[capacity] : Arrays.copyOf(rank, capacity);
+        // the scratch arrays hold nothing between updates, so they can just be replaced
+        batchMinX = new float[capacity];
+        batchMinY = new float[capacity];
+        batchMaxX = new float[capacity];
+        batchMaxY = new float[capacity];
+        batchDX = new float[capacity];
+        batchDY = new float[capacity];
+        batchTimes = new float[capacity];
+        batchNormals = new byte[capacity];
+        batchMobs = new int[capacity];
+        nearby = new int[capacity];
+    }
+
+    /**
+     * Adds a mob's sweep to the current batch.
+     * @param slot the position in the batch.
+     * @param mob the mob to sweep.
+     * @param dx how far the mob is moving horizontally.
+     * @param dy how far the mob is moving vertically.
+     */
+    private void batch(int slot, int mob, float dx, float dy) {
+        batchMobs[slot] = mob;
+        batchMinX[slot] = x[mob] - footWidth[type[mob]];
+        batchMaxX[slot] = x[mob] + footWidth[type[mob]];
+        batchMinY[slot] = y[mob];
+        batchMaxY[slot] = y[mob] + heightInBlocks[type[mob]];
+        batchDX[slot] = dx;
+        batchDY[slot] = dy;
+    }
+
+    /**
+     * Sweeps the current batch through the terrain.
+     * @param size the number of sweeps in the batch.
+     */
+    private void sweepBatch(int size) {
+        world.getCollider().sweepAll(batchMinX, batchMinY, batchMaxX, batchMaxY, batchDX, batchDY, size, batchTimes, batchNormals, contact);
+    }
+
+    /**
+     * Copies the position of every mob, before and after the last update (e.g. so that they can be drawn).
+     * @param x where to put the x coordinate of each mob (must be at least size() long).
+     * @param y where to put the y coordinate of each mob (must be at least size() long).
+     * @param previousX where to put the x coordinate of each mob before the last update (must be at least size() long).
+     * @param previousY where to put the y coordinate of each mob before the last update (must be at least size() long).
+     */
+    public void copyPositions(float[] x, float[] y, float[] previousX, float[] previousY) {
+        System.arraycopy(this.x, 0, x, 0, count);
+        System.arraycopy(this.y, 0, y, 0, count);
+        System.arraycopy(this.previousX, 0, previousX, 0, count);
+        System.arraycopy(this.previousY, 0, previousY, 0, count);
+    }
+
+    /**
+     * Damages every mob close to the given coordinates (e.g. where the player attacked).
+     * @param x the x coordinate to attack.
+     * @param y the y coordinate to attack.
+     * @param amount the amount to damage each mob by.
+     * @return the number of mobs damaged.
+     */
+    public int damageAt(float x, float y, float amount) {
+        int found = grid.queryBox(x - MAX_MOB_SIZE, y - MAX_MOB_SIZE, x + MAX_MOB_SIZE, y + MAX_MOB_SIZE, this.x, this.y, nearby);
+        int damaged = 0;
+        for (int i = 0; i < found; i++) {
+            int mob = nearby[i];
+            Mobs mobType = TYPES[type[mob]];
+            boolean inXRange = Math.abs(this.x[mob] - x) < (mobType.getWidth() * 1.2) / (2 * Block.size);
+            boolean inYRange = Math.abs(this.y[mob] - y) < (mobType.getHeight() * 1.2) / (2 * Block.size);
+            if (inXRange && inYRange) {
+                health[mob] -= amount;
+                damaged++;
+                GameLog.d("MobAttacked", "Mob damaged! New health:", health[mob]);
+            }
+        }
+        if (damaged > 0) {
+            scheduleRegeneration();
+        }
+        return damaged;
+    }
+
+    /**
+     * @param x the x coordinate of the centre of the circle.
+     * @param y the y coordinate of the centre of the circle.
+     * @param radius the radius of the circle.
+     * @return the number of mobs within the circle.
+     */
+    public int countNear(float x, float y, float radius) { return grid.queryRadius(x, y, radius, this.x, this.y, nearby); }
+
+    /**
+     * @param mob the number of a mob.
+     * @return the correct bitmap to display the mob with in order for smooth animation.
+     */
+    public int getBitmap(int mob) { return TYPES[type[mob]].getBitmap((flags[mob] & FACING_RIGHT) != 0, bitmapStage[mob]); }
+    public float getHealth(int mob) { return health[mob]; }
+    int getOrdered(int position) { return order[position]; } // (order and rank are only exposed to be tested)
+    int getRank(int mob) { return rank[mob]; }
+    public Mobs getType(int mob) { return TYPES[type[mob]]; }
+    public float getX(int mob) { return x[mob]; }
+    public float getY(int mob) { return y[mob]; }
+
+    /**
+     * Pushes a mob sideways (e.g. away from another mob), unless the way is blocked.
+     * @param mob the mob to push.
+     * @param distance the distance to push the mob (negative is to the left).
+     * @return true if the mob was pushed, false if the way is blocked.
+     */
+    private boolean push(int mob, float distance) {
+        float foot = footWidth[type[mob]];
+        if (world.getCollider().sweep(x[mob] - foot, y[mob], x[mob] + foot, y[mob] + heightInBlocks[type[mob]], distance, 0, contact)) {
+            return false;
+        }
+        x[mob] += distance;
+        grid.moved(mob, x[mob], y[mob]);
+        return true;
+    }
+
+    /**
+     * Reads back the mobs written by writeState(), adding them to this store (see SessionSnapshot).
+     * @param in where to read the mobs from.
+     * @throws IOException if they can't be read.
+     */
+    void readState(DataInput in) throws IOException {
+        nextRegenerationTick = in.readLong();
+        if (nextRegenerationTick >= 0) { // (the world's scheduler has been reset)
+            world.getScheduler().schedule(regeneration, nextRegenerationTick, 0);
+        }
+        int mobs = in.readInt();
+        for (int i = 0; i < mobs; i++) {
+            int mob = add(TYPES[in.readByte()], in.readFloat(), in.readFloat());
+            previousX[mob] = in.readFloat();
+            previousY[mob] = in.readFloat();
+            ySpeed[mob] = in.readFloat();
+            health[mob] = in.readFloat();
+            nextStepTick[mob] = in.readLong();
+            bitmapStage[mob] = in.readByte();
+            flags[mob] = in.readByte();
+        }
+    }
+
+    /**
+     * Removes a mob from the world, moving the last mob into its place.
+     * @param mob the number of the mob to remove.
+     */
+    public void remove(int mob) {
+        grid.remove(mob);
+        int last = --count;
+        // fill the gap in order with whichever mob is at the end of it
+        int end = order[last];
+        order[rank[mob]] = end;
+        rank[end] = rank[mob];
+        if (mob != last) {
+            type[mob] = type[last];
+            x[mob] = x[last];
+            y[mob] = y[last];
+            previousX[mob] = previousX[last];
+            previousY[mob] = previousY[last];
+            ySpeed[mob] = ySpeed[last];
+            health[mob] = health[last];
+            nextStepTick[mob] = nextStepTick[last];
+            bitmapStage[mob] = bitmapStage[last];
+            flags[mob] = flags[last];
+            order[rank[last]] = mob;
+            rank[mob] = rank[last];
+            grid.renumber(last, mob);
+        }
+    }
+
+    /**
+     * Regains a point of health for every hurt mob which isn't touching lava, if it's due to.
+     * @param tick the current tick.
+     */
+    private void regenerate(long tick) {
+        if (tick != nextRegenerationTick) {
+            return; // (it's been rescheduled since)
+        }
+        nextRegenerationTick = -1;
+        for (int mob = 0; mob < count; mob++) {
+            if ((flags[mob] & IN_LAVA) == 0 && health[mob] < 100) {
+                health[mob] = Math.min(100, health[mob] + 1);
+            }
+        }
+        scheduleRegeneration(); // if any are still hurt
+    }
+
+    /**
+     * Schedules the mobs' next point of health, if any of them are hurt and one isn't scheduled already.
+     */
+    private void scheduleRegeneration() {
+        if (nextRegenerationTick >= 0) {
+            return;
+        }
+        for (int mob = 0; mob < count; mob++) {
+            if (health[mob] < 100) {
+                Scheduler scheduler = world.getScheduler();
+                nextRegenerationTick = scheduler.getTick() + Lifeform.REGENERATION_TICKS;
+                scheduler.schedule(regeneration, nextRegenerationTick, 0);
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return the number of mobs.
+     */
+    public int size() { return count; }
+
+    /**
+     * Writes every mob, everything about it which changes as it's updated (see SessionSnapshot).
+     * @param out where to write the mobs.
+     * @throws IOException if they can't be written.
+     */
+    void writeState(DataOutput out) throws IOException {
+        out.writeLong(nextRegenerationTick);
+        out.writeInt(count);
+        for (int mob = 0; mob < count; mob++) {
+            out.writeByte(type[mob]);
+            out.writeFloat(x[mob]);
+            out.writeFloat(y[mob]);
+            out.writeFloat(previousX[mob]);
+            out.writeFloat(previousY[mob]);
+            out.writeFloat(ySpeed[mob]);
+            out.writeFloat(health[mob]);
+            out.writeLong(nextStepTick[mob]);
+            out.writeByte(bitmapStage[mob]);
+            out.writeByte(flags[mob]);
+        }
+    }
+
+    /**
+     * Updates every mob.
+     * @param secondsElapsed the number of seconds (or part thereof) that have elapsed since the last update.
+     * @param target the player that the mobs are chasing.
+     * @param despawnDistanceX how far (in blocks) left or right of the target a mob can be before it is despawned.
+     * @param despawnDistanceY how far (in blocks) above or below the target a mob can be before it is despawned.
+     */
+    public void update(float secondsElapsed, Player target, float despawnDistanceX, float despawnDistanceY) {
+        updateDespawn(target, despawnDistanceX, despawnDistanceY);
+        System.arraycopy(x, 0, previousX, 0, count);
+        System.arraycopy(y, 0, previousY, 0, count);
+        updateThinking(secondsElapsed, target);
+        updateDamage(secondsElapsed);
+        updateMovement();
+        updateGravity();
+        for (int mob = 0; mob < count; mob++) {
+            grid.moved(mob, x[mob], y[mob]);
+        }
+        // remove the dead (backwards, so that the mob moved into a gap has already been looked at)
+        for (int mob = count - 1; mob >= 0; mob--) {
+            if (health[mob] <= 0) {
+                remove(mob);
+            }
+        }
+        updateSeparation();
+    }
+
+    /**
+     * Causes the mobs to take damage.
+     * @param secondsElapsed the number of seconds (or part thereof) that have elapsed since the last update.
+     */
+    private void updateDamage(float secondsElapsed) {
+        boolean hurt = false;
+        for (int mob = 0; mob < count; mob++) {
+            int left = (int) Math.floor(x[mob] - footWidth[type[mob]]);
+            int right = (int) Math.floor(x[mob] + footWidth[type[mob]]);
+            int bottom = (int) Math.floor(y[mob]);
+            boolean touchingLava = world.getBlock(left, bottom) instanceof Lava || world.getBlock(right, bottom) instanceof Lava
+                    || world.getBlock(left, bottom + 1) instanceof Lava || world.getBlock(right, bottom + 1) instanceof Lava;
+            if (touchingLava) {
+                health[mob] = Math.max(0, health[mob] - 200 * secondsElapsed);
+                flags[mob] |= IN_LAVA;
+                hurt = true;
+            } else {
+                flags[mob] &= ~IN_LAVA;
+            }
+        }
+        if (hurt) {
+            scheduleRegeneration();
+        }
+    }
+
+    /**
+     * Removes every mob which is a long way from the target.
+     * @param target the player that the mobs are chasing.
+     * @param distanceX how far (in blocks) left or right of the target a mob can be before it is despawned.
+     * @param distanceY how far (in blocks) above or below the target a mob can be before it is despawned.
+     */
+    private void updateDespawn(Player target, float distanceX, float distanceY) {
+        for (int mob = count - 1; mob >= 0; mob--) {
+            if (Math.abs(x[mob] - target.getX()) > distanceX || Math.abs(y[mob] - target.getY()) > distanceY) {
+                GameLog.d("MobDespawned", "Mob despawned at", x[mob], y[mob]);
+                remove(mob);
+            }
+        }
+    }
+
+    /**
+     * Causes the mobs to be affected by gravity / fall (every tick, as with any lifeform). Every falling mob is swept in
+     * one batch, and then every mob that might be on the ground is probed for it in another.
+     */
+    private void updateGravity() {
+        // sweep the falling (and jumping) mobs' whole steps, so they can't fall through a floor
+        int falling = 0;
+        for (int mob = 0; mob < count; mob++) {
+            if (ySpeed[mob] != 0) {
+                batch(falling++, mob, 0, ySpeed[mob]);
+            }
+        }
+        sweepBatch(falling);
+        for (int i = 0; i < falling; i++) {
+            int mob = batchMobs[i];
+            if (batchNormals[i] == TileCollider.NORMAL_UP) {
+                y[mob] = Math.round(y[mob] + ySpeed[mob] * batchTimes[i]); // we've just landed, on top of a tile
+                ySpeed[mob] = 0;
+            } else if (batchNormals[i] != TileCollider.NONE) {
+                y[mob] += ySpeed[mob] * batchTimes[i]; // we've hit our head on something
+                ySpeed[mob] = 0;
+            } else {
+                y[mob] += ySpeed[mob];
+            }
+        }
+
+        // then look for the ground beneath every mob which isn't rising
+        int probed = 0;
+        for (int mob = 0; mob < count; mob++) {
+            if (ySpeed[mob] <= 0) {
+                batch(probed++, mob, 0, -Lifeform.GROUND_PROBE);
+            } else {
+                flags[mob] &= ~ON_GROUND;
+                ySpeed[mob] -= 0.08f;
+            }
+        }
+        sweepBatch(probed);
+        for (int i = 0; i < probed; i++) {
+            int mob = batchMobs[i];
+            if (batchNormals[i] != TileCollider.NONE) {
+                flags[mob] |= ON_GROUND;
+                ySpeed[mob] = 0;
+            } else {
+                flags[mob] &= ~ON_GROUND;
+                if (ySpeed[mob] > -2) {
+                    ySpeed[mob] -= 0.08f;
+                }
+            }
+        }
+    }
+
+    /**
+     * Causes the mobs to move left or right, if possible. Mobs always move, so only the ones due a step are swept.
+     */
+    private void updateMovement() {
+        long tick = world.getScheduler().getTick();
+        int moving = 0;
+        for (int mob = 0; mob < count; mob++) {
+            if ((flags[mob] & MOVING) == 0) {
+                nextStepTick[mob] = tick + Lifeform.MOVEMENT_TICKS; // (as a lifeform takes its first step)
+                continue;
+            }
+            if (tick >= nextStepTick[mob]) {
+                nextStepTick[mob] = tick + Lifeform.MOVEMENT_TICKS;
+                bitmapStage[mob]++;
+                float distance = TYPES[type[mob]].getSpeed();
+                batch(moving++, mob, (flags[mob] & FACING_RIGHT) != 0 ? distance : -distance, 0);
+            }
+        }
+        // move as far as we can - right up to a wall, if there is one
+        sweepBatch(moving);
+        for (int i = 0; i < moving; i++) {
+            x[batchMobs[i]] += batchDX[i] * batchTimes[i];
+        }
+    }
+
+    /**
+     * Pushes mobs which overlap apart (a little each tick), so that mobs don't stack on top of each other. Only
+     * neighbours in the same row (sorted by x coordinate) are pushed apart, so a crowd spreads out from each end over a
+     * few ticks, and separation takes linear time however tightly the mobs are packed.
+     */
+    private void updateSeparation() {
+        sortByPosition();
+        for (int i = 0; i + 1 < count; i++) {
+            int mob = order[i];
+            int other = order[i + 1]; // which is at least as far right as mob
+            if (Math.floor(y[mob]) != Math.floor(y[other])) {
+                continue;
+            }
+            // mobs stand on the middle 80% of their width, so that's the part which shouldn't overlap
+            float overlap = footWidth[type[mob]] + footWidth[type[other]] - (x[other] - x[mob]);
+            if (overlap > 0) {
+                float push = Math.min(overlap / 2, MAX_SEPARATION_PER_TICK);
+                // if one of them is against a wall, the other takes the whole push
+                if (!push(other, push)) {
+                    push(mob, -2 * push);
+                } else if (!push(mob, -push)) {
+                    push(other, push);
+                }
+            }
+        }
+    }
+
+    /**
+     * Sorts order by row (the floor of the y coordinate) and then by x coordinate. An insertion sort, as order is
+     * almost always nearly sorted already (so this is close to linear).
+     */
+    private void sortByPosition() {
+        for (int i = 1; i < count; i++) {
+            int mob = order[i];
+            float row = (float) Math.floor(y[mob]);
+            int j = i - 1;
+            while (j >= 0 && (Math.floor(y[order[j]]) > row || (Math.floor(y[order[j]]) == row && x[order[j]] > x[mob]))) {
+                order[j + 1] = order[j];
+                j--;
+            }
+            order[j + 1] = mob;
+        }
+        for (int i = 0; i < count; i++) {
+            rank[order[i]] = i;
+        }
+    }
+
+    /**
+     * Decides which way each mob moves (following the flow field towards the target), and lets it attack the target
+     * if it's in range.
+     * @param secondsElapsed the number of seconds (or part thereof) that have elapsed since the last update.
+     * @param target the player that the mobs are chasing.
+     */
+    private void updateThinking(float secondsElapsed, Player target) {
+        if (count == 0) {
+            return; // don't make a flow field until there's something to follow it
+        }
+        FlowField flowField = world.getFlowField(target); // shared by every mob chasing the target
+        for (int mob = 0; mob < count; mob++) {
+            Mobs mobType = TYPES[type[mob]];
+            int move = flowField.getMove(x[mob], y[mob]);
+            boolean right;
+            if ((move & FlowField.LEFT) != 0) {
+                right = false;
+            } else if ((move & FlowField.RIGHT) != 0) {
+                right = true;
+            } else { // next to the target (or no way to it), so just head straight for it
+                right = target.getX() >= x[mob];
+            }
+            // as with any lifeform, we can only change direction while on the ground
+            if ((flags[mob] & ON_GROUND) != 0) {
+                flags[mob] = (byte) (((flags[mob] | MOVING) & ~FACING_RIGHT) | (right ? FACING_RIGHT : 0));
+            }
+            if ((move & FlowField.JUMP) != 0 && ySpeed[mob] == 0) {
+                // only jump once we're at the edge of the block, so that we land on top of the next one
+                boolean facingRight = (flags[mob] & FACING_RIGHT) != 0;
+                float toEdge = facingRight ? (float) Math.ceil(x[mob]) - x[mob] : x[mob] - (float) Math.floor(x[mob]);
+                if (toEdge < (mobType.getWidth() / (float) Block.size) * 0.5f) {
+                    ySpeed[mob] = 0.4f;
+                }
+            }
+
+            // attack human if in range
+            boolean inXRange = Math.abs(target.getX() - x[mob]) < (target.getWidth() / (2 * Block.size)) + mobType.getWidth() / (2 * Block.size) + 0.5;
+            boolean inYRange = Math.abs(target.getY() - y[mob]) < 1;
+            if (inXRange && inYRange) {
+                target.damage(20 * secondsElapsed);
+            }
+        }
+    }
+}
@@ -1,23 +1,28 @@
 package uk.bh96.openworld;
 
-import android.util.Log;
+import java.io.DataInput;
+import java.io.IOException;
 
 /**
  * The player character, which the user controls. Most of the work is now done by the Lifeform class.
  */
 public class Player extends Lifeform {
+    /**
+     * The x coordinate which a new player starts at.
+     */
+    public static final int SPAWN_X = 512;
     /**
      * The animated sprites for this object.
      */
-    private static final int bitmaps[] = new int[]{
-        R.drawable.player_left1,
-        R.drawable.player_left2,
-        R.drawable.player_left3,
-        R.drawable.player_left4,
-        R.drawable.player_right1,
-        R.drawable.player_right2,
-        R.drawable.player_right3,
-        R.drawable.player_right4,
+    private static final Sprite bitmaps[] = new Sprite[]{
+        Sprite.PLAYER_LEFT1,
+        Sprite.PLAYER_LEFT2,
+        Sprite.PLAYER_LEFT3,
+        Sprite.PLAYER_LEFT4,
+        Sprite.PLAYER_RIGHT1,
+        Sprite.PLAYER_RIGHT2,
+        Sprite.PLAYER_RIGHT3,
+        Sprite.PLAYER_RIGHT4,
     };
     /**
      * The world that this player exists within.
@@ -32,8 +37,21 @@ public class Player extends Lifeform {
         this.world = world;
         world.addPlayer(this);
         setHealth(100);
-        setX(512);
-        setY(128);
+        setX(SPAWN_X);
+        setY(world.getHeight(SPAWN_X) + 1); // start on the surface (rather than in the ground)
+    }
+
+    /**
+     * Restores a player from a snapshot, where it was rather than on the surface (so no chunk has to be generated).
+     * @param world the world that the player exists within.
+     * @param in where to read the player's state from (see Lifeform.writeState()).
+     * @throws IOException if it can't be read.
+     */
+    Player(World world, DataInput in) throws IOException {
+        super(world);
+        this.world = world;
+        world.addPlayer(this);
+        readState(in);
     }
 
     /**
@@ -42,13 +60,18 @@ public class Player extends Lifeform {
     public int getBitmap() {
         switch (direction) {
             case LEFT:
-                return bitmaps[(getBitmapStage() + 128) % 4];
+                return bitmaps[(getBitmapStage() + 128) % 4].getId();
             case RIGHT:
-                return bitmaps[((getBitmapStage() + 128) % 4) + 4];
+                return bitmaps[((getBitmapStage() + 128) % 4) + 4].getId();
         }
         return 0; // if we get here something has gone seriously wrong
     }
 
+    /**
+     * @return every sprite that this player could be drawn with.
+     */
+    public static int[] getBitmaps() { return Sprite.getIds(bitmaps); }
+
     public int getWidth() { return 49; }
     protected final float getSpeed() { return 0.2f; }
     public int getHeight() { return 68; }
@@ -0,0 +1,146 @@
+package uk.bh96.openworld;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A file holding a fixed-width run of chunks (a "region"). The file is split into fixed size sectors: the first sector
+ * is a table holding, for each chunk, the sector its data starts at and its length, and every other sector holds
+ * chunk data. The file is memory mapped, so reading a chunk is a single bulk copy out of the page cache and saving a
+ * chunk only touches the sectors it occupies.
+ */
+public class RegionFile {
+    /**
+     * The size of a sector, in bytes.
+     */
+    public static final int SECTOR_SIZE = 4096;
+    /**
+     * The number of chunks in a region. Must be a power of two.
+     */
+    public static final int WIDTH = 32;
+    /**
+     * log2(WIDTH), used to convert between chunk and region coordinates.
+     */
+    public static final int WIDTH_BITS = 5;
+    /**
+     * The size of an entry in the offset table (an int sector offset, and an int length in bytes).
+     */
+    private static final int ENTRY_SIZE = 8;
+    /**
+     * The number of sectors a chunk's data takes up.
+     */
+    private static final int CHUNK_SECTORS = (Chunk.BYTES + SECTOR_SIZE - 1) / SECTOR_SIZE;
+
+    /**
+     * The channel of the open file.
+     */
+    private final FileChannel channel;
+    /**
+     * The file, mapped into memory. Remapped whenever the file grows.
+     */
+    private MappedByteBuffer map;
+    /**
+     * The number of sectors in the file.
+     */
+    private int sectorCount;
+
+    /**
+     * Opens a region file, creating it (with an empty offset table) if it doesn't exist.
+     * @param file the region file.
+     * @throws IOException if the file can't be opened or mapped.
+     */
+    public RegionFile(File file) throws IOException {
+        channel = new RandomAccessFile(file, "rw").getChannel();
+        sectorCount = (int) Math.max(1, (channel.size() + SECTOR_SIZE - 1) / SECTOR_SIZE);
+        map = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) sectorCount * SECTOR_SIZE);
+    }
+
+    /**
+     * @param chunkX the x coordinate of a chunk, measured in chunks.
+     * @return the x coordinate of the region containing that chunk.
+     */
+    public static int regionXOf(int chunkX) { return chunkX >> WIDTH_BITS; }
+
+    /**
+     * @param sector the sector an entry in the offset table says a chunk's data starts at.
+     * @param length the length the entry gives for the data, in bytes.
+     * @return true if the entry is valid: the data is a whole chunk, after the offset table and within the file (a
+     * corrupt or truncated file may have entries which aren't).
+     */
+    private boolean isValid(int sector, int length) {
+        return sector >= 1 && length == Chunk.BYTES && sector <= sectorCount - CHUNK_SECTORS;
+    }
+
+    /**
+     * Flushes and closes the file.
+     * @throws IOException if the file can't be closed.
+     */
+    public void close() throws IOException {
+        flush();
+        channel.close();
+    }
+
+    /**
+     * Forces everything written so far out to the disk.
+     */
+    public void flush() { map.force(); }
+
+    /**
+     * @return a task which forces everything written so far out to the disk, and can be run on any thread. It holds on
+     * to the current mapping (which stays valid even if the file is remapped, or closed, before it runs).
+     */
+    public Runnable flusher() {
+        final MappedByteBuffer mapped = map;
+        return new Runnable() {
+            public void run() { mapped.force(); }
+        };
+    }
+
+    /**
+     * Reads a chunk.
+     * @param chunkX the x coordinate of the chunk, measured in chunks.
+     * @return the chunk, or null if it hasn't been saved in this region (or its entry is corrupt, in which case it will
+     * be generated again).
+     */
+    public Chunk read(int chunkX) {
+        int entry = (chunkX & (WIDTH - 1)) * ENTRY_SIZE;
+        int sector = map.getInt(entry);
+        int length = map.getInt(entry + 4);
+        if (sector == 0) {
+            return null;
+        }
+        if (!isValid(sector, length)) {
+            GameLog.e("RegionFile", "Ignoring corrupt entry for chunk " + chunkX + " (sector " + sector + ", length "
+                    + length + " of " + sectorCount + " sectors)");
+            return null;
+        }
+        Chunk chunk = new Chunk(chunkX);
+        map.position(sector * SECTOR_SIZE);
+        chunk.readFrom(map);
+        chunk.setDirty(false);
+        return chunk;
+    }
+
+    /**
+     * Writes a chunk, overwriting its existing sectors if it has been saved before.
+     * @param chunk the chunk to write.
+     * @throws IOException if the file needs to grow, and can't be.
+     */
+    public void write(Chunk chunk) throws IOException {
+        int entry = (chunk.getChunkX() & (WIDTH - 1)) * ENTRY_SIZE;
+        int sector = map.getInt(entry);
+        if (!isValid(sector, map.getInt(entry + 4))) {
+            // not saved before (or its entry is corrupt), so append it to the end of the file
+            sector = sectorCount;
+            sectorCount += CHUNK_SECTORS;
+            map = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) sectorCount * SECTOR_SIZE);
+        }
+        map.position(sector * SECTOR_SIZE);
+        chunk.writeTo(map);
+        map.putInt(entry, sector);
+        map.putInt(entry + 4, Chunk.BYTES);
+    }
+}
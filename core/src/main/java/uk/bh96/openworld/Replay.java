@@ -0,0 +1,109 @@
+package uk.bh96.openworld;
+
+/**
+ * Replays a recording (see InputRecorder) headlessly: the world is created from the recorded seed, and each recorded
+ * touch is applied before the tick it was applied before in the game, so the world ends up in exactly the state it was
+ * in when it was recorded. Nothing is drawn, and ticks run as fast as they can (the clock only times them), which makes
+ * a replay useful for soak tests and for comparing the cost of a tick between builds.
+ */
+public class Replay {
+    /**
+     * Where ticks are timed from.
+     */
+    private final Clock clock;
+    /**
+     * Applies the recorded touches.
+     */
+    private final Controls controls;
+    /**
+     * The recording being replayed.
+     */
+    private final InputReplay input;
+    /**
+     * The player.
+     */
+    private final Player player;
+    /**
+     * The score so far.
+     */
+    private long score = 0;
+    /**
+     * The number of ticks run so far.
+     */
+    private long tick = 0;
+    /**
+     * The total time spent running ticks (in nanoseconds, see Clock).
+     */
+    private long tickNanos = 0;
+    /**
+     * The world being replayed.
+     */
+    private final World world;
+
+    /**
+     * Sets up the world as it was when the recording started. The world isn't saved.
+     * @param input the recording (rewound to the start).
+     * @param clock where to time ticks from.
+     */
+    public Replay(InputReplay input, Clock clock) {
+        this.input = input;
+        this.clock = clock;
+        input.rewind();
+        float blockSize = input.getBlockSize();
+        world = new World(input.getSeed(), input.getViewWidth() / blockSize, input.getViewHeight() / blockSize, null);
+        player = new Player(world);
+        controls = new Controls(world, player, blockSize);
+    }
+
+    /**
+     * Releases the resources held by the world.
+     */
+    public void close() { world.close(); }
+
+    /**
+     * @return a checksum of the whole game (the world, the player and the score): two replays of the same recording
+     * should always have the same checksum after the same number of ticks.
+     */
+    public long checksum() {
+        long hash = world.checksum();
+        hash = 31 * hash + Float.floatToIntBits(player.getX());
+        hash = 31 * hash + Float.floatToIntBits(player.getY());
+        hash = 31 * hash + Double.doubleToLongBits(player.getHealth());
+        return 31 * hash + score;
+    }
+
+    public Player getPlayer() { return player; }
+    public long getScore() { return score; }
+    public long getTick() { return tick; }
+    public long getTickNanos() { return tickNanos; }
+    public World getWorld() { return world; }
+
+    /**
+     * @return true if the game is over (the player has died), at which point the game stops running ticks.
+     */
+    public boolean isOver() { return player.getHealth() <= 0; }
+
+    /**
+     * Runs ticks until the recorded touches run out (or the game is over).
+     */
+    public void run() {
+        while (input.hasNext() && !isOver()) {
+            step();
+        }
+    }
+
+    /**
+     * Runs one tick, after applying the touches recorded before it.
+     */
+    public void step() {
+        while (input.hasNext() && input.peekTick() <= tick) {
+            controls.apply(input.peekType(), input.peekX(), input.peekY(), input.getViewWidth(), input.getViewHeight());
+            input.pop();
+        }
+        long tickStart = clock.nanoTime();
+        player.update(Tick.SECONDS);
+        score += world.getScoreChange();
+        tickNanos += clock.nanoTime() - tickStart;
+        tick++;
+    }
+}
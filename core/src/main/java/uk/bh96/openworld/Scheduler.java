@@ -0,0 +1,263 @@
+package uk.bh96.openworld;
+
+import java.util.Arrays;
+
+/**
+ * Runs tasks at given ticks (see Tick), for everything in the simulation which happens on a timer: blocks recovering
+ * from damage, the player's steps, mobs spawning, regenerating health... A task costs nothing until it's due, so an
+ * idle entity (one with nothing scheduled) costs nothing at all, and timing is exact whatever the frame rate.
+ *
+ * Tasks are kept on a hierarchical timing wheel: LEVELS wheels of SLOTS slots, where a slot of the first wheel is a
+ * tick, a slot of the second is SLOTS ticks, and so on. A task goes on the lowest wheel whose current turn includes its
+ * tick, and moves down a wheel each time the wheel above reaches its slot, so scheduling and running a task are both
+ * constant time however far ahead it is. Tasks are kept in a pool of entries (linked into lists by index, one per
+ * slot), so scheduling doesn't allocate once the pool is big enough.
+ *
+ * Tasks can't be cancelled. Instead, whatever schedules a task keeps the tick it's due at, and a task which finds that
+ * it's been rescheduled since (because the tick it's run at no longer matches) does nothing. Owners also keep those
+ * ticks in their snapshots, and schedule their tasks again when they're restored (see reset()).
+ *
+ * Tasks due at the same tick run in order of priority, and then in the order they were scheduled.
+ */
+public class Scheduler {
+    /**
+     * Something which can be scheduled to run. The same task can be scheduled any number of times (with a different
+     * argument each time, e.g. the coordinates of a block).
+     */
+    public abstract static class Task {
+        /**
+         * The priority of the task (lower runs first, see Scheduler.RECOVERY...).
+         */
+        private final int priority;
+
+        /**
+         * @param priority the priority of the task (lower runs first, see Scheduler.RECOVERY...).
+         */
+        protected Task(int priority) { this.priority = priority; }
+
+        /**
+         * Runs the task.
+         * @param tick the tick the task was due at (and is running in).
+         * @param argument the value given when the task was scheduled.
+         */
+        public abstract void run(long tick, long argument);
+    }
+
+    /**
+     * The priority of blocks recovering from damage (see BlockDamage).
+     */
+    public static final int RECOVERY = 0;
+    /**
+     * The priority of the player's mining (see World.destroyBlock()).
+     */
+    public static final int MINING = 1;
+    /**
+     * The priority of mobs spawning.
+     */
+    public static final int SPAWN = 2;
+    /**
+     * The priority of lifeforms' steps (and animation).
+     */
+    public static final int MOVEMENT = 3;
+    /**
+     * The priority of lifeforms regenerating health.
+     */
+    public static final int REGENERATION = 4;
+    /**
+     * The number of bits of the tick which index a wheel.
+     */
+    private static final int SLOT_BITS = 6;
+    /**
+     * The number of slots in each wheel.
+     */
+    private static final int SLOTS = 1 << SLOT_BITS;
+    /**
+     * The number of wheels (enough for tasks more than a week ahead; tasks further ahead wait on the top wheel, going
+     * round it again until they're due).
+     */
+    private static final int LEVELS = 4;
+    /**
+     * Marks the end of a list.
+     */
+    private static final int NONE = -1;
+
+    /**
+     * For each entry, the value to pass to its task.
+     */
+    private long[] arguments;
+    /**
+     * For each entry, the tick it's due at.
+     */
+    private long[] deadlines;
+    /**
+     * The entries due at the tick being run (reused, to avoid allocating).
+     */
+    private int[] due = new int[64];
+    /**
+     * The first free entry (the free entries are linked through next).
+     */
+    private int free = NONE;
+    /**
+     * For each slot of each wheel (wheel by wheel), the first entry in it.
+     */
+    private final int[] heads = new int[LEVELS * SLOTS];
+    /**
+     * For each entry, the next entry in the same list.
+     */
+    private int[] next;
+    /**
+     * For each slot of each wheel (wheel by wheel), the last entry in it.
+     */
+    private final int[] tails = new int[LEVELS * SLOTS];
+    /**
+     * For each entry, its task (null if the entry is free).
+     */
+    private Task[] tasks;
+    /**
+     * The latest tick which has been run.
+     */
+    private long tick = 0;
+    /**
+     * The number of entries which have ever been used (the rest are free, without being linked in).
+     */
+    private int used = 0;
+
+    public Scheduler() {
+        allocate(256);
+        Arrays.fill(heads, NONE);
+        Arrays.fill(tails, NONE);
+    }
+
+    /**
+     * Runs every task due up to (and including) a tick, tick by tick.
+     * @param tick the current tick (which mustn't go backwards).
+     */
+    public void advance(long tick) {
+        while (this.tick < tick) {
+            long now = ++this.tick;
+            // at the start of a turn of a wheel, the slot of the wheel above moves down (highest first, as its tasks can
+            // move down through several wheels at once)
+            int level = 0;
+            while (level + 1 < LEVELS && (now & ((1L << (SLOT_BITS * (level + 1))) - 1)) == 0) {
+                level++;
+            }
+            for (; level > 0; level--) {
+                int slot = level * SLOTS + ((int) (now >>> (SLOT_BITS * level)) & (SLOTS - 1));
+                int entry = heads[slot];
+                heads[slot] = NONE;
+                tails[slot] = NONE;
+                while (entry != NONE) {
+                    int following = next[entry];
+                    file(entry);
+                    entry = following;
+                }
+            }
+            run((int) now & (SLOTS - 1));
+        }
+    }
+
+    /**
+     * (Re)allocates the pool of entries, keeping those already in it.
+     * @param capacity the number of entries.
+     */
+    private void allocate(int capacity) {
+        tasks = tasks == null ? new Task[capacity] : Arrays.copyOf(tasks, capacity);
+        deadlines = deadlines == null ? new long[capacity] : Arrays.copyOf(deadlines, capacity);
+        arguments = arguments == null ? new long[capacity] : Arrays.copyOf(arguments, capacity);
+        next = next == null ? new int[capacity] : Arrays.copyOf(next, capacity);
+    }
+
+    /**
+     * Adds an entry to the end of the list of the slot for its tick, on the lowest wheel whose current turn includes it.
+     * @param entry the entry.
+     */
+    private void file(int entry) {
+        long deadline = deadlines[entry];
+        int level = 0;
+        while (level + 1 < LEVELS && (deadline >>> (SLOT_BITS * (level + 1))) != (tick >>> (SLOT_BITS * (level + 1)))) {
+            level++;
+        }
+        int slot = level * SLOTS + ((int) (deadline >>> (SLOT_BITS * level)) & (SLOTS - 1));
+        next[entry] = NONE;
+        if (tails[slot] == NONE) {
+            heads[slot] = entry;
+        } else {
+            next[tails[slot]] = entry;
+        }
+        tails[slot] = entry;
+    }
+
+    /**
+     * @return the latest tick which has been run (tasks scheduled now can be due at the next tick, at the earliest).
+     */
+    public long getTick() { return tick; }
+
+    /**
+     * Forgets every task, and starts again from a tick (e.g. when a world is restored from a snapshot, before its
+     * tasks are scheduled again).
+     * @param tick the latest tick which has been run.
+     */
+    public void reset(long tick) {
+        Arrays.fill(tasks, null);
+        Arrays.fill(heads, NONE);
+        Arrays.fill(tails, NONE);
+        free = NONE;
+        used = 0;
+        this.tick = tick;
+    }
+
+    /**
+     * Runs the tasks in a slot of the first wheel (which are all due at the current tick), in order of priority.
+     * @param slot the slot.
+     */
+    private void run(int slot) {
+        int count = 0;
+        for (int entry = heads[slot]; entry != NONE; entry = next[entry]) {
+            if (count == due.length) {
+                due = Arrays.copyOf(due, count * 2);
+            }
+            // an insertion sort, which keeps tasks of the same priority in order (and is close to linear, as most of the
+            // tasks due at once are usually blocks recovering, which go first)
+            int i = count++;
+            while (i > 0 && tasks[due[i - 1]].priority > tasks[entry].priority) {
+                due[i] = due[i - 1];
+                i--;
+            }
+            due[i] = entry;
+        }
+        heads[slot] = NONE;
+        tails[slot] = NONE;
+        for (int i = 0; i < count; i++) {
+            int entry = due[i];
+            Task task = tasks[entry];
+            long argument = arguments[entry];
+            tasks[entry] = null; // free the entry first, so that the task can reuse it to schedule itself again
+            next[entry] = free;
+            free = entry;
+            task.run(tick, argument);
+        }
+    }
+
+    /**
+     * Schedules a task.
+     * @param task the task.
+     * @param tick the tick to run it at (if that's already been run, the task runs at the next tick).
+     * @param argument the value to pass to the task.
+     */
+    public void schedule(Task task, long tick, long argument) {
+        int entry;
+        if (free != NONE) {
+            entry = free;
+            free = next[entry];
+        } else {
+            if (used == tasks.length) {
+                allocate(used * 2);
+            }
+            entry = used++;
+        }
+        tasks[entry] = task;
+        deadlines[entry] = Math.max(tick, this.tick + 1);
+        arguments[entry] = argument;
+        file(entry);
+    }
+}
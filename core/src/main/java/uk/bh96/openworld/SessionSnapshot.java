@@ -0,0 +1,182 @@
+package uk.bh96.openworld;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * A snapshot of a whole game session, so that it can be resumed in milliseconds (rather than started again, or the
+ * world regenerated) after the game is stopped or the app is killed. It's compact and binary:
+ *
+ * - a header: MAGIC, VERSION, the seed, the size of the screen in blocks, whether the world is saved, the score and the
+ *   number of ticks run;
+ * - the world's state (see World.writeState), including the terrain as a delta against the seed: only loaded chunks
+ *   which differ from what would be generated are kept (the rest are generated, or loaded, as they're needed);
+ * - the player (see Lifeform.writeState);
+ * - the mobs (see MobStore.writeState).
+ *
+ * Taking a snapshot (capture()) only copies the state into memory, so that it can be done quickly while the game is
+ * stopped, and then written to disk (write()) on another thread.
+ */
+public class SessionSnapshot {
+    /**
+     * The first four bytes of a snapshot ("OWSS").
+     */
+    public static final int MAGIC = 0x4f575353;
+    /**
+     * The version of the format (older snapshots are ignored, and the game starts afresh).
+     */
+    public static final int VERSION = 3;
+
+    /**
+     * The rest of the snapshot (the world, player and mobs), after the header.
+     */
+    private final DataInputStream in;
+    /**
+     * The player, once restored.
+     */
+    private Player player;
+    /**
+     * Whether the world is saved (see World.isSaved()).
+     */
+    private final boolean saved;
+    /**
+     * The score.
+     */
+    private final long score;
+    /**
+     * The height of the screen, measured in blocks.
+     */
+    private final float screenHeightInBlocks;
+    /**
+     * The width of the screen, measured in blocks.
+     */
+    private final float screenWidthInBlocks;
+    /**
+     * The seed the world was created with.
+     */
+    private final long seed;
+    /**
+     * The number of ticks which had been run.
+     */
+    private final long tick;
+
+    /**
+     * Reads the header of a snapshot (the rest is read by restore()).
+     * @param data the snapshot, as returned by capture().
+     * @throws IOException if it isn't a snapshot.
+     */
+    public SessionSnapshot(byte[] data) throws IOException {
+        in = new DataInputStream(new ByteArrayInputStream(data));
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a snapshot");
+        }
+        int version = in.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported snapshot version " + version);
+        }
+        seed = in.readLong();
+        screenWidthInBlocks = in.readFloat();
+        screenHeightInBlocks = in.readFloat();
+        saved = in.readBoolean();
+        score = in.readLong();
+        tick = in.readLong();
+    }
+
+    /**
+     * Takes a snapshot. The game mustn't be updated while this runs.
+     * @param world the world.
+     * @param score the score.
+     * @param tick the number of ticks which have been run.
+     * @return the snapshot.
+     */
+    public static byte[] capture(World world, long score, long tick) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(16 * 1024);
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeLong(world.getSeed());
+            out.writeFloat(world.getScreenWidthInBlocks());
+            out.writeFloat(world.getScreenHeightInBlocks());
+            out.writeBoolean(world.isSaved());
+            out.writeLong(score);
+            out.writeLong(tick);
+            world.writeState(out);
+            world.getPlayer().writeState(out);
+            world.getMobs().writeState(out);
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // can't happen when writing to memory
+        }
+        return bytes.toByteArray();
+    }
+
+    public Player getPlayer() { return player; }
+    public long getScore() { return score; }
+    public long getSeed() { return seed; }
+    public long getTick() { return tick; }
+    public boolean isSaved() { return saved; }
+
+    /**
+     * Reads a snapshot written by write().
+     * @param file the file.
+     * @return the snapshot.
+     * @throws IOException if it can't be read.
+     */
+    public static byte[] read(File file) throws IOException {
+        byte[] data = new byte[(int) file.length()];
+        DataInputStream in = new DataInputStream(new FileInputStream(file));
+        try {
+            in.readFully(data);
+        } finally {
+            in.close();
+        }
+        return data;
+    }
+
+    /**
+     * Recreates the world (and the player, see getPlayer()) as it was when the snapshot was taken. Can only be called
+     * once.
+     * @param saveDirectory the directory the world is saved in, or null if it isn't saved (see isSaved()).
+     * @return the world.
+     * @throws IOException if the snapshot is incomplete, or older than changes made to the saved world since (see
+     * World.readState()).
+     */
+    public World restore(File saveDirectory) throws IOException {
+        World world = new World(seed, screenWidthInBlocks, screenHeightInBlocks, saveDirectory);
+        try {
+            world.readState(in);
+            player = new Player(world, in);
+            world.getMobs().readState(in);
+        } catch (IOException e) {
+            world.close();
+            throw e;
+        }
+        return world;
+    }
+
+    /**
+     * Writes a snapshot to a file, replacing it in one step (so a crash mid-write leaves the previous snapshot).
+     * @param data the snapshot, as returned by capture().
+     * @param file the file.
+     * @throws IOException if it can't be written.
+     */
+    public static void write(byte[] data, File file) throws IOException {
+        File temporary = new File(file.getPath() + ".tmp");
+        FileOutputStream out = new FileOutputStream(temporary);
+        try {
+            out.write(data);
+            out.getFD().sync();
+        } finally {
+            out.close();
+        }
+        if (!temporary.renameTo(file)) {
+            throw new IOException("Unable to replace " + file);
+        }
+    }
+}
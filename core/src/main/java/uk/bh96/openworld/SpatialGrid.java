@@ -0,0 +1,247 @@
+package uk.bh96.openworld;
+
+import java.util.Arrays;
+
+/**
+ * A uniform grid of one-block cells, indexing things (e.g. mobs, see MobStore) by the cell their position is in, so
+ * that finding the things in an area only has to look at the cells in that area (rather than at every thing). Things
+ * are numbered 0 to n-1, and their positions are kept by the caller in parallel arrays which are passed to each query.
+ * The world is endless, so cells are hashed into a fixed number of buckets, and each bucket is a linked list threaded
+ * through arrays indexed by id: inserting, moving and removing a thing are all O(1) and never allocate (unless the
+ * arrays have to grow).
+ */
+public class SpatialGrid {
+    /**
+     * The number of buckets, as a shift. Must be large enough that a screenful of cells rarely share a bucket.
+     */
+    private static final int BUCKET_BITS = 10;
+    /**
+     * The number of buckets.
+     */
+    private static final int BUCKETS = 1 << BUCKET_BITS;
+    /**
+     * Marks the end of a bucket's list (and a thing which isn't in the grid).
+     */
+    private static final int NONE = -1;
+
+    /**
+     * The first thing in each bucket (NONE if the bucket is empty).
+     */
+    private final int[] buckets = new int[BUCKETS];
+    /**
+     * For each thing, the x coordinate of the cell it is indexed under.
+     */
+    private int[] cellX = new int[0];
+    /**
+     * For each thing, the y coordinate of the cell it is indexed under.
+     */
+    private int[] cellY = new int[0];
+    /**
+     * For each thing, the next thing in the same bucket.
+     */
+    private int[] next = new int[0];
+    /**
+     * For each thing, the previous thing in the same bucket.
+     */
+    private int[] previous = new int[0];
+    /**
+     * The number of things in the grid.
+     */
+    private int size = 0;
+
+    public SpatialGrid() { Arrays.fill(buckets, NONE); }
+
+    /**
+     * @param cellX the x coordinate of a cell.
+     * @param cellY the y coordinate of a cell.
+     * @return the bucket that the cell is in.
+     */
+    private static int bucketOf(int cellX, int cellY) {
+        int hash = cellX * 0x9E3779B1 + cellY * 0x85EBCA77;
+        return (hash ^ (hash >>> 16)) & (BUCKETS - 1);
+    }
+
+    /**
+     * @param position an x or y coordinate.
+     * @return the cell which the coordinate is in.
+     */
+    private static int cellOf(float position) { return (int) Math.floor(position); }
+
+    /**
+     * Makes sure that there is room for a thing.
+     * @param id the id of the thing.
+     */
+    private void ensureCapacity(int id) {
+        if (id >= next.length) {
+            int capacity = Math.max(16, Math.max(id + 1, next.length * 2));
+            cellX = Arrays.copyOf(cellX, capacity);
+            cellY = Arrays.copyOf(cellY, capacity);
+            next = Arrays.copyOf(next, capacity);
+            previous = Arrays.copyOf(previous, capacity);
+        }
+    }
+
+    /**
+     * Adds a thing to the grid.
+     * @param id the id of the thing to add (which mustn't already be in the grid).
+     * @param x the x coordinate of the thing.
+     * @param y the y coordinate of the thing.
+     */
+    public void insert(int id, float x, float y) {
+        ensureCapacity(id);
+        cellX[id] = cellOf(x);
+        cellY[id] = cellOf(y);
+        link(id, bucketOf(cellX[id], cellY[id]));
+        size++;
+    }
+
+    /**
+     * Adds a thing to the front of a bucket.
+     * @param id the id of the thing to add.
+     * @param bucket the bucket to add it to.
+     */
+    private void link(int id, int bucket) {
+        previous[id] = NONE;
+        next[id] = buckets[bucket];
+        if (buckets[bucket] != NONE) {
+            previous[buckets[bucket]] = id;
+        }
+        buckets[bucket] = id;
+    }
+
+    /**
+     * Moves a thing to the cell it's now in (called whenever the thing moves).
+     * @param id the id of the thing which has moved.
+     * @param x the new x coordinate of the thing.
+     * @param y the new y coordinate of the thing.
+     */
+    public void moved(int id, float x, float y) {
+        int newCellX = cellOf(x);
+        int newCellY = cellOf(y);
+        if (newCellX == cellX[id] && newCellY == cellY[id]) {
+            return; // the usual case - it's still in the same cell
+        }
+        int bucket = bucketOf(newCellX, newCellY);
+        if (bucket != bucketOf(cellX[id], cellY[id])) {
+            unlink(id);
+            link(id, bucket);
+        }
+        cellX[id] = newCellX;
+        cellY[id] = newCellY;
+    }
+
+    /**
+     * Finds every thing whose position is within a box.
+     * @param minX the left edge of the box.
+     * @param minY the bottom edge of the box.
+     * @param maxX the right edge of the box.
+     * @param maxY the top edge of the box.
+     * @param xs the x coordinate of each thing.
+     * @param ys the y coordinate of each thing.
+     * @param results where to put the ids of the things found (must be at least as long as the number of things).
+     * @return the number of things found.
+     */
+    public int queryBox(float minX, float minY, float maxX, float maxY, float[] xs, float[] ys, int[] results) {
+        int found = 0;
+        int minCellX = cellOf(minX);
+        int maxCellX = cellOf(maxX);
+        int minCellY = cellOf(minY);
+        int maxCellY = cellOf(maxY);
+        if ((long) (maxCellX - minCellX + 1) * (maxCellY - minCellY + 1) >= BUCKETS) {
+            // the box covers more cells than there are buckets, so it's quicker to look in every bucket (once)
+            for (int bucket = 0; bucket < BUCKETS; bucket++) {
+                for (int id = buckets[bucket]; id != NONE; id = next[id]) {
+                    if (xs[id] >= minX && xs[id] <= maxX && ys[id] >= minY && ys[id] <= maxY) {
+                        results[found++] = id;
+                    }
+                }
+            }
+            return found;
+        }
+        for (int x = minCellX; x <= maxCellX; x++) {
+            for (int y = minCellY; y <= maxCellY; y++) {
+                for (int id = buckets[bucketOf(x, y)]; id != NONE; id = next[id]) {
+                    // buckets are shared between cells, so only take things which are in this cell
+                    if (cellX[id] == x && cellY[id] == y && xs[id] >= minX && xs[id] <= maxX && ys[id] >= minY && ys[id] <= maxY) {
+                        results[found++] = id;
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Finds every thing whose position is within a circle.
+     * @param x the x coordinate of the centre of the circle.
+     * @param y the y coordinate of the centre of the circle.
+     * @param radius the radius of the circle.
+     * @param xs the x coordinate of each thing.
+     * @param ys the y coordinate of each thing.
+     * @param results where to put the ids of the things found (must be at least as long as the number of things).
+     * @return the number of things found.
+     */
+    public int queryRadius(float x, float y, float radius, float[] xs, float[] ys, int[] results) {
+        int found = queryBox(x - radius, y - radius, x + radius, y + radius, xs, ys, results);
+        for (int i = found - 1; i >= 0; i--) {
+            float dx = xs[results[i]] - x;
+            float dy = ys[results[i]] - y;
+            if (dx * dx + dy * dy > radius * radius) {
+                // order doesn't matter, so replace it with the last result rather than shuffling everything down
+                results[i] = results[--found];
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Removes a thing from the grid.
+     * @param id the id of the thing to remove.
+     */
+    public void remove(int id) {
+        unlink(id);
+        size--;
+    }
+
+    /**
+     * Gives a thing in the grid a new id (e.g. when the last thing is moved into a gap left by a removed one).
+     * @param from the thing's current id.
+     * @param to the thing's new id (which mustn't be in the grid).
+     */
+    public void renumber(int from, int to) {
+        cellX[to] = cellX[from];
+        cellY[to] = cellY[from];
+        next[to] = next[from];
+        previous[to] = previous[from];
+        if (previous[to] != NONE) {
+            next[previous[to]] = to;
+        } else {
+            buckets[bucketOf(cellX[to], cellY[to])] = to;
+        }
+        if (next[to] != NONE) {
+            previous[next[to]] = to;
+        }
+    }
+
+    /**
+     * @return the number of things in the grid.
+     */
+    public int size() { return size; }
+
+    /**
+     * Removes a thing from the bucket it's in.
+     * @param id the id of the thing to remove.
+     */
+    private void unlink(int id) {
+        if (previous[id] != NONE) {
+            next[previous[id]] = next[id];
+        } else {
+            buckets[bucketOf(cellX[id], cellY[id])] = next[id];
+        }
+        if (next[id] != NONE) {
+            previous[next[id]] = previous[id];
+        }
+        next[id] = NONE;
+        previous[id] = NONE;
+    }
+}
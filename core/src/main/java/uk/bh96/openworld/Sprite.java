@@ -0,0 +1,65 @@
+package uk.bh96.openworld;
+
+/**
+ * Every sprite that the game can be drawn with. The simulation only refers to sprites through this list, so that it
+ * doesn't depend on where they come from: whatever draws the game (e.g. the Android app, which uses drawable resources)
+ * provides a Resolver which maps each sprite to the id it knows it by. Until then, each sprite's id is its ordinal plus
+ * one (which is enough for anything which doesn't draw, such as benchmarks).
+ */
+public enum Sprite {
+    BEDROCK, COAL, DIAMOND, DIRT, GOLD, GRASS, IRON, LAVA, STONE,
+    DESTROY,
+    PLAYER_LEFT1, PLAYER_LEFT2, PLAYER_LEFT3, PLAYER_LEFT4,
+    PLAYER_RIGHT1, PLAYER_RIGHT2, PLAYER_RIGHT3, PLAYER_RIGHT4,
+    ZOMBIE_LEFT1, ZOMBIE_LEFT2, ZOMBIE_LEFT3,
+    ZOMBIE_RIGHT1, ZOMBIE_RIGHT2, ZOMBIE_RIGHT3;
+
+    /**
+     * Maps sprites to the ids which the renderer knows them by.
+     */
+    public interface Resolver {
+        /**
+         * @param sprite a sprite.
+         * @return the id of the sprite (never 0, which is reserved for "nothing").
+         */
+        int resolve(Sprite sprite);
+    }
+
+    /**
+     * The id of each sprite, indexed by ordinal.
+     */
+    private static final int[] ids = new int[values().length];
+
+    static {
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = i + 1;
+        }
+    }
+
+    /**
+     * Sets the ids of every sprite. Must be called before anything is drawn (and before anything asks for the ids).
+     * @param resolver maps each sprite to its id.
+     */
+    public static void setResolver(Resolver resolver) {
+        for (Sprite sprite : values()) {
+            ids[sprite.ordinal()] = resolver.resolve(sprite);
+        }
+    }
+
+    /**
+     * @param sprites some sprites.
+     * @return the id of each sprite.
+     */
+    public static int[] getIds(Sprite[] sprites) {
+        int[] result = new int[sprites.length];
+        for (int i = 0; i < sprites.length; i++) {
+            result[i] = sprites[i].getId();
+        }
+        return result;
+    }
+
+    /**
+     * @return the id of this sprite.
+     */
+    public int getId() { return ids[ordinal()]; }
+}
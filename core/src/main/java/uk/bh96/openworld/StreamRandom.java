@@ -0,0 +1,61 @@
+package uk.bh96.openworld;
+
+/**
+ * A small, counter-based random number generator (SplitMix64, see http://xoshiro.di.unimi.it/splitmix64.c). Each
+ * number is a hash of the seed plus a counter, so a generator derived from a seed and a coordinate is an independent
+ * stream which doesn't depend on what any other stream has been used for - unlike a single shared java.util.Random.
+ */
+public class StreamRandom {
+    /**
+     * The amount the counter is advanced by for each number (the golden ratio, as a 64 bit fraction).
+     */
+    private static final long GAMMA = 0x9E3779B97F4A7C15L;
+
+    /**
+     * The current state (the seed plus the counter multiplied by GAMMA).
+     */
+    private long state;
+
+    /**
+     * @param seed the seed of the stream.
+     */
+    public StreamRandom(long seed) { this.state = seed; }
+
+    /**
+     * Derives the seed of an independent stream from a parent seed and a coordinate.
+     * @param seed the parent seed (e.g. the world seed).
+     * @param coordinate the coordinate of the stream (e.g. the x coordinate of a chunk).
+     * @param salt distinguishes different streams at the same coordinate.
+     * @return the seed of the stream.
+     */
+    public static long deriveSeed(long seed, long coordinate, long salt) {
+        return mix(seed + salt + coordinate * GAMMA);
+    }
+
+    /**
+     * @param z the value to mix.
+     * @return the value, with its bits thoroughly mixed.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * @return the current state, from which setState() continues the stream exactly (e.g. after a snapshot).
+     */
+    public long getState() { return state; }
+    public boolean nextBoolean() { return nextLong() < 0; }
+    /**
+     * @return a value between 0 (inclusive) and 1 (exclusive).
+     */
+    public double nextDouble() { return (nextLong() >>> 11) * 0x1.0p-53; }
+    /**
+     * @param bound the upper bound (exclusive), which must be positive.
+     * @return a value between 0 (inclusive) and bound (exclusive).
+     */
+    public int nextInt(int bound) { return (int) (((nextLong() >>> 33) * bound) >>> 31); }
+    public long nextLong() { return mix(state += GAMMA); }
+    public void setState(long state) { this.state = state; }
+}
@@ -0,0 +1,18 @@
+package uk.bh96.openworld;
+
+/**
+ * The length of a simulation tick. The game is always updated in whole ticks, so it behaves the same at any frame rate
+ * (and a recording of the touches, see InputRecorder, can be replayed tick for tick).
+ */
+public final class Tick {
+    /**
+     * The length of a tick in seconds.
+     */
+    public static final float SECONDS = 1 / 30f;
+    /**
+     * The length of a tick in nanoseconds.
+     */
+    public static final long NANOS = 1000000000L / 30;
+
+    private Tick() { }
+}
@@ -0,0 +1,197 @@
+package uk.bh96.openworld;
+
+/**
+ * Sweeps axis-aligned boxes (lifeforms) through the world's grid of tiles, finding the first solid tile each would hit,
+ * when (as a fraction of the move) it would hit it, and which face it would hit. Because whole moves are swept rather
+ * than their end points probed, nothing can pass through a thin floor or wall however fast it's moving. Moves can be
+ * swept one at a time (sweep) or as a batch (sweepAll), and nothing here allocates or throws.
+ */
+public class TileCollider {
+    /**
+     * No contact.
+     */
+    public static final byte NONE = 0;
+    /**
+     * Hit the right face of a tile (while moving left), so the normal points to the right.
+     */
+    public static final byte NORMAL_RIGHT = 1;
+    /**
+     * Hit the left face of a tile (while moving right), so the normal points to the left.
+     */
+    public static final byte NORMAL_LEFT = 2;
+    /**
+     * Hit the top face of a tile (while falling), so the normal points up.
+     */
+    public static final byte NORMAL_UP = 3;
+    /**
+     * Hit the bottom face of a tile (while rising), so the normal points down.
+     */
+    public static final byte NORMAL_DOWN = 4;
+    /**
+     * How far (in blocks) a box may already be inside a tile at the start of a move, and still be stopped by it.
+     * Absorbs rounding errors, so a box resting against a tile stays against it.
+     */
+    private static final float TOLERANCE = 0.001f;
+
+    /**
+     * The first contact found by the latest sweep.
+     */
+    public static class Contact {
+        /**
+         * Which face was hit (NONE, or one of the NORMAL_ constants).
+         */
+        private byte normal;
+        /**
+         * When the tile was hit, as a fraction (0-1) of the move.
+         */
+        private float time;
+        /**
+         * The x coordinate of the tile which was hit.
+         */
+        private int tileX;
+        /**
+         * The y coordinate of the tile which was hit.
+         */
+        private int tileY;
+
+        /**
+         * @return which face was hit (NONE, or one of the NORMAL_ constants).
+         */
+        public byte getNormal() { return normal; }
+        /**
+         * @return when the tile was hit, as a fraction (0-1) of the move (1 if nothing was hit).
+         */
+        public float getTime() { return time; }
+        public int getTileX() { return tileX; }
+        public int getTileY() { return tileY; }
+    }
+
+    /**
+     * The world whose tiles are swept against.
+     */
+    private final World world;
+
+    /**
+     * @param world the world whose tiles should be swept against.
+     */
+    public TileCollider(World world) { this.world = world; }
+
+    /**
+     * Sweeps a box through the world.
+     * @param minX the left edge of the box.
+     * @param minY the bottom edge of the box.
+     * @param maxX the right edge of the box.
+     * @param maxY the top edge of the box.
+     * @param dx how far the box is moving horizontally.
+     * @param dy how far the box is moving vertically.
+     * @param contact where to put the first contact (if there's no contact, its normal is NONE and its time 1).
+     * @return true if the box would hit a solid tile.
+     */
+    public boolean sweep(float minX, float minY, float maxX, float maxY, float dx, float dy, Contact contact) {
+        contact.normal = NONE;
+        contact.time = 1;
+        if (dx == 0 && dy == 0) {
+            return false;
+        }
+        // every tile which the box touches at some point during the move
+        int firstX = (int) Math.floor(Math.min(minX, minX + dx));
+        int lastX = (int) Math.floor(Math.max(maxX, maxX + dx));
+        int firstY = Math.max(0, (int) Math.floor(Math.min(minY, minY + dy)));
+        int lastY = Math.min(Chunk.HEIGHT - 1, (int) Math.floor(Math.max(maxY, maxY + dy)));
+        for (int tileX = firstX; tileX <= lastX; tileX++) {
+            for (int tileY = firstY; tileY <= lastY; tileY++) {
+                if (world.isSolid(tileX, tileY)) {
+                    sweepTile(minX, minY, maxX, maxY, dx, dy, tileX, tileY, contact);
+                }
+            }
+        }
+        return contact.normal != NONE;
+    }
+
+    /**
+     * Sweeps a batch of boxes (e.g. every lifeform's move this tick) through the world.
+     * @param minX the left edge of each box.
+     * @param minY the bottom edge of each box.
+     * @param maxX the right edge of each box.
+     * @param maxY the top edge of each box.
+     * @param dx how far each box is moving horizontally.
+     * @param dy how far each box is moving vertically.
+     * @param count the number of boxes.
+     * @param times where to put, for each box, when it hits a tile (as a fraction of its move, 1 if it doesn't).
+     * @param normals where to put, for each box, which face it hits (NONE if it doesn't).
+     * @param contact used while sweeping (to avoid allocating).
+     * @return the number of boxes which hit a tile.
+     */
+    public int sweepAll(float[] minX, float[] minY, float[] maxX, float[] maxY, float[] dx, float[] dy, int count,
+                        float[] times, byte[] normals, Contact contact) {
+        int hits = 0;
+        for (int i = 0; i < count; i++) {
+            if (sweep(minX[i], minY[i], maxX[i], maxY[i], dx[i], dy[i], contact)) {
+                hits++;
+            }
+            times[i] = contact.time;
+            normals[i] = contact.normal;
+        }
+        return hits;
+    }
+
+    /**
+     * Sweeps a box against a single (solid) tile, recording the contact if it's earlier than the one found so far.
+     * @param minX the left edge of the box.
+     * @param minY the bottom edge of the box.
+     * @param maxX the right edge of the box.
+     * @param maxY the top edge of the box.
+     * @param dx how far the box is moving horizontally.
+     * @param dy how far the box is moving vertically.
+     * @param tileX the x coordinate of the tile.
+     * @param tileY the y coordinate of the tile.
+     * @param contact the earliest contact found so far.
+     */
+    private static void sweepTile(float minX, float minY, float maxX, float maxY, float dx, float dy, int tileX, int tileY, Contact contact) {
+        // when the box starts and stops overlapping the tile along each axis
+        float entryX, exitX, entryY, exitY;
+        if (dx > 0) {
+            entryX = (tileX - maxX) / dx;
+            exitX = (tileX + 1 - minX) / dx;
+        } else if (dx < 0) {
+            entryX = (tileX + 1 - minX) / dx;
+            exitX = (tileX - maxX) / dx;
+        } else if (minX < tileX + 1 && maxX > tileX) {
+            entryX = Float.NEGATIVE_INFINITY;
+            exitX = Float.POSITIVE_INFINITY;
+        } else {
+            return; // never overlaps horizontally
+        }
+        if (dy > 0) {
+            entryY = (tileY - maxY) / dy;
+            exitY = (tileY + 1 - minY) / dy;
+        } else if (dy < 0) {
+            entryY = (tileY + 1 - minY) / dy;
+            exitY = (tileY - maxY) / dy;
+        } else if (minY < tileY + 1 && maxY > tileY) {
+            entryY = Float.NEGATIVE_INFINITY;
+            exitY = Float.POSITIVE_INFINITY;
+        } else {
+            return; // never overlaps vertically
+        }
+        float entry = Math.max(entryX, entryY);
+        float exit = Math.min(exitX, exitY);
+        if (entry >= exit || entry > contact.time) {
+            return; // misses, or hits after something else
+        }
+        // the box hits the face along whichever axis it was the last to start overlapping on
+        boolean horizontal = entryX > entryY;
+        float distance = horizontal ? Math.abs(dx) : Math.abs(dy);
+        if (entry * distance < -TOLERANCE) {
+            return; // already well inside the tile, or moving away from it
+        }
+        contact.time = Math.max(0, entry);
+        contact.tileX = tileX;
+        contact.tileY = tileY;
+        if (horizontal) {
+            contact.normal = dx > 0 ? NORMAL_LEFT : NORMAL_RIGHT;
+        } else {
+            contact.normal = dy > 0 ? NORMAL_DOWN : NORMAL_UP;
+        }
+    }
+}
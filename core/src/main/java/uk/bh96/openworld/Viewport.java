@@ -0,0 +1,36 @@
+package uk.bh96.openworld;
+
+/**
+ * Works out which blocks can be seen through a view of the world which is centred on a camera.
+ */
+public final class Viewport {
+    private Viewport() { }
+
+    /**
+     * Works out the range of blocks visible around the camera.
+     * @param cameraX the x coordinate the camera is centred on.
+     * @param cameraY the y coordinate the camera is centred on.
+     * @param viewWidth the width of the view (e.g. in pixels).
+     * @param viewHeight the height of the view (in the same units as the width).
+     * @param blockSize the size of a block (in the same units as the width).
+     * @param margin the number of extra blocks to include on each side.
+     * @param minMaxXY where to put the range, as {minX, maxX, minY, maxY}.
+     */
+    public static void getVisibleRange(float cameraX, float cameraY, int viewWidth, int viewHeight, float blockSize, int margin, int[] minMaxXY) {
+        int minXIndex = (int) Math.floor((cameraX - ((viewWidth / 2) / blockSize))) - margin;
+        int maxXIndex = (int) Math.floor((cameraX + ((viewWidth / 2) / blockSize))) + margin;
+        int minYIndex = (int) Math.floor((cameraY - ((viewHeight / 2) / blockSize))) - margin;
+        int maxYIndex = (int) Math.ceil((cameraY + ((viewHeight / 2) / blockSize))) + margin;
+        // the world is (effectively) endless horizontally, but has a fixed height
+        if (minYIndex < 0) {
+            minYIndex = 0;
+        }
+        if (maxYIndex > Chunk.HEIGHT - 1) {
+            maxYIndex = Chunk.HEIGHT - 1;
+        }
+        minMaxXY[0] = minXIndex;
+        minMaxXY[1] = maxXIndex;
+        minMaxXY[2] = minYIndex;
+        minMaxXY[3] = maxYIndex;
+    }
+}
@@ -0,0 +1,699 @@
+package uk.bh96.openworld;
+
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import uk.bh96.openworld.blocks.*;
+import uk.bh96.openworld.mobs.*;
+
+/**
+ * Created by Ben on 04/04/2017.
+ */
+
+public class World {
+    /**
+     * Is told how much of the area around a new player is ready (see prepare()).
+     */
+    public interface Progress {
+        /**
+         * Called each time a chunk is ready (on whichever thread made it ready).
+         * @param ready the number of chunks ready so far.
+         * @param total the number of chunks which will be ready when the whole area is.
+         */
+        void chunkReady(int ready, int total);
+    }
+
+    /**
+     * Holds how many stages each block has been destroyed. Blocks themselves are shared, so this per-cell state has to
+     * live here rather than in the block.
+     */
+    private final BlockDamage damage;
+    /**
+     * Whether the player is destroying a block (any coordinates are valid, so this can't be marked by miningX).
+     */
+    private boolean destroying = false;
+    /**
+     * The x coordinate of the block the player is destroying (if destroying).
+     */
+    private int miningX;
+    /**
+     * The y coordinate of the block the player is destroying (if destroying).
+     */
+    private int miningY;
+    /**
+     * Damages the block being destroyed, every MINING_TICKS while there is one.
+     */
+    private final Scheduler.Task mining = new Scheduler.Task(Scheduler.MINING) {
+        public void run(long tick, long argument) {
+            if (tick != nextMiningTick) {
+                return; // (it's been rescheduled since)
+            }
+            if (destroying) { // if there's a block selected for destruction
+                damageBlock(miningX, miningY, 1);
+                nextMiningTick = tick + MINING_TICKS;
+                scheduler.schedule(this, nextMiningTick, 0);
+            } else {
+                nextMiningTick = -1; // stop, until the player starts destroying a block again
+            }
+        }
+    };
+    /**
+     * The tick at which the player next damages the block being destroyed (-1 if none is).
+     */
+    private long nextMiningTick = -1;
+    /**
+     * The tick at which the next mob spawns.
+     */
+    private long nextSpawnTick = -1;
+    /**
+     * Tries to spawn a mob, and schedules the next.
+     */
+    private final Scheduler.Task spawn = new Scheduler.Task(Scheduler.SPAWN) {
+        public void run(long tick, long argument) {
+            if (tick == nextSpawnTick) {
+                spawnMob();
+                scheduleSpawn();
+            }
+        }
+    };
+    /**
+     * How often (in ticks) the player damages the block being destroyed.
+     */
+    private static final int MINING_TICKS = 3;
+    /**
+     * The chance of a mob spawning every SPAWN_TICKS (one mob every 20 seconds, on average).
+     */
+    private static final double SPAWN_CHANCE = 1 / 200.0;
+    /**
+     * How often (in ticks) a mob has a chance of spawning.
+     */
+    private static final int SPAWN_TICKS = 3;
+    /**
+     * How far (in blocks) the target of a flow field can move before the field is moved to follow it.
+     */
+    private static final int FLOW_FIELD_RECENTRE_DISTANCE = 8;
+    /**
+     * The most mobs which may be within SPAWN_DENSITY_RADIUS of a spawn location for another to spawn there.
+     */
+    private static final int MAX_MOBS_NEAR_SPAWN = 3;
+    /**
+     * The radius (in blocks) around a spawn location within which mobs count against MAX_MOBS_NEAR_SPAWN.
+     */
+    private static final float SPAWN_DENSITY_RADIUS = 8;
+    /**
+     * Distinguishes the world's random number generator from the generator's streams (see StreamRandom).
+     */
+    private static final long SALT_EVENTS = 0x4556454e54L;
+    /**
+     * Sweeps lifeforms through the world's blocks.
+     */
+    private final TileCollider collider = new TileCollider(this);
+    /**
+     * The flow fields which mobs use to find their way to their targets (one per target).
+     */
+    private final ArrayList<FlowField> flowFields = new ArrayList<>();
+    /**
+     * How far (in blocks) either side of its target a flow field reaches.
+     */
+    private final int flowFieldHalfWidth;
+    /**
+     * Records every block changed since the world was last saved, so that the changes survive the game being killed, or
+     * null if the world isn't saved.
+     */
+    private final BlockJournal journal;
+    /**
+     * Holds the mobs in this world.
+     */
+    private final MobStore mobs = new MobStore(this);
+    /**
+     * Holds the player in this world.
+     */
+    private Player player;
+    /**
+     * References the random number generator (with state) - this means two worlds started with the same seed will be identical (and will continue to be so until the inputs between the worlds differ somehow.
+     */
+    private final StreamRandom rand;
+    /**
+     * The seed the world was created with.
+     */
+    private final long seed;
+    /**
+     * Runs everything in the world which happens on a timer (see Scheduler), driven by ticks.
+     */
+    private final Scheduler scheduler = new Scheduler();
+    /**
+     * Records the change in score during this tick.
+     */
+    private short scoreChange = 0;
+    /**
+     * The number of times the world has been updated.
+     */
+    private long ticks = 0;
+    /**
+     * The tick of the latest change replayed from the journal when the world was opened, or -1 if there were none. A
+     * session snapshot taken before then is out of date (see readState()).
+     */
+    private long replayedTick = -1;
+    /**
+     * The width of the screen as measured in blocks (one block at 160dpi is 56px).
+     */
+    private float screenWidthInBlocks;
+    /**
+     * The height of the screen as measured in blocks (one block at 160dpi is 56px).
+     */
+    private float screenHeightInBlocks;
+    /**
+     * The chunks which are currently loaded, indexed by their x coordinate (in chunks) modulo the length of the array.
+     * The array is always longer than the loaded region, so a chunk only ever shares its slot with one far away.
+     */
+    private final Chunk[] chunks;
+    /**
+     * Generates chunks when they are first needed.
+     */
+    private final WorldGenerator generator;
+    /**
+     * Where chunks are saved to when they're unloaded (and loaded from before being generated), or null if the world
+     * isn't saved.
+     */
+    private final WorldStorage storage;
+    /**
+     * How many chunks either side of the player's chunk are kept uncompressed (the rest of the loaded chunks are
+     * compressed, see Chunk).
+     */
+    private final int activeRadius;
+    /**
+     * How many chunks either side of the player's chunk are kept loaded.
+     */
+    private final int loadRadius;
+    /**
+     * The chunk which the player was in when chunks were last loaded / unloaded.
+     */
+    private int playerChunkX = Integer.MIN_VALUE;
+
+    /**
+     * @param seed the seed with which to initialise the random number generator.
+     * @param screenWidthInBlocks the width of the screen in blocks.
+     * @param screenHeightInBlocks the height of the screen in blocks.
+     * @param saveDirectory the directory to save the world in, or null if it shouldn't be saved.
+     */
+    public World(long seed, float screenWidthInBlocks, float screenHeightInBlocks, File saveDirectory) {
+        this.screenWidthInBlocks = screenWidthInBlocks;
+        this.screenHeightInBlocks = screenHeightInBlocks;
+        this.storage = saveDirectory == null ? null : new WorldStorage(saveDirectory);
+        this.seed = seed;
+
+        rand = new StreamRandom(StreamRandom.deriveSeed(seed, 0, SALT_EVENTS));
+        generator = new WorldGenerator(seed);
+        damage = new BlockDamage(scheduler);
+        scheduleSpawn();
+
+        // keep everything that a mob could be in (they're despawned at twice the screen width) loaded
+        loadRadius = (int) Math.ceil(2 * screenWidthInBlocks / Chunk.WIDTH) + 1;
+        // only what's on screen (and a little either side) is likely to change, or be looked at every frame
+        activeRadius = Math.min(loadRadius, (int) Math.ceil(screenWidthInBlocks / (2 * Chunk.WIDTH)) + 1);
+        int slots = 1;
+        while (slots < 2 * loadRadius + 3) { // the loaded chunks, plus one either side before they're unloaded
+            slots <<= 1;
+        }
+        chunks = new Chunk[slots];
+        // mobs are despawned at twice the screen width, so that's as far as they need to find their way from. Along
+        // with the distance the target can move before the field follows it, this stays within the loaded chunks
+        flowFieldHalfWidth = (int) Math.ceil(2 * screenWidthInBlocks) + FLOW_FIELD_RECENTRE_DISTANCE / 2;
+
+        // apply any changes which were made after the world was last saved (i.e. the game was killed)
+        journal = saveDirectory == null ? null : new BlockJournal(new File(saveDirectory, "edits.owj"));
+        if (journal != null) {
+            int replayed = journal.replay(new BlockJournal.Editor() {
+                public void setBlock(int x, int y, byte paletteId, long tick) {
+                    Chunk chunk = getChunk(Chunk.chunkXOf(x));
+                    chunk.setBlock(x & (Chunk.WIDTH - 1), y, paletteId);
+                    chunk.setDirty(true);
+                    chunk.setEdited(true);
+                    replayedTick = Math.max(replayedTick, tick);
+                }
+            });
+            if (replayed > 0) {
+                GameLog.d("World", "Replayed block changes from the journal:", replayed);
+                save(); // now they're in the region files, the journal can be emptied
+            }
+        }
+    }
+
+    /**
+     * @param player the player to be added to the world.
+     */
+    public void addPlayer(Player player) { this.player = player; }
+
+    /**
+     * (attempts to) attack a mob at given coordinates.
+     * @param x the x coordinate to attack.
+     * @param y the y coordinate to attack.
+     */
+    public void attackMob(float x, float y) {
+        GameLog.d("AttackMob", "Attempting to attack mob at", x, y);
+        mobs.damageAt(x, y, 15);
+    }
+
+    /**
+     * Hashes the state of the world: every loaded block and every mob. Two worlds which have been through the same
+     * ticks (e.g. a game and its replay, see Replay) should always have the same checksum.
+     * @return the checksum.
+     */
+    public long checksum() {
+        long hash = 1125899906842597L;
+        for (Chunk chunk : chunks) {
+            if (chunk != null) {
+                hash = 31 * hash + chunk.getChunkX();
+                for (int localX = 0; localX < Chunk.WIDTH; localX++) {
+                    for (int y = 0; y < Chunk.HEIGHT; y++) {
+                        hash = 31 * hash + chunk.getBlock(localX, y);
+                    }
+                }
+            }
+        }
+        for (int mob = 0; mob < mobs.size(); mob++) {
+            hash = 31 * hash + mobs.getType(mob).ordinal();
+            hash = 31 * hash + Float.floatToIntBits(mobs.getX(mob));
+            hash = 31 * hash + Float.floatToIntBits(mobs.getY(mob));
+            hash = 31 * hash + Float.floatToIntBits(mobs.getHealth(mob));
+        }
+        return hash;
+    }
+
+    /**
+     * Damages a block, replacing it with air once it's been damaged more than its durability.
+     * @param x the x coordinate of the block.
+     * @param y the y coordinate of the block.
+     * @param amount the number of stages to damage it by.
+     */
+    public void damageBlock(int x, int y, int amount) {
+        Block block = getBlock(x, y);
+        if (block != null) {
+            if (damage.add(x, y, amount) > block.getDurability()) {
+                // the block has been completely destroyed, so replace it with air
+                setBlock(x, y, Blocks.AIR);
+                damage.remove(x, y);
+                scoreChange += block.getDestroyScore();
+            }
+        }
+    }
+
+    /**
+     * Stops destroying the block being destroyed (which then recovers gradually, see BlockDamage).
+     */
+    public void stopDestroyingBlock() { destroying = false; }
+
+    /**
+     * Destroy a block at given coordinates. A block which was being destroyed before recovers gradually (see
+     * BlockDamage), so switching back to it soon after carries on where it left off.
+     * @param x the x coordinate of the block to destroy.
+     * @param y the y coordinate of the block to destroy.
+     */
+    public void destroyBlock(int x, int y) {
+        destroying = true;
+        miningX = x;
+        miningY = y;
+        if (nextMiningTick < 0) {
+            nextMiningTick = ticks + MINING_TICKS;
+            scheduler.schedule(mining, nextMiningTick, 0);
+        }
+    }
+
+    /**
+     * @param x the x coordinate of the block.
+     * @param y the y coordinate of the block.
+     * @return the (shared) block at the given coordinates, or null if the block is air.
+     */
+    public Block getBlock(int x, int y) {
+        if (y < 0 || y >= Chunk.HEIGHT) {
+            return null; // there's nothing but air above (and below) the world
+        }
+        return Blocks.fromPaletteId(getChunk(Chunk.chunkXOf(x)).getBlock(x & (Chunk.WIDTH - 1), y));
+    }
+
+    public TileCollider getCollider() { return collider; }
+
+    /**
+     * Gets a chunk, generating it if it isn't loaded.
+     * @param chunkX the x coordinate of the chunk, measured in chunks.
+     * @return the chunk.
+     */
+    private Chunk getChunk(int chunkX) {
+        int slot = chunkX & (chunks.length - 1);
+        Chunk chunk = chunks[slot];
+        if (chunk == null || chunk.getChunkX() != chunkX) {
+            unloadChunk(slot);
+            chunk = storage == null ? null : storage.load(chunkX);
+            if (chunk == null) {
+                chunk = generator.take(chunkX);
+            }
+            chunks[slot] = chunk;
+        }
+        return chunk;
+    }
+
+    /**
+     * @param x the x coordinate of a column.
+     * @return the y coordinate of the highest solid block in the column (-1 if there isn't one).
+     */
+    public int getHeight(int x) { return getChunk(Chunk.chunkXOf(x)).getHeight(x & (Chunk.WIDTH - 1)); }
+
+    /**
+     * @param target the lifeform which the flow field should lead towards.
+     * @return the (shared) flow field leading towards the target, which is created if no mob has chased the target yet.
+     */
+    public FlowField getFlowField(Lifeform target) {
+        for (int i = 0; i < flowFields.size(); i++) {
+            if (flowFields.get(i).getTarget() == target) {
+                return flowFields.get(i);
+            }
+        }
+        FlowField flowField = new FlowField(this, target, flowFieldHalfWidth, FLOW_FIELD_RECENTRE_DISTANCE);
+        flowField.update();
+        flowFields.add(flowField);
+        return flowField;
+    }
+
+    /**
+     * @param x the x coordinate of the block.
+     * @param y the y coordinate of the block.
+     * @return how many stages the block at the given coordinates has been destroyed.
+     */
+    public int getDestructionStage(int x, int y) { return damage.get(x, y); }
+
+    public MobStore getMobs() { return mobs; }
+    public Player getPlayer() { return player; }
+    public Scheduler getScheduler() { return scheduler; }
+    public long getScoreChange() { return scoreChange; }
+    public float getScreenHeightInBlocks() { return screenHeightInBlocks; }
+    public float getScreenWidthInBlocks() { return screenWidthInBlocks; }
+    public long getSeed() { return seed; }
+    public boolean isSaved() { return storage != null; }
+
+    /**
+     * Releases the resources (i.e. the generator threads) held by this world.
+     */
+    public void close() {
+        save();
+        generator.shutdown();
+        if (storage != null) {
+            storage.close();
+        }
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    /**
+     * @param x the x coordinate of the block.
+     * @param y the y coordinate of the block.
+     * @return true if the block at the given coordinates is solid (air, and anything above or below the world, is not).
+     */
+    public boolean isSolid(int x, int y) {
+        if (y < 0 || y >= Chunk.HEIGHT) {
+            return false;
+        }
+        return Blocks.isSolid(getChunk(Chunk.chunkXOf(x)).getBlock(x & (Chunk.WIDTH - 1), y));
+    }
+
+    /**
+     * Loads the chunks around the player, and unloads any which are now too far away. Loaded chunks which aren't
+     * close to the player are compressed.
+     */
+    private void loadChunksAroundPlayer() {
+        int newPlayerChunkX = Chunk.chunkXOf((int) Math.floor(player.getX()));
+        if (newPlayerChunkX == playerChunkX) {
+            return;
+        }
+        playerChunkX = newPlayerChunkX;
+        for (int slot = 0; slot < chunks.length; slot++) {
+            if (chunks[slot] != null && Math.abs(chunks[slot].getChunkX() - playerChunkX) > loadRadius + 1) {
+                unloadChunk(slot);
+            }
+        }
+        // the chunks near the player are needed now, so generate every missing one at once (in parallel). The rest are
+        // only queued to be generated in the background, and picked up when they're first used (see getChunk())
+        int[] missing = new int[2 * activeRadius + 1];
+        int missingCount = 0;
+        for (int chunkX = playerChunkX - loadRadius; chunkX <= playerChunkX + loadRadius; chunkX++) {
+            Chunk chunk = chunks[chunkX & (chunks.length - 1)];
+            if (chunk == null || chunk.getChunkX() != chunkX) {
+                Chunk saved = storage == null ? null : storage.load(chunkX);
+                if (saved != null) {
+                    unloadChunk(chunkX & (chunks.length - 1));
+                    chunks[chunkX & (chunks.length - 1)] = saved;
+                } else if (Math.abs(chunkX - playerChunkX) <= activeRadius) {
+                    missing[missingCount++] = chunkX;
+                } else {
+                    generator.prefetch(chunkX, null);
+                }
+            }
+        }
+        generator.discardOutside(playerChunkX - loadRadius - 1, playerChunkX + loadRadius + 1);
+        for (Chunk chunk : generator.generate(missing, missingCount)) {
+            unloadChunk(chunk.getChunkX() & (chunks.length - 1));
+            chunks[chunk.getChunkX() & (chunks.length - 1)] = chunk;
+        }
+        for (Chunk chunk : chunks) {
+            if (chunk != null) {
+                if (Math.abs(chunk.getChunkX() - playerChunkX) > activeRadius) {
+                    chunk.compress();
+                } else {
+                    chunk.decompress();
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Gets the area around a point (e.g. where the player will spawn) ready, without waiting for all of it. Every chunk
+     * which will be loaded around the point is queued to be generated in the background, nearest first, so the chunks
+     * the player will see first are generated first. Only those (the chunks within the active radius) are waited for,
+     * so play can begin as soon as this returns while the rest fills in.
+     * @param x the x coordinate of the point.
+     * @param progress told as each chunk is ready (or null).
+     */
+    public void prepare(int x, final Progress progress) {
+        int centreChunkX = Chunk.chunkXOf(x);
+        final int total = 2 * loadRadius + 1;
+        final AtomicInteger ready = new AtomicInteger();
+        Runnable generated = progress == null ? null : new Runnable() {
+            public void run() { progress.chunkReady(ready.incrementAndGet(), total); }
+        };
+        for (int distance = 0; distance <= loadRadius; distance++) {
+            for (int chunkX = centreChunkX - distance; chunkX <= centreChunkX + distance; chunkX += Math.max(1, 2 * distance)) {
+                Chunk saved = storage == null ? null : storage.load(chunkX);
+                if (saved != null) {
+                    unloadChunk(chunkX & (chunks.length - 1));
+                    chunks[chunkX & (chunks.length - 1)] = saved;
+                    if (generated != null) {
+                        generated.run();
+                    }
+                } else {
+                    generator.prefetch(chunkX, generated);
+                }
+            }
+        }
+        for (int chunkX = centreChunkX - activeRadius; chunkX <= centreChunkX + activeRadius; chunkX++) {
+            getChunk(chunkX);
+        }
+    }
+
+    /**
+     * Reads back the state written by writeState() into this (newly created) world, putting the chunks straight into
+     * place rather than loading or generating them (see SessionSnapshot).
+     * @param in where to read the state from.
+     * @throws IOException if it can't be read, or if the journal held changes made after it was written (i.e. the game
+     * was resumed from it, carried on, and then killed before the next snapshot): restoring it would undo them.
+     */
+    void readState(DataInput in) throws IOException {
+        rand.setState(in.readLong());
+        ticks = in.readLong();
+        if (replayedTick > ticks) { // (blocks only change during a tick, so a change in the snapshot's tick is in it)
+            throw new IOException("The snapshot (tick " + ticks + ") is older than the journal (tick " + replayedTick + ")");
+        }
+        scheduler.reset(ticks); // (forgetting the spawn scheduled when the world was created)
+        destroying = in.readBoolean();
+        miningX = in.readInt();
+        miningY = in.readInt();
+        nextMiningTick = in.readLong();
+        if (nextMiningTick >= 0) {
+            scheduler.schedule(mining, nextMiningTick, 0);
+        }
+        nextSpawnTick = in.readLong();
+        scheduler.schedule(spawn, nextSpawnTick, 0);
+        damage.readState(in);
+        byte[] blocks = new byte[Chunk.BYTES];
+        int edited = in.readInt();
+        for (int i = 0; i < edited; i++) {
+            Chunk chunk = new Chunk(in.readInt());
+            in.readFully(blocks);
+            chunk.readFrom(ByteBuffer.wrap(blocks));
+            // at least as new as anything saved (see above), so it's dirty and edited (as it was when the snapshot was
+            // taken)
+            chunk.setEdited(true);
+            chunks[chunk.getChunkX() & (chunks.length - 1)] = chunk;
+        }
+    }
+
+    /**
+     * Saves every loaded chunk which has changed since it was last saved, and then (once they are all on disk) empties
+     * the journal.
+     */
+    public void save() {
+        if (storage != null) {
+            boolean saved = true;
+            for (Chunk chunk : chunks) {
+                if (chunk != null && chunk.isDirty()) {
+                    storage.save(chunk);
+                    saved &= !chunk.isDirty(); // (it's still dirty if it couldn't be saved)
+                }
+            }
+            if (saved) {
+                // every change is in the region files now, so once they're on disk the journal can be emptied (which
+                // the journal's background thread does, so that this - e.g. pausing - never waits for the disk)
+                journal.checkpoint(storage.flusher());
+            }
+        }
+    }
+
+    /**
+     * @param x the x coordinate of the block.
+     * @param y the y coordinate of the block.
+     * @param paletteId the palette id of the new block.
+     */
+    private void setBlock(int x, int y, byte paletteId) {
+        Chunk chunk = getChunk(Chunk.chunkXOf(x));
+        if (journal != null) {
+            journal.append(x, y, chunk.getBlock(x & (Chunk.WIDTH - 1), y), paletteId, ticks);
+        }
+        chunk.setBlock(x & (Chunk.WIDTH - 1), y, paletteId);
+        chunk.setDirty(true);
+        chunk.setEdited(true);
+        for (int i = 0; i < flowFields.size(); i++) {
+            flowFields.get(i).blockChanged(x, y);
+        }
+    }
+
+    /**
+     * Unloads a chunk, saving it first if it has changed.
+     * @param slot the slot (in chunks) of the chunk to unload.
+     */
+    private void unloadChunk(int slot) {
+        Chunk chunk = chunks[slot];
+        if (chunk != null && chunk.isDirty() && storage != null) {
+            storage.save(chunk);
+        }
+        chunks[slot] = null;
+    }
+
+    /**
+     * Writes everything about the world which changes as it's updated (except the player and mobs, which write their
+     * own): the random number generator, the blocks being destroyed, and every loaded chunk which differs from what
+     * would be generated. Chunks which are already saved and unloaded aren't written (see SessionSnapshot).
+     * @param out where to write the state.
+     * @throws IOException if it can't be written.
+     */
+    void writeState(DataOutput out) throws IOException {
+        out.writeLong(rand.getState());
+        out.writeLong(ticks);
+        out.writeBoolean(destroying);
+        out.writeInt(miningX);
+        out.writeInt(miningY);
+        out.writeLong(nextMiningTick);
+        out.writeLong(nextSpawnTick);
+        damage.writeState(out);
+        int edited = 0;
+        for (Chunk chunk : chunks) {
+            if (chunk != null && chunk.isEdited()) {
+                edited++;
+            }
+        }
+        out.writeInt(edited);
+        ByteBuffer blocks = ByteBuffer.allocate(Chunk.BYTES);
+        for (Chunk chunk : chunks) {
+            if (chunk != null && chunk.isEdited()) {
+                blocks.clear();
+                chunk.writeTo(blocks);
+                out.writeInt(chunk.getChunkX());
+                out.write(blocks.array());
+            }
+        }
+    }
+
+    /**
+     * Schedules the next mob to spawn. Each SPAWN_TICKS has a SPAWN_CHANCE of spawning a mob, so the wait is drawn
+     * from the number of tries until one succeeds (rather than rolling every SPAWN_TICKS).
+     */
+    private void scheduleSpawn() {
+        // StrictMath, so that a replay (or a restored snapshot) waits exactly as long on any device
+        long tries = 1 + (long) (StrictMath.log(1 - rand.nextDouble()) / StrictMath.log(1 - SPAWN_CHANCE));
+        nextSpawnTick = ticks + tries * SPAWN_TICKS;
+        scheduler.schedule(spawn, nextSpawnTick, 0);
+    }
+
+    /**
+     * Tries to spawn a mob, just off the edge of the screen.
+     */
+    private void spawnMob() {
+        GameLog.d("SpawnMob", "Attempting to spawn mob...");
+        // find an appropriate* space to spawn immidiately off the edge of the screen
+        // * appropriate - a null block with (at least) one null block above and a solid block below
+        // each chunk keeps track of these as its blocks change, so this doesn't have to look at any blocks
+        int leftEdgeX = (int) Math.floor(player.getX() - (screenWidthInBlocks / 2f));
+        int rightEdgeX = (int) Math.floor(player.getX() + (screenWidthInBlocks / 2f));
+        int bottomEdgeY = Math.max(0, (int) Math.floor(player.getY() - (screenHeightInBlocks / 2f)));
+        int topEdgeY = Math.min(Chunk.HEIGHT - 1, (int) Math.floor(player.getY() + (screenHeightInBlocks / 2f)));
+        Chunk leftChunk = getChunk(Chunk.chunkXOf(leftEdgeX));
+        Chunk rightChunk = getChunk(Chunk.chunkXOf(rightEdgeX));
+        int leftCount = leftChunk.countSpawnCandidates(leftEdgeX & (Chunk.WIDTH - 1), bottomEdgeY, topEdgeY);
+        int rightCount = rightChunk.countSpawnCandidates(rightEdgeX & (Chunk.WIDTH - 1), bottomEdgeY, topEdgeY);
+        if (leftCount + rightCount != 0) { // if there's a space to spawn in
+            int n = rand.nextInt(leftCount + rightCount);
+            int x, y;
+            if (n < leftCount) {
+                x = leftEdgeX;
+                y = leftChunk.getSpawnCandidate(leftEdgeX & (Chunk.WIDTH - 1), bottomEdgeY, topEdgeY, n);
+            } else {
+                x = rightEdgeX;
+                y = rightChunk.getSpawnCandidate(rightEdgeX & (Chunk.WIDTH - 1), bottomEdgeY, topEdgeY, n - leftCount);
+            }
+            if (mobs.countNear(x, y, SPAWN_DENSITY_RADIUS) >= MAX_MOBS_NEAR_SPAWN) {
+                GameLog.d("SpawnMob", "Spawning mob failed - too many mobs near", x, y);
+            } else {
+                mobs.add(Mobs.ZOMBIE, x, y);
+                GameLog.d("SpawnMob", "New mob spawned at", x, y);
+            }
+        } else {
+            GameLog.d("SpawnMob", "Spawning mob failed - no appropriate spaces!");
+        }
+    }
+
+    /**
+     * Updates the state of the world.
+     * @param secondsElapsed the number of seconds (or part thereof) that have elapsed since the last update.
+     */
+    public void update(float secondsElapsed) {
+        ticks++;
+        loadChunksAroundPlayer();
+
+        // run whatever is due this tick (blocks being destroyed or recovering, mobs spawning, the player's steps...)
+        scoreChange = 0;
+        scheduler.advance(ticks);
+
+        // bring the mobs' flow fields up to date (e.g. with any blocks destroyed this tick) before the mobs use them
+        for (int i = 0; i < flowFields.size(); i++) {
+            flowFields.get(i).update();
+        }
+
+        // update the mobs, despawning any which are a long way off-screen
+        mobs.update(secondsElapsed, player, 2 * screenWidthInBlocks, 2 * screenHeightInBlocks);
+    }
+}
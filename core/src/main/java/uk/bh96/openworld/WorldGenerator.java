@@ -0,0 +1,432 @@
+package uk.bh96.openworld;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import uk.bh96.openworld.blocks.Blocks;
+
+/**
+ * Generates chunks of the world. Every chunk is generated purely from the world seed and its own coordinate (each pass
+ * of each chunk has its own StreamRandom), so chunks can be generated in any order, on any number of threads (and
+ * regenerated later) and will always come out the same.
+ */
+public class WorldGenerator {
+    /**
+     * Salt used to derive the random number generator for the normal blocks of a chunk.
+     */
+    private static final long SALT_TERRAIN = 0x5DEECE66DL;
+    /**
+     * Salt used to derive the random number generator for the ore of a chunk.
+     */
+    private static final long SALT_ORE = 0x2545F4914F6CDD1DL;
+
+    /**
+     * The threads which chunks are generated on.
+     */
+    private final ExecutorService executor;
+    /**
+     * Chunks which have been queued to be generated in the background (see prefetch()), keyed by their x coordinate
+     * (measured in chunks), until they're taken.
+     */
+    private final ConcurrentHashMap<Integer, Future<Chunk>> prefetched = new ConcurrentHashMap<>();
+    /**
+     * The seed of the world being generated.
+     */
+    private final long seed;
+
+    /**
+     * Creates a generator which uses one thread per core.
+     * @param seed the seed of the world to generate.
+     */
+    public WorldGenerator(long seed) { this(seed, Runtime.getRuntime().availableProcessors()); }
+
+    /**
+     * @param seed the seed of the world to generate.
+     * @param threads the number of threads to generate chunks on (this doesn't affect what is generated).
+     */
+    public WorldGenerator(long seed, int threads) {
+        this.seed = seed;
+        executor = Executors.newFixedThreadPool(Math.max(1, threads), new ThreadFactory() {
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "WorldGenerator");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Waits for a chunk being generated on another thread.
+     * @param future the chunk being generated.
+     * @param chunkX the x coordinate of the chunk, measured in chunks.
+     * @return the chunk.
+     */
+    private Chunk await(Future<Chunk> future, int chunkX) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return generate(chunkX); // generate it ourselves rather than leave a hole
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    /**
+     * Forgets any prefetched chunks outside a range (e.g. because the player has moved away before they were needed).
+     * @param minChunkX the x coordinate of the first chunk to keep, measured in chunks.
+     * @param maxChunkX the x coordinate of the last chunk to keep, measured in chunks.
+     */
+    public void discardOutside(int minChunkX, int maxChunkX) {
+        Iterator<Map.Entry<Integer, Future<Chunk>>> entries = prefetched.entrySet().iterator();
+        while (entries.hasNext()) {
+            Map.Entry<Integer, Future<Chunk>> entry = entries.next();
+            if (entry.getKey() < minChunkX || entry.getKey() > maxChunkX) {
+                entry.getValue().cancel(false);
+                entries.remove();
+            }
+        }
+    }
+
+    /**
+     * Generates a chunk.
+     * @param chunkX the x coordinate of the chunk, measured in chunks.
+     * @return the newly generated chunk.
+     */
+    public Chunk generate(int chunkX) {
+        Chunk chunk = new Chunk(chunkX);
+        generateTerrain(chunk);
+        // ore clusters and veins can spill a few blocks either side of where they start, so the chunks either side
+        // of this one are (re)played too - only the blocks which land within this chunk are kept
+        for (int originX = chunkX - 1; originX <= chunkX + 1; originX++) {
+            generateOre(chunk, originX);
+        }
+        // add bedrock and lava to the bottom
+        for (int localX = 0; localX < Chunk.WIDTH; localX++) {
+            chunk.setBlock(localX, 0, Blocks.BEDROCK.getPaletteId());
+            chunk.setBlock(localX, 1, Blocks.LAVA.getPaletteId());
+        }
+        return chunk;
+    }
+
+    /**
+     * Generates several chunks concurrently.
+     * @param chunkXs the x coordinates of the chunks, measured in chunks.
+     * @param count the number of coordinates in chunkXs to generate.
+     * @return the newly generated chunks, in the same order as chunkXs.
+     */
+    public Chunk[] generate(int[] chunkXs, int count) {
+        ArrayList<Future<Chunk>> futures = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Future<Chunk> future = prefetched.remove(chunkXs[i]); // (which may already be done)
+            futures.add(future != null ? future : submit(chunkXs[i], null));
+        }
+        Chunk[] generated = new Chunk[count];
+        for (int i = 0; i < count; i++) {
+            generated[i] = await(futures.get(i), chunkXs[i]);
+        }
+        return generated;
+    }
+
+    /**
+     * Queues a chunk to be generated in the background, so that it's ready (or on its way) when it's needed - see
+     * take(). Chunks are generated in the order they're queued. Does nothing if the chunk is already queued.
+     * @param chunkX the x coordinate of the chunk, measured in chunks.
+     * @param generated run (on a generator thread) once the chunk has been generated, or null.
+     */
+    public void prefetch(int chunkX, Runnable generated) {
+        if (!prefetched.containsKey(chunkX)) {
+            prefetched.put(chunkX, submit(chunkX, generated));
+        }
+    }
+
+    /**
+     * Queues a chunk to be generated on one of the generator's threads.
+     * @param chunkX the x coordinate of the chunk, measured in chunks.
+     * @param generated run (on the generator thread) once the chunk has been generated, or null.
+     * @return the chunk being generated.
+     */
+    private Future<Chunk> submit(final int chunkX, final Runnable generated) {
+        return executor.submit(new Callable<Chunk>() {
+            public Chunk call() {
+                Chunk chunk = generate(chunkX);
+                if (generated != null) {
+                    generated.run();
+                }
+                return chunk;
+            }
+        });
+    }
+
+    /**
+     * Takes a chunk queued by prefetch() (waiting for it, if it isn't ready yet), or generates it now if it wasn't
+     * queued.
+     * @param chunkX the x coordinate of the chunk, measured in chunks.
+     * @return the newly generated chunk.
+     */
+    public Chunk take(int chunkX) {
+        Future<Chunk> future = prefetched.remove(chunkX);
+        return future == null ? generate(chunkX) : await(future, chunkX);
+    }
+
+    /**
+     * Generates the normal blocks (stone, dirt and grass) of a chunk.
+     * @param chunk the chunk to fill.
+     */
+    private void generateTerrain(Chunk chunk) {
+        StreamRandom rand = new StreamRandom(StreamRandom.deriveSeed(seed, chunk.getChunkX(), SALT_TERRAIN));
+        byte stone = Blocks.STONE.getPaletteId();
+        byte dirt = Blocks.DIRT.getPaletteId();
+        for (int x = 0; x < Chunk.WIDTH; x++) { // for each column in the chunk
+            for (int y = 0; y < Chunk.HEIGHT; y++) { // for each row in that column
+                if (y < 113) {
+                    chunk.setBlock(x, y, stone);
+                } else if (y < 119) {
+                    if (rand.nextDouble() < 0.75) {
+                        chunk.setBlock(x, y, stone);
+                    } else {
+                        chunk.setBlock(x, y, dirt);
+                    }
+                } else if (y < 123) {
+                    if (rand.nextDouble() < 0.5) {
+                        chunk.setBlock(x, y, stone);
+                    } else {
+                        chunk.setBlock(x, y, dirt);
+                    }
+                } else if (y < 125) {
+                    if (rand.nextDouble() < 0.25) {
+                        chunk.setBlock(x, y, stone);
+                    } else {
+                        chunk.setBlock(x, y, dirt);
+                    }
+                } else if (y < 127) {
+                    chunk.setBlock(x, y, dirt);
+                } else if (y == 127) {
+                    chunk.setBlock(x, y, Blocks.GRASS.getPaletteId());
+                }
+            }
+        }
+    }
+
+    /**
+     * Generates the ore which starts within one chunk, keeping only the blocks which land within another.
+     * @param chunk the chunk being generated.
+     * @param originX the x coordinate (in chunks) of the chunk whose ore should be generated.
+     */
+    private void generateOre(Chunk chunk, int originX) {
+        StreamRandom rand = new StreamRandom(StreamRandom.deriveSeed(seed, originX, SALT_ORE));
+        int minX = originX << Chunk.WIDTH_BITS;
+        for (int x = minX; x < minX + Chunk.WIDTH; x++) { // for each column in the chunk
+            for (int y = 5; y < Chunk.HEIGHT - 1; y++) { // for each row in that column
+                if (y <= 20) {
+                    if (rand.nextDouble() < 0.01) { // 1% chance of starting a diamond cluster
+                        generateCluster(chunk, rand, x, y, Blocks.DIAMOND, 3, 5);
+                    } else if (rand.nextDouble() < 0.015) { // 1.5% chance of starting a gold cluster
+                        generateCluster(chunk, rand, x, y, Blocks.GOLD, 4, 8);
+                    }
+                } else if (y <= 32) {
+                    if (rand.nextDouble() < 0.005) { // 0.5% chance of starting a diamond cluster
+                        generateCluster(chunk, rand, x, y, Blocks.DIAMOND, 3, 5);
+                    } else if (rand.nextDouble() < 0.015) { // 1.5% chance of starting a gold cluster
+                        generateCluster(chunk, rand, x, y, Blocks.GOLD, 3, 6);
+                    }
+                } else if (y <= 45) {
+                    if (rand.nextDouble() < 0.01) { // 1% chance of starting a gold cluster
+                        generateCluster(chunk, rand, x, y, Blocks.GOLD, 3, 6);
+                    } else if (rand.nextDouble() < 0.01) { // 1% chance of starting a iron cluster
+                        generateCluster(chunk, rand, x, y, Blocks.IRON, 5, 12);
+                    }
+                } else if (y <= 64) {
+                    if (rand.nextDouble() < 0.005) { // 0.5% chance of starting a gold cluster
+                        generateCluster(chunk, rand, x, y, Blocks.GOLD, 3, 6);
+                    } else if (rand.nextDouble() < 0.01) { // 1% chance of starting a iron cluster
+                        generateCluster(chunk, rand, x, y, Blocks.IRON, 5, 12);
+                    } else if (rand.nextDouble() < 0.005) { // 0.5% chance of starting a coal vein
+                        generateVein(chunk, rand, x, y, Blocks.COAL);
+                    }
+                } else if (y <= 84) {
+                    if (rand.nextDouble() < 0.01) { // 1% chance of starting a iron cluster
+                        generateCluster(chunk, rand, x, y, Blocks.IRON, 5, 12);
+                    } else if (rand.nextDouble() < 0.005) { // 0.5% chance of starting a coal vein
+                        generateVein(chunk, rand, x, y, Blocks.COAL);
+                    }
+                } else if (y <= 96) {
+                    if (rand.nextDouble() < 0.005) { // 0.5% chance of starting a iron cluster
+                        generateCluster(chunk, rand, x, y, Blocks.IRON, 5, 12);
+                    } else if (rand.nextDouble() < 0.0075) { // 0.75% chance of starting a coal vein
+                        generateVein(chunk, rand, x, y, Blocks.COAL);
+                    }
+                } else if (y <= 112) {
+                    if (rand.nextDouble() < 0.005) { // 0.5% chance of starting a coal vein
+                        generateVein(chunk, rand, x, y, Blocks.COAL);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Sets a block, if it falls within the chunk being generated.
+     * @param chunk the chunk being generated.
+     * @param x the x coordinate of the block (in blocks, not relative to the chunk).
+     * @param y the y coordinate of the block.
+     * @param paletteId the palette id of the block.
+     */
+    private static void set(Chunk chunk, int x, int y, byte paletteId) {
+        int localX = x - chunk.getMinX();
+        if (localX >= 0 && localX < Chunk.WIDTH) {
+            chunk.setBlock(localX, y, paletteId);
+        }
+    }
+
+    /**
+     * Generates a cluster of blocks, at the given coordinates.
+     * @param chunk the chunk being generated.
+     * @param rand the random number generator to use.
+     * @param x the x coordinate of the first block of the custer.
+     * @param y the y coordinate of the first block of the cluster.
+     * @param type the type of blocks in the cluster.
+     * @param min the minimum (minimum 3) number of blocks to be in the cluster.
+     * @param max the maximum (maximum 12) number of blocks to be in the cluster.
+     */
+    private static void generateCluster(Chunk chunk, StreamRandom rand, int x, int y, Blocks type, int min, int max) {
+        if (min < 3) {
+            min = 3;
+        }
+        if (max > 12) {
+            max = 12;
+        }
+        int quantity = min + (int) Math.floor((max - min + 1) * rand.nextDouble());
+        int emptySpots = 8;
+        byte block = type.getPaletteId();
+        // generate blocks 1-3 in the cluster
+        set(chunk, x, y, block);
+        set(chunk, x + 1, y, block);
+        set(chunk, x, y - 1, block);
+        // generate block 4 if required
+        if (quantity >= 4) {
+            set(chunk, x + 1, y - 1, block);
+        }
+        // generate blocks 5 - 12 if required
+        ArrayList<int[]> spots = new ArrayList<>(Arrays.asList(
+                new int[]{0, 1},   // top left
+                new int[]{1, 1},   // top right
+                new int[]{2, 0},   // right top
+                new int[]{2, -1},  // right bottom
+                new int[]{1, -2},  // bottom right
+                new int[]{0, -2},  // bottom left
+                new int[]{-1, -1}, // left bottom
+                new int[]{-1, 0}   // left top
+        ));
+        for (int i = 5; i <= quantity; i++) {
+            int spot = rand.nextInt(emptySpots);
+            int[] spotTranslation = spots.get(spot);
+            set(chunk, x + spotTranslation[0], y + spotTranslation[1], block);
+            spots.remove(spot);
+            emptySpots--;
+        }
+    }
+
+    /**
+     * Generates a vein of blocks (similar to a cluster - but in a line).
+     * @param chunk the chunk being generated.
+     * @param rand the random number generator to use.
+     * @param x the x coordinate of the first block of the vein.
+     * @param y the y coordinate of the first block of the vein.
+     * @param type the type of blocks in the vein.
+     */
+    private static void generateVein(Chunk chunk, StreamRandom rand, int x, int y, Blocks type) {
+        boolean isHorizontal = rand.nextBoolean();
+        int quantity = 5 + (int) Math.floor(10 * rand.nextDouble()); // between 5 and 14 blocks per vein
+        boolean flip = false;
+        byte block = type.getPaletteId();
+        if (quantity > 8) {
+            flip = rand.nextBoolean();
+        }
+        if (isHorizontal) {
+            switch (quantity) {
+                case 14:
+                    set(chunk, x + 5, y - 1, block);
+                case 13:
+                    set(chunk, x + 5, y, block);
+                case 12:
+                    set(chunk, x + 4, y, block);
+                case 11:
+                    set(chunk, x + 4, y - 1, block);
+                case 10:
+                    if (flip) {
+                        set(chunk, x + 2, y + 1, block);
+                    } else {
+                        set(chunk, x + 2, y - 2, block);
+                    }
+                case 9:
+                    if (flip) {
+                        set(chunk, x + 1, y + 1, block);
+                    } else {
+                        set(chunk, x + 1, y - 2, block);
+                    }
+                case 8:
+                    set(chunk, x + 3, y - 1, block);
+                case 7:
+                    set(chunk, x + 3, y, block);
+                case 6:
+                    set(chunk, x + 2, y - 1, block);
+                case 5:
+                    set(chunk, x + 2, y, block);
+                    set(chunk, x + 1, y - 1, block);
+                    set(chunk, x + 1, y, block);
+                    set(chunk, x, y - 1, block);
+                    set(chunk, x, y, block);
+            }
+        } else {
+            switch (quantity) {
+                case 14:
+                    set(chunk, x + 1, y - 5, block);
+                case 13:
+                    set(chunk, x, y - 5, block);
+                case 12:
+                    set(chunk, x, y - 4, block);
+                case 11:
+                    set(chunk, x + 1, y - 4, block);
+                case 10:
+                    if (flip) {
+                        set(chunk, x - 1, y - 2, block);
+                    } else {
+                        set(chunk, x + 2, y - 2, block);
+                    }
+                case 9:
+                    if (flip) {
+                        set(chunk, x - 1, y - 2, block);
+                    } else {
+                        set(chunk, x + 2, y - 2, block);
+                    }
+                case 8:
+                    set(chunk, x + 1, y - 3, block);
+                case 7:
+                    set(chunk, x, y - 3, block);
+                case 6:
+                    set(chunk, x + 1, y - 2, block);
+                case 5:
+                    set(chunk, x, y - 2, block);
+                    set(chunk, x + 1, y - 1, block);
+                    set(chunk, x, y - 1, block);
+                    set(chunk, x + 1, y, block);
+                    set(chunk, x, y, block);
+            }
+        }
+    }
+
+    /**
+     * Stops the generator's threads. The generator can't be used after this has been called.
+     */
+    public void shutdown() { executor.shutdown(); }
+}
@@ -0,0 +1,116 @@
+package uk.bh96.openworld;
+
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+
+/**
+ * Saves and loads the chunks of a world to and from region files within a directory. Failures are logged rather than
+ * thrown - the worst case is that a chunk is regenerated from the seed.
+ */
+public class WorldStorage {
+    /**
+     * The directory which the region files are kept in.
+     */
+    private final File directory;
+    /**
+     * The region files which are currently open, keyed by their region x coordinate.
+     */
+    private final HashMap<Integer, RegionFile> regions = new HashMap<>();
+
+    /**
+     * @param directory the directory to keep the region files in (created if it doesn't exist).
+     */
+    public WorldStorage(File directory) {
+        this.directory = directory;
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            GameLog.e("WorldStorage", "Unable to create " + directory);
+        }
+    }
+
+    /**
+     * Flushes and closes every open region file.
+     */
+    public void close() {
+        for (RegionFile region : regions.values()) {
+            try {
+                region.close();
+            } catch (IOException e) {
+                GameLog.e("WorldStorage", "Unable to close region file", e);
+            }
+        }
+        regions.clear();
+    }
+
+    /**
+     * Forces every chunk saved so far out to the disk.
+     */
+    public void flush() {
+        for (RegionFile region : regions.values()) {
+            region.flush();
+        }
+    }
+
+    /**
+     * @return a task which forces every chunk saved so far out to the disk, and can be run on any thread (e.g. in the
+     * background, see BlockJournal.checkpoint()) - it doesn't touch the storage itself, so later saves don't affect it.
+     */
+    public Runnable flusher() {
+        final Runnable[] flushers = new Runnable[regions.size()];
+        int i = 0;
+        for (RegionFile region : regions.values()) {
+            flushers[i++] = region.flusher();
+        }
+        return new Runnable() {
+            public void run() {
+                for (Runnable flusher : flushers) {
+                    flusher.run();
+                }
+            }
+        };
+    }
+
+    /**
+     * @param chunkX the x coordinate of a chunk, measured in chunks.
+     * @return the (open) region file containing that chunk, or null if it can't be opened.
+     */
+    private RegionFile getRegion(int chunkX) {
+        int regionX = RegionFile.regionXOf(chunkX);
+        RegionFile region = regions.get(regionX);
+        if (region == null) {
+            try {
+                region = new RegionFile(new File(directory, "r." + regionX + ".owr"));
+                regions.put(regionX, region);
+            } catch (IOException e) {
+                GameLog.e("WorldStorage", "Unable to open region " + regionX, e);
+            }
+        }
+        return region;
+    }
+
+    /**
+     * @param chunkX the x coordinate of the chunk, measured in chunks.
+     * @return the saved chunk, or null if it has never been saved.
+     */
+    public Chunk load(int chunkX) {
+        RegionFile region = getRegion(chunkX);
+        return region == null ? null : region.read(chunkX);
+    }
+
+    /**
+     * Saves a chunk (whether or not it has changed), and marks it as clean.
+     * @param chunk the chunk to save.
+     */
+    public void save(Chunk chunk) {
+        RegionFile region = getRegion(chunk.getChunkX());
+        if (region != null) {
+            try {
+                region.write(chunk);
+                chunk.setDirty(false);
+            } catch (IOException e) {
+                GameLog.e("WorldStorage", "Unable to save chunk " + chunk.getChunkX(), e);
+            }
+        }
+    }
+}
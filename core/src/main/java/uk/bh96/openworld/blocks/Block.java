@@ -1,34 +1,18 @@
 package uk.bh96.openworld.blocks;
 
 import uk.bh96.openworld.Entity;
-import uk.bh96.openworld.R;
+import uk.bh96.openworld.Sprite;
 
 /**
- * The base class for all blocks.
+ * The base class for all blocks. Blocks are immutable and shared (see Blocks) - any per-cell state, such as how far a
+ * block has been destroyed, is held by the world.
  */
 public abstract class Block extends Entity {
-    /**
-     * How many stages this block has been destroyed. This is compared to getDurabiltiy() (below) to determine if the block has been completely destroyed.
-     */
-    private int destructionStage = 0;
     /**
      * A constant used to mark the height / width of blocks.
      */
     public static final int size = 56;
 
-    /**
-     * Destroy the block by once stage. Checks the durability of the block to determine if the block has been destroyed.
-     * @return true if the block is completely destroyed, false if it's only destroyed by one stage.
-     */
-    public int destroy() {
-        destructionStage++;
-        if (destructionStage > getDurability()) {
-            return getDestroyScore();
-        } else {
-            return 0;
-        }
-    }
-
     /**
      * @return the bitmap of the block normally (i.e. when it's not being destroyed).
      */
@@ -50,11 +34,17 @@ public abstract class Block extends Entity {
     abstract public String getId();
 
     /**
+     * @return the bitmap of the block when it's not being destroyed.
+     */
+    public int getBitmap() { return getBitmapNormal(); }
+
+    /**
+     * @param destructionStage how many stages this block has been destroyed.
      * @return an apppropriate bitmap, depending on if the block is being destroyed or not.
      */
-    public int getBitmap() {
+    public int getBitmap(int destructionStage) {
         if (destructionStage > 0) {
-            return R.drawable.destroy;
+            return Sprite.DESTROY.getId();
         } else {
             return getBitmapNormal();
         }
@@ -64,11 +54,4 @@ public abstract class Block extends Entity {
      * @return if the block is solid (if the player stands on it, should they pass through?).
      */
     abstract public boolean isSolid();
-
-    /**
-     * Resets the block if it ceases to be under destruction.
-     */
-    public void reset() {
-        destructionStage = 0;
-    }
 }
@@ -0,0 +1,65 @@
+package uk.bh96.openworld.blocks;
+
+/**
+ * Contains a list of the different available block types. Each type holds a single shared (immutable) block, and a
+ * palette id which is what the world actually stores for each cell (0 is reserved for "air").
+ */
+public enum Blocks {
+    BEDROCK(new Bedrock()),
+    COAL(new Coal()),
+    DIAMOND(new Diamond()),
+    DIRT(new Dirt()),
+    GOLD(new Gold()),
+    GRASS(new Grass()),
+    IRON(new Iron()),
+    LAVA(new Lava()),
+    STONE(new Stone());
+
+    /**
+     * The palette id used to represent "air" (i.e. no block).
+     */
+    public static final byte AIR = 0;
+    /**
+     * Maps palette ids back to the shared block of that type (index 0 is air, so null).
+     */
+    private static final Block[] palette = new Block[values().length + 1];
+    /**
+     * Whether the block with each palette id is solid (index 0 is air, so false).
+     */
+    private static final boolean[] solid = new boolean[values().length + 1];
+
+    static {
+        for (Blocks type : values()) {
+            palette[type.getPaletteId()] = type.block;
+            solid[type.getPaletteId()] = type.block.isSolid();
+        }
+    }
+
+    /**
+     * The shared block of this type.
+     */
+    private final Block block;
+
+    /**
+     * @param block the shared block of this type.
+     */
+    Blocks(Block block) { this.block = block; }
+
+    /**
+     * @param paletteId the palette id of the block.
+     * @return the shared block with the given palette id, or null if the palette id represents air.
+     */
+    public static Block fromPaletteId(byte paletteId) { return palette[paletteId]; }
+
+    /**
+     * @param paletteId the palette id of the block.
+     * @return true if the block with the given palette id is solid (air is not).
+     */
+    public static boolean isSolid(byte paletteId) { return solid[paletteId]; }
+
+    public Block getBlock() { return block; }
+    /**
+     * @return the palette id of this type of block (never 0, which is reserved for air).
+     */
+    public byte getPaletteId() { return (byte) (ordinal() + 1); }
+}
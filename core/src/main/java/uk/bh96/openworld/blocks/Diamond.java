@@ -1,12 +1,12 @@
 package uk.bh96.openworld.blocks;
 
-import uk.bh96.openworld.R;
+import uk.bh96.openworld.Sprite;
 
 /**
  * Represents the block "diamond". A rare ore only found towards the bottom of the world.
  */
 public class Diamond extends Block {
-    public int getBitmapNormal() { return R.drawable.diamond; }
+    public int getBitmapNormal() { return Sprite.DIAMOND.getId(); }
     public int getDestroyScore() { return 75; }
     public int getDurability() {return 20; }
     public String getId() { return "Diamond"; }
@@ -1,12 +1,12 @@
 package uk.bh96.openworld.blocks;
 
-import uk.bh96.openworld.R;
+import uk.bh96.openworld.Sprite;
 
 /**
  * Represents the block "dirt". Commonly found at the top of the world.
  */
 public class Dirt extends Block {
-    public int getBitmapNormal() { return R.drawable.dirt; }
+    public int getBitmapNormal() { return Sprite.DIRT.getId(); }
     public int getDestroyScore() { return 1; }
     public int getDurability() {return 1; }
     public String getId() { return "Dirt"; }
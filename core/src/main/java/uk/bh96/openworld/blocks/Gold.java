@@ -1,12 +1,12 @@
 package uk.bh96.openworld.blocks;
 
-import uk.bh96.openworld.R;
+import uk.bh96.openworld.Sprite;
 
 /**
  * Represents the block "gold". A somewhat rare ore only found in the middle and bottom layers of the world.
  */
 public class Gold extends Block {
-    public int getBitmapNormal() { return R.drawable.gold; }
+    public int getBitmapNormal() { return Sprite.GOLD.getId(); }
     public int getDestroyScore() { return 45; }
     public int getDurability() {return 10; }
     public String getId() { return "Gold"; }
@@ -1,12 +1,12 @@
 package uk.bh96.openworld.blocks;
 
-import uk.bh96.openworld.R;
+import uk.bh96.openworld.Sprite;
 
 /**
  * Represents the block "grass". Found covering the top layer of the world.
  */
 public class Grass extends Block {
-    public int getBitmapNormal() { return R.drawable.grass; }
+    public int getBitmapNormal() { return Sprite.GRASS.getId(); }
     public int getDestroyScore() { return 1; }
     public int getDurability() {return 1; }
     public String getId() { return "Grass"; }
@@ -1,13 +1,13 @@
 package uk.bh96.openworld.blocks;
 
-import uk.bh96.openworld.R;
+import uk.bh96.openworld.Sprite;
 
 /**
  * Represents the block "lava". A liquid block which is extremely damaging to touch.
  */
 public class Lava extends Block {
     public int getBitmapNormal() {
-        return R.drawable.lava;
+        return Sprite.LAVA.getId();
     }
     public int getDestroyScore() { return 0; }
     public int getDurability() {return Integer.MAX_VALUE; }
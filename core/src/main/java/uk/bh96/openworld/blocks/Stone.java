@@ -1,12 +1,12 @@
 package uk.bh96.openworld.blocks;
 
-import uk.bh96.openworld.R;
+import uk.bh96.openworld.Sprite;
 
 /**
  * Represents the block "stone". Commonly found throughout the world.
  */
 public class Stone extends Block {
-    public int getBitmapNormal() { return R.drawable.stone; }
+    public int getBitmapNormal() { return Sprite.STONE.getId(); }
     public int getDestroyScore() { return 2; }
     public int getDurability() {return 2; }
     public String getId() { return "Stone"; }
@@ -0,0 +1,77 @@
+package uk.bh96.openworld.mobs;
+
+import uk.bh96.openworld.Sprite;
+
+/**
+ * Contains a list of the different available mob types, along with everything which differs between them. The mobs
+ * themselves are simulated together (see MobStore), so each is just a row of numbers which refers back to its type.
+ */
+public enum Mobs {
+    /**
+     * A basic mob which moves at half the speed of the player, and attacks the player when within 0.5 block range.
+     */
+    ZOMBIE(40, 64, 0.1f, 100, new Sprite[]{
+            Sprite.ZOMBIE_LEFT1,
+            Sprite.ZOMBIE_LEFT2,
+            Sprite.ZOMBIE_LEFT3,
+            Sprite.ZOMBIE_RIGHT1,
+            Sprite.ZOMBIE_RIGHT2,
+            Sprite.ZOMBIE_RIGHT3,
+    });
+
+    /**
+     * The animated sprites for this type of mob: every frame facing left, followed by every frame facing right.
+     */
+    private final Sprite bitmaps[];
+    /**
+     * The height of the bitmap representing this type of mob.
+     */
+    private final int height;
+    /**
+     * The health that this type of mob spawns with.
+     */
+    private final float health;
+    /**
+     * The speed that this type of mob moves at (distance per tick - nominally every 0.1 seconds).
+     */
+    private final float speed;
+    /**
+     * The width of the bitmap representing this type of mob.
+     */
+    private final int width;
+
+    /**
+     * @param width the width of the bitmap representing this type of mob.
+     * @param height the height of the bitmap representing this type of mob.
+     * @param speed the speed that this type of mob moves at.
+     * @param health the health that this type of mob spawns with.
+     * @param bitmaps the animated sprites for this type of mob.
+     */
+    Mobs(int width, int height, float speed, float health, Sprite[] bitmaps) {
+        this.width = width;
+        this.height = height;
+        this.speed = speed;
+        this.health = health;
+        this.bitmaps = bitmaps;
+    }
+
+    /**
+     * @param facingRight whether the mob is facing right.
+     * @param bitmapStage the animation stage of the mob.
+     * @return the correct bitmap to display in order for smooth animation.
+     */
+    public int getBitmap(boolean facingRight, byte bitmapStage) {
+        int frames = bitmaps.length / 2;
+        return bitmaps[((bitmapStage + 128) % frames) + (facingRight ? frames : 0)].getId();
+    }
+
+    /**
+     * @return every sprite that this type of mob could be drawn with.
+     */
+    public int[] getBitmaps() { return Sprite.getIds(bitmaps); }
+
+    public int getHeight() { return height; }
+    public float getHealth() { return health; }
+    public float getSpeed() { return speed; }
+    public int getWidth() { return width; }
+}
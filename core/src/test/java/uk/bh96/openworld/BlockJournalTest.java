@@ -0,0 +1,191 @@
+package uk.bh96.openworld;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks that the journal gives back the changes made since the world was last saved, however the game stopped.
+ */
+public class BlockJournalTest {
+    /**
+     * How long to wait for the background thread to write something out (in milliseconds).
+     */
+    private static final long TIMEOUT = 10000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Changes written out by the background thread are replayed, in order, even if the journal was never closed (i.e.
+     * the game was killed).
+     */
+    @Test
+    public void replaysAfterUncleanClose() throws Exception {
+        File file = new File(folder.getRoot(), "edits.owj");
+        BlockJournal killed = new BlockJournal(file);
+        for (int i = 0; i < 10; i++) {
+            killed.append(-5 + i, 100 + i, (byte) 1, (byte) (i + 2), 1000 + i);
+        }
+        awaitLength(file, 10 * BlockJournal.RECORD_BYTES);
+
+        List<long[]> replayed = replay(file);
+        assertEquals(10, replayed.size());
+        for (int i = 0; i < 10; i++) {
+            assertChange(replayed.get(i), -5 + i, 100 + i, i + 2, 1000 + i);
+        }
+        killed.close();
+    }
+
+    /**
+     * A record cut short (the game was killed part way through writing it) is dropped, and changes appended afterwards
+     * line up with the records before it.
+     */
+    @Test
+    public void dropsTornLastRecord() throws Exception {
+        File file = new File(folder.getRoot(), "edits.owj");
+        BlockJournal journal = new BlockJournal(file);
+        for (int i = 0; i < 3; i++) {
+            journal.append(i, 120, (byte) 1, (byte) 0, i);
+        }
+        journal.close();
+        RandomAccessFile torn = new RandomAccessFile(file, "rw");
+        try {
+            torn.seek(torn.length());
+            torn.write(new byte[] {0, 0, 0, 7, 0}); // the start of a fourth record
+        } finally {
+            torn.close();
+        }
+
+        journal = new BlockJournal(file);
+        journal.append(3, 121, (byte) 1, (byte) 5, 3);
+        journal.close();
+        assertEquals(4 * BlockJournal.RECORD_BYTES, file.length());
+        List<long[]> replayed = replay(file);
+        assertEquals(4, replayed.size());
+        for (int i = 0; i < 3; i++) {
+            assertChange(replayed.get(i), i, 120, 0, i);
+        }
+        assertChange(replayed.get(3), 3, 121, 5, 3);
+    }
+
+    /**
+     * Once the journal has grown enough to be compacted, only the latest change to each block is kept - so replaying
+     * it still leaves every block as it was last changed.
+     */
+    @Test
+    public void compactionKeepsLatestChanges() throws Exception {
+        File file = new File(folder.getRoot(), "edits.owj");
+        BlockJournal journal = new BlockJournal(file);
+        int changes = 20000; // well over the size the journal is compacted at
+        Map<Long, Integer> latest = new HashMap<>();
+        for (int i = 0; i < changes; i++) {
+            int x = i % 50;
+            int y = 60 + i % 7;
+            journal.append(x, y, (byte) 0, (byte) (i % 100), i);
+            latest.put(((long) x << 32) | y, i % 100);
+        }
+        journal.close();
+        assertTrue("the journal should have been compacted", file.length() < changes * BlockJournal.RECORD_BYTES);
+
+        Map<Long, Integer> blocks = new HashMap<>();
+        long lastTick = -1;
+        for (long[] change : replay(file)) {
+            assertTrue("changes should be replayed in the order they were made", change[3] > lastTick);
+            lastTick = change[3];
+            blocks.put((change[0] << 32) | change[1], (int) change[2]);
+        }
+        assertEquals(latest, blocks);
+    }
+
+    /**
+     * A checkpoint drops the changes made before it (once the world has been forced to disk), and keeps those made
+     * after it.
+     */
+    @Test
+    public void checkpointKeepsLaterChanges() throws Exception {
+        File file = new File(folder.getRoot(), "edits.owj");
+        BlockJournal killed = new BlockJournal(file);
+        for (int i = 0; i < 10; i++) {
+            killed.append(i, 100, (byte) 1, (byte) 0, i);
+        }
+        awaitLength(file, 10 * BlockJournal.RECORD_BYTES);
+        final AtomicBoolean forced = new AtomicBoolean();
+        killed.checkpoint(new Runnable() {
+            public void run() { forced.set(true); }
+        });
+        for (int i = 10; i < 13; i++) {
+            killed.append(i, 100, (byte) 1, (byte) 0, i);
+        }
+        awaitLength(file, 3 * BlockJournal.RECORD_BYTES); // (only once the earlier changes have been dropped)
+
+        assertTrue("the world should have been forced to disk", forced.get());
+        List<long[]> replayed = replay(file);
+        assertEquals(3, replayed.size());
+        for (int i = 0; i < 3; i++) {
+            assertChange(replayed.get(i), 10 + i, 100, 0, 10 + i);
+        }
+        killed.close();
+    }
+
+    /**
+     * @param file a journal.
+     * @return each change replayed from it (x, y, palette id, tick), in order.
+     */
+    private static List<long[]> replay(File file) {
+        final List<long[]> changes = new ArrayList<>();
+        BlockJournal journal = new BlockJournal(file);
+        try {
+            journal.replay(new BlockJournal.Editor() {
+                public void setBlock(int x, int y, byte paletteId, long tick) {
+                    changes.add(new long[] {x, y, paletteId, tick});
+                }
+            });
+        } finally {
+            journal.close();
+        }
+        return changes;
+    }
+
+    /**
+     * Waits until the background thread has written a file out to a given length.
+     * @param file the file.
+     * @param length the length.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    static void awaitLength(File file, long length) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT;
+        while (file.length() != length) {
+            if (System.currentTimeMillis() > deadline) {
+                fail(file + " is " + file.length() + " bytes, not " + length);
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * @param change a change replayed from the journal (x, y, palette id, tick).
+     * @param x the expected x coordinate.
+     * @param y the expected y coordinate.
+     * @param paletteId the expected palette id.
+     * @param tick the expected tick.
+     */
+    private static void assertChange(long[] change, int x, int y, int paletteId, long tick) {
+        assertEquals(x, change[0]);
+        assertEquals(y, change[1]);
+        assertEquals(paletteId, change[2]);
+        assertEquals(tick, change[3]);
+    }
+}
@@ -0,0 +1,61 @@
+package uk.bh96.openworld;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that compressing generated chunks keeps every block, and reports how much memory it saves.
+ */
+public class ChunkTest {
+    /**
+     * The number of chunks generated (enough to take in a good mix of terrain and ore).
+     */
+    private static final int CHUNKS = 64;
+
+    /**
+     * Compresses a run of generated chunks, checking each block afterwards, and reports the heap used (see
+     * Chunk.getHeapBytes()) before and after.
+     */
+    @Test
+    public void compressionKeepsBlocksAndSavesMemory() {
+        WorldGenerator generator = new WorldGenerator(1125899906842597L, 1);
+        long uncompressed = 0;
+        long compressed = 0;
+        try {
+            for (int chunkX = -CHUNKS / 2; chunkX < CHUNKS / 2; chunkX++) {
+                Chunk chunk = generator.generate(chunkX);
+                byte[] blocks = blocksOf(chunk);
+                int before = chunk.getHeapBytes();
+                uncompressed += before;
+                chunk.compress();
+                assertTrue(chunk.isCompressed());
+                compressed += chunk.getHeapBytes();
+                for (int i = 0; i < blocks.length; i++) {
+                    assertEquals("block " + i + " of chunk " + chunkX, blocks[i],
+                            chunk.getBlock(i / Chunk.HEIGHT, i % Chunk.HEIGHT));
+                }
+                chunk.decompress();
+                assertEquals(before, chunk.getHeapBytes());
+            }
+        } finally {
+            generator.shutdown();
+        }
+        System.out.println("Heap bytes per chunk: " + uncompressed / CHUNKS + " uncompressed, " + compressed / CHUNKS
+                + " compressed");
+        assertTrue("compressed chunks should be less than half the size", 2 * compressed < uncompressed);
+    }
+
+    /**
+     * @param chunk a chunk.
+     * @return its blocks, column by column.
+     */
+    private static byte[] blocksOf(Chunk chunk) {
+        byte[] blocks = new byte[Chunk.WIDTH * Chunk.HEIGHT];
+        for (int i = 0; i < blocks.length; i++) {
+            blocks[i] = chunk.getBlock(i / Chunk.HEIGHT, i % Chunk.HEIGHT);
+        }
+        return blocks;
+    }
+}
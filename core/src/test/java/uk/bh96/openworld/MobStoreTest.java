@@ -0,0 +1,94 @@
+package uk.bh96.openworld;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import uk.bh96.openworld.mobs.Mobs;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the bookkeeping of the mob store's swap-and-pop removal: the mobs keep their state, and the order mobs are
+ * separated in (see MobStore.updateSeparation()) still holds each of them exactly once.
+ */
+public class MobStoreTest {
+    /**
+     * The number of mobs added.
+     */
+    private static final int MOBS = 200;
+
+    /**
+     * The world the mobs are in.
+     */
+    private World world;
+    /**
+     * The player the mobs chase.
+     */
+    private Player player;
+
+    @Before
+    public void setUp() {
+        world = new World(42, 23, 13, null);
+        player = new Player(world);
+    }
+
+    @After
+    public void tearDown() { world.close(); }
+
+    /**
+     * Removes mobs from the start, middle and end, in between ticks (which re-sort the order), checking that the rest
+     * are still there, once each, and that order and rank still agree.
+     */
+    @Test
+    public void removeKeepsOrderAndRank() {
+        MobStore mobs = world.getMobs();
+        Random random = new Random(11);
+        for (int i = 0; i < MOBS; i++) {
+            int x = (int) player.getX() - 20 + random.nextInt(40);
+            mobs.add(Mobs.ZOMBIE, x + 0.5f, world.getHeight(x) + 1 + random.nextInt(3));
+        }
+        player.update(Tick.SECONDS); // sorts the order
+        assertConsistent(mobs);
+
+        while (mobs.size() > 0) {
+            int size = mobs.size();
+            int choice = random.nextInt(4);
+            int mob = choice == 0 ? 0 : choice == 1 ? size - 1 : random.nextInt(size);
+            float lastX = mobs.getX(size - 1);
+            float lastY = mobs.getY(size - 1);
+            float lastHealth = mobs.getHealth(size - 1);
+            mobs.remove(mob);
+            assertEquals(size - 1, mobs.size());
+            if (mob != size - 1) { // the last mob has taken its place
+                assertEquals(lastX, mobs.getX(mob), 0);
+                assertEquals(lastY, mobs.getY(mob), 0);
+                assertEquals(lastHealth, mobs.getHealth(mob), 0);
+            }
+            assertConsistent(mobs);
+            if (size % 10 == 0) {
+                player.update(Tick.SECONDS); // (which may despawn, or kill, some of them too)
+                assertConsistent(mobs);
+            }
+        }
+    }
+
+    /**
+     * Checks that order holds every mob exactly once, and that rank is its inverse.
+     * @param mobs the mobs.
+     */
+    private static void assertConsistent(MobStore mobs) {
+        Set<Integer> seen = new HashSet<>();
+        for (int position = 0; position < mobs.size(); position++) {
+            int mob = mobs.getOrdered(position);
+            assertTrue("mob " + mob + " at position " + position + " doesn't exist", mob >= 0 && mob < mobs.size());
+            assertTrue("mob " + mob + " is in the order twice", seen.add(mob));
+            assertEquals("rank of mob " + mob, position, mobs.getRank(mob));
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package uk.bh96.openworld;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import uk.bh96.openworld.blocks.Blocks;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Checks that chunks saved in a region file read back exactly, and that a corrupt offset table doesn't stop the rest
+ * of the file being used.
+ */
+public class RegionFileTest {
+    /**
+     * The x coordinate of the first chunk in the region used (region 1, so the chunk coordinates aren't the same as
+     * their places in the offset table).
+     */
+    private static final int FIRST_CHUNK = RegionFile.WIDTH;
+    /**
+     * The number of chunks saved (some of the region is left unsaved).
+     */
+    private static final int CHUNKS = 12;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Saves chunks (growing, and so remapping, the file each time), overwrites some of them, and reads them all back
+     * after reopening the file.
+     */
+    @Test
+    public void roundTrip() throws Exception {
+        File file = new File(folder.getRoot(), "r.1.owr");
+        WorldGenerator generator = new WorldGenerator(1125899906842597L, 1);
+        byte[][] saved = new byte[CHUNKS][];
+        try {
+            RegionFile region = new RegionFile(file);
+            for (int i = 0; i < CHUNKS; i++) {
+                Chunk chunk = generator.generate(FIRST_CHUNK + i);
+                if (i % 3 == 0) {
+                    chunk.compress(); // (saved the same either way)
+                }
+                region.write(chunk);
+                saved[i] = WorldGeneratorTest.bytesOf(chunk);
+            }
+            long length = file.length();
+            for (int i = 0; i < CHUNKS; i += 2) { // overwritten in place
+                Chunk chunk = region.read(FIRST_CHUNK + i);
+                chunk.setBlock(i, 100 + i, Blocks.AIR);
+                region.write(chunk);
+                saved[i] = WorldGeneratorTest.bytesOf(chunk);
+            }
+            assertEquals(length, file.length());
+            region.close();
+        } finally {
+            generator.shutdown();
+        }
+
+        RegionFile region = new RegionFile(file);
+        try {
+            for (int i = 0; i < CHUNKS; i++) {
+                Chunk chunk = region.read(FIRST_CHUNK + i);
+                assertNotNull("chunk " + (FIRST_CHUNK + i), chunk);
+                assertEquals(FIRST_CHUNK + i, chunk.getChunkX());
+                assertFalse(chunk.isDirty());
+                assertFalse(chunk.isEdited());
+                for (int localX = 0; localX < Chunk.WIDTH; localX++) {
+                    for (int y = 0; y < Chunk.HEIGHT; y++) {
+                        assertEquals("block " + localX + "," + y + " of chunk " + (FIRST_CHUNK + i),
+                                saved[i][localX * Chunk.HEIGHT + y], chunk.getBlock(localX, y));
+                    }
+                }
+            }
+            assertNull(region.read(FIRST_CHUNK + CHUNKS)); // never saved
+        } finally {
+            region.close();
+        }
+    }
+
+    /**
+     * A chunk whose entry in the offset table is corrupt reads as not saved (so it's generated again), the chunks
+     * around it are still read, and saving it again gives it a valid entry.
+     */
+    @Test
+    public void corruptEntryReadsAsNotSaved() throws Exception {
+        File file = new File(folder.getRoot(), "r.1.owr");
+        RegionFile region = new RegionFile(file);
+        for (int i = 0; i < 3; i++) {
+            region.write(new Chunk(FIRST_CHUNK + i));
+        }
+        region.close();
+        long length = file.length();
+
+        int[][] corruptions = {
+                {Integer.MAX_VALUE, Chunk.BYTES}, // past the end of the file
+                {(int) (length / RegionFile.SECTOR_SIZE), Chunk.BYTES}, // starts at the end of the file
+                {-3, Chunk.BYTES}, // before the start
+                {1, Chunk.BYTES + 1}, // the wrong length
+        };
+        for (int[] corruption : corruptions) {
+            setEntry(file, 1, corruption[0], corruption[1]);
+            region = new RegionFile(file);
+            try {
+                assertNull(region.read(FIRST_CHUNK + 1));
+                assertNotNull(region.read(FIRST_CHUNK));
+                assertNotNull(region.read(FIRST_CHUNK + 2));
+            } finally {
+                region.close();
+            }
+        }
+
+        region = new RegionFile(file);
+        Chunk chunk = new Chunk(FIRST_CHUNK + 1);
+        chunk.setBlock(5, 50, Blocks.STONE.getPaletteId());
+        region.write(chunk);
+        region.close();
+        region = new RegionFile(file);
+        try {
+            byte[] read = WorldGeneratorTest.bytesOf(region.read(FIRST_CHUNK + 1));
+            assertArrayEquals(WorldGeneratorTest.bytesOf(chunk), read);
+            assertNotNull(region.read(FIRST_CHUNK));
+        } finally {
+            region.close();
+        }
+    }
+
+    /**
+     * Overwrites an entry in a region file's offset table.
+     * @param file the region file.
+     * @param index the place of the entry in the table.
+     * @param sector the sector to put in the entry.
+     * @param length the length to put in the entry.
+     * @throws IOException if the file can't be written.
+     */
+    private static void setEntry(File file, int index, int sector, int length) throws IOException {
+        RandomAccessFile out = new RandomAccessFile(file, "rw");
+        try {
+            out.seek(index * 8);
+            out.writeInt(sector);
+            out.writeInt(length);
+        } finally {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package uk.bh96.openworld;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that replaying a recording (see InputRecorder and InputReplay) reproduces the recorded game exactly.
+ */
+public class ReplayTest {
+    /**
+     * The seed of the world.
+     */
+    private static final long SEED = 42;
+    /**
+     * The width of the screen (in pixels).
+     */
+    private static final int VIEW_WIDTH = 1920;
+    /**
+     * The height of the screen (in pixels).
+     */
+    private static final int VIEW_HEIGHT = 1080;
+    /**
+     * The size of a block on the screen (in pixels).
+     */
+    private static final float BLOCK_SIZE = 84;
+    /**
+     * The number of ticks played.
+     */
+    private static final int TICKS = 2000;
+
+    /**
+     * Plays a game with scripted touches (as GameThread does: the touches which arrived before a tick are applied, and
+     * recorded, and then the tick is run), then replays the recording and compares the whole game tick for tick.
+     */
+    @Test
+    public void replayReproducesRecordedGame() throws Exception {
+        World world = new World(SEED, VIEW_WIDTH / BLOCK_SIZE, VIEW_HEIGHT / BLOCK_SIZE, null);
+        Player player = new Player(world);
+        Controls controls = new Controls(world, player, BLOCK_SIZE);
+        ByteArrayOutputStream recording = new ByteArrayOutputStream();
+        InputRecorder recorder = new InputRecorder(recording, SEED, VIEW_WIDTH, VIEW_HEIGHT, BLOCK_SIZE);
+        Random script = new Random(7);
+        long[] checksums = new long[TICKS];
+        long score = 0;
+        int ticks = 0;
+        float startX = player.getX();
+        try {
+            while (ticks < TICKS && player.getHealth() > 0) {
+                if (script.nextInt(4) == 0) {
+                    int type = script.nextInt(4) == 0 ? Controls.RELEASE : Controls.TOUCH;
+                    float x = script.nextFloat() * VIEW_WIDTH;
+                    float y = script.nextFloat() * VIEW_HEIGHT;
+                    controls.apply(type, x, y, VIEW_WIDTH, VIEW_HEIGHT);
+                    recorder.record(ticks, type, x, y);
+                }
+                player.update(Tick.SECONDS);
+                score += world.getScoreChange();
+                checksums[ticks++] = checksum(world, player, score);
+            }
+            recorder.close();
+            assertTrue("the script should have moved the player", player.getX() != startX);
+        } finally {
+            world.close();
+        }
+
+        Replay replay = new Replay(new InputReplay(new ByteArrayInputStream(recording.toByteArray())), Clock.SYSTEM);
+        try {
+            for (int tick = 0; tick < ticks; tick++) {
+                replay.step();
+                assertEquals("checksum after tick " + tick, checksums[tick], replay.checksum());
+            }
+            assertEquals(ticks, replay.getTick());
+            assertEquals(score, replay.getScore());
+        } finally {
+            replay.close();
+        }
+    }
+
+    /**
+     * @param world the world.
+     * @param player the player.
+     * @param score the score.
+     * @return a checksum of the game, worked out in the same way as Replay.checksum().
+     */
+    private static long checksum(World world, Player player, long score) {
+        long hash = world.checksum();
+        hash = 31 * hash + Float.floatToIntBits(player.getX());
+        hash = 31 * hash + Float.floatToIntBits(player.getY());
+        hash = 31 * hash + Double.doubleToLongBits(player.getHealth());
+        return 31 * hash + score;
+    }
+}
@@ -0,0 +1,111 @@
+package uk.bh96.openworld;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks that resuming a session (see SessionSnapshot) never loses changes the journal has kept (see BlockJournal),
+ * when the game was killed.
+ */
+public class SessionSnapshotTest {
+    /**
+     * The seed of the world.
+     */
+    private static final long SEED = 5;
+    /**
+     * The width of the screen, in blocks.
+     */
+    private static final float SCREEN_WIDTH = 23;
+    /**
+     * The height of the screen, in blocks.
+     */
+    private static final float SCREEN_HEIGHT = 13;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * A snapshot taken after the changes in the journal is restored, with them.
+     */
+    @Test
+    public void restoresAfterJournalReplay() throws Exception {
+        File directory = folder.newFolder();
+        World killed = new World(SEED, SCREEN_WIDTH, SCREEN_HEIGHT, directory);
+        Player player = new Player(killed);
+        int y = mine(killed, player, 514);
+        byte[] session = SessionSnapshot.capture(killed, 3, 100);
+        BlockJournalTest.awaitLength(new File(directory, "edits.owj"), BlockJournal.RECORD_BYTES); // (never saved)
+
+        SessionSnapshot snapshot = new SessionSnapshot(session);
+        World world = snapshot.restore(directory);
+        try {
+            assertNull(world.getBlock(514, y));
+            // and it carries on just as the original would have (a tick loads the same chunks around the player)
+            player.update(Tick.SECONDS);
+            snapshot.getPlayer().update(Tick.SECONDS);
+            assertEquals(player.getX(), snapshot.getPlayer().getX(), 0);
+            assertEquals(killed.checksum(), world.checksum());
+        } finally {
+            world.close();
+        }
+    }
+
+    /**
+     * A snapshot taken before changes which are in the journal (the game was resumed from it, played, and killed before
+     * the next snapshot) isn't restored, as that would undo them - and the changes are still there afterwards.
+     */
+    @Test
+    public void doesNotRestoreSnapshotOlderThanJournal() throws Exception {
+        File directory = folder.newFolder();
+        World world = new World(SEED, SCREEN_WIDTH, SCREEN_HEIGHT, directory);
+        int saved = mine(world, new Player(world), 514);
+        byte[] session = SessionSnapshot.capture(world, 3, 100);
+        world.close(); // paused, and stopped
+
+        SessionSnapshot snapshot = new SessionSnapshot(session);
+        World killed = snapshot.restore(directory);
+        int y = mine(killed, snapshot.getPlayer(), 516);
+        BlockJournalTest.awaitLength(new File(directory, "edits.owj"), BlockJournal.RECORD_BYTES);
+
+        try {
+            new SessionSnapshot(session).restore(directory);
+            fail("a snapshot older than the journal shouldn't be restored");
+        } catch (IOException e) {
+            // expected
+        }
+        world = new World(SEED, SCREEN_WIDTH, SCREEN_HEIGHT, directory);
+        try {
+            assertNull(world.getBlock(514, saved));
+            assertNull(world.getBlock(516, y));
+        } finally {
+            world.close();
+        }
+    }
+
+    /**
+     * Destroys the top block of a column.
+     * @param world the world.
+     * @param player the player destroying it.
+     * @param x the x coordinate of the column.
+     * @return the y coordinate of the block destroyed.
+     */
+    private static int mine(World world, Player player, int x) {
+        int y = world.getHeight(x);
+        world.destroyBlock(x, y);
+        for (int i = 0; i < 1000 && world.getBlock(x, y) != null; i++) {
+            player.update(Tick.SECONDS);
+        }
+        assertNull("the block should have been destroyed", world.getBlock(x, y));
+        assertTrue(world.getHeight(x) < y);
+        return y;
+    }
+}
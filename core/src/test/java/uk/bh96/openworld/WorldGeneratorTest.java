@@ -0,0 +1,91 @@
+package uk.bh96.openworld;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertArrayEquals;
+
+/**
+ * Checks that generating chunks concurrently gives exactly the same terrain as generating them one at a time.
+ */
+public class WorldGeneratorTest {
+    /**
+     * The seed of the world generated.
+     */
+    private static final long SEED = 1125899906842597L;
+    /**
+     * The x coordinate of the first chunk generated (negative coordinates are generated too).
+     */
+    private static final int FIRST_CHUNK = -24;
+    /**
+     * The number of chunks generated.
+     */
+    private static final int CHUNKS = 48;
+
+    /**
+     * Generates the same chunks with one thread and with several, in a different order, and compares them byte for
+     * byte.
+     */
+    @Test
+    public void outputDoesNotDependOnThreadCount() {
+        byte[][] serial = generate(1, false);
+        byte[][] concurrent = generate(Math.max(4, Runtime.getRuntime().availableProcessors()), true);
+        for (int i = 0; i < CHUNKS; i++) {
+            assertArrayEquals("chunk " + (FIRST_CHUNK + i), serial[i], concurrent[i]);
+        }
+    }
+
+    /**
+     * Prefetched chunks (generated in the background, see WorldGenerator.prefetch()) are the same as ones generated
+     * straight away.
+     */
+    @Test
+    public void prefetchedChunksAreTheSame() {
+        byte[][] serial = generate(1, false);
+        WorldGenerator generator = new WorldGenerator(SEED, 4);
+        try {
+            for (int i = 0; i < CHUNKS; i++) {
+                generator.prefetch(FIRST_CHUNK + i, null);
+            }
+            for (int i = 0; i < CHUNKS; i++) {
+                assertArrayEquals("chunk " + (FIRST_CHUNK + i), serial[i], bytesOf(generator.take(FIRST_CHUNK + i)));
+            }
+        } finally {
+            generator.shutdown();
+        }
+    }
+
+    /**
+     * @param threads the number of generator threads.
+     * @param reversed whether to ask for the chunks from right to left (rather than left to right).
+     * @return the blocks of each chunk (see Chunk.writeTo()), from left to right.
+     */
+    private static byte[][] generate(int threads, boolean reversed) {
+        int[] chunkXs = new int[CHUNKS];
+        for (int i = 0; i < CHUNKS; i++) {
+            chunkXs[i] = reversed ? FIRST_CHUNK + CHUNKS - 1 - i : FIRST_CHUNK + i;
+        }
+        WorldGenerator generator = new WorldGenerator(SEED, threads);
+        try {
+            Chunk[] chunks = generator.generate(chunkXs, CHUNKS);
+            byte[][] bytes = new byte[CHUNKS][];
+            for (int i = 0; i < CHUNKS; i++) {
+                bytes[chunkXs[i] - FIRST_CHUNK] = bytesOf(chunks[i]);
+            }
+            return bytes;
+        } finally {
+            generator.shutdown();
+        }
+    }
+
+    /**
+     * @param chunk a chunk.
+     * @return its blocks, as they're saved (see Chunk.writeTo()).
+     */
+    static byte[] bytesOf(Chunk chunk) {
+        ByteBuffer buffer = ByteBuffer.allocate(Chunk.BYTES);
+        chunk.writeTo(buffer);
+        return buffer.array();
+    }
+}